@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import lemmini.graphics.LemImage;
+
+/**
+ * Repeatable fixtures shared by the benchmarks: a headless game, a synthetic level
+ * and detached sessions filled with Lemmings.
+ * <p>
+ * The game resources are taken from the folder given by the system property
+ * {@code lemmini.gameFolder} (default: {@code bin}), like a game started from that folder.
+ * @author Will James
+ */
+final class BenchFixture {
+
+    /** width of the synthetic level in pixels */
+    static final int LEVEL_WIDTH = 3200;
+    /** height of the synthetic level in pixels */
+    static final int LEVEL_HEIGHT = 320;
+    /** y position of the top of the solid floor */
+    static final int FLOOR_Y = LEVEL_HEIGHT - 96;
+    /** distance between two walls standing on the floor */
+    private static final int WALL_DISTANCE = 200;
+    private static final int WALL_WIDTH = 12;
+    private static final int WALL_HEIGHT = 48;
+    private static final int TERRAIN_COLOR = 0xff905020;
+    /** number of frames simulated before skills are assigned, so every Lemming has landed */
+    private static final int LANDING_FRAMES = 8;
+
+    private static boolean initialized;
+
+    private BenchFixture() {
+    }
+
+    /**
+     * Initialize the headless game once per JVM.
+     */
+    static synchronized void init() throws Exception {
+        if (initialized) {
+            return;
+        }
+        System.setProperty("java.awt.headless", "true");
+        String gameFolder = Paths.get(System.getProperty("lemmini.gameFolder", "bin")).toAbsolutePath().toString();
+        Core.setJarDirectory(gameFolder);
+        if (!Core.init(gameFolder, true)) {
+            throw new LemException("Unable to initialize the game in " + gameFolder);
+        }
+        LemGame.initHeadless();
+        initialized = true;
+    }
+
+    /**
+     * Create the synthetic level: a grid of terrain pieces of the dirt style,
+     * one entrance and one exit. Nothing else is needed from the level pack.
+     */
+    static Level createLevel() throws Exception {
+        init();
+        Path file = Files.createTempFile("lemmini-bench", ".ini");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("name = Benchmark\n");
+            w.write("style = dirt\n");
+            w.write("width = " + LEVEL_WIDTH + "\n");
+            w.write("height = " + LEVEL_HEIGHT + "\n");
+            w.write("releaseRate = 99\n");
+            w.write("numLemmings = 1\n");
+            w.write("numToRescue = 0\n");
+            w.write("object_0 = 1, 64, 16, 0, 0\n");
+            w.write("object_1 = 7, " + (LEVEL_WIDTH - 128) + ", " + (FLOOR_Y - 48) + ", 0, 0\n");
+            int n = 0;
+            for (int y = 32; y < FLOOR_Y - 64; y += 48) {
+                for (int x = 0; x < LEVEL_WIDTH; x += 64) {
+                    w.write("terrain_" + n + " = " + (n % 50) + ", " + x + ", " + y + ", " + ((n % 7 == 0) ? 4 : 0) + "\n");
+                    n++;
+                }
+            }
+        }
+        return new Level(new FileResource(file), null, LemGame.getCurLevelPack());
+    }
+
+    /**
+     * Create a detached session for the given level and bind it to the calling thread.
+     * A solid floor with walls is added below the terrain pieces and no Lemmings are released.
+     */
+    static GameSession createSession(final Level level) throws Exception {
+        GameSession session = GameSession.create(true);
+        LemGame.bindSession(session);
+        session.initLevel(level);
+        session.gameMode = LemGame.GameMode.REPLAY_CHECK;
+        session.numLemmingsOut = session.numLemmingsMax;
+        paintFloor(session.stencil, session.fgImage);
+        return session;
+    }
+
+    /**
+     * Spawn Lemmings evenly spread over the floor, let them land and assign the given skill.
+     * WALKER and FALLER are kept as they are, FALLERs are spawned at the top of the level.
+     */
+    static void spawnLemmings(final GameSession session, final int count, final Lemming.Type skill) {
+        int y = (skill == Lemming.Type.FALLER) ? 0 : FLOOR_Y;
+        for (int i = 0; i < count; i++) {
+            int x = 16 + (int) ((long) i * (LEVEL_WIDTH - 32) / count);
+            session.lemmings.add(new Lemming(x, y, (i % 2 == 0) ? Lemming.Direction.RIGHT : Lemming.Direction.LEFT));
+        }
+        if (skill == Lemming.Type.FALLER) {
+            return;
+        }
+        for (int i = 0; i < LANDING_FRAMES; i++) {
+            session.update();
+        }
+        if (skill != Lemming.Type.WALKER) {
+            for (Lemming l : session.lemmings) {
+                l.setSkill(skill, false);
+            }
+        }
+    }
+
+    /**
+     * Paint the solid floor and the walls into stencil and foreground image.
+     */
+    private static void paintFloor(final Stencil stencil, final LemImage fgImage) {
+        for (int y = FLOOR_Y; y < LEVEL_HEIGHT; y++) {
+            for (int x = 0; x < LEVEL_WIDTH; x++) {
+                fillPixel(stencil, fgImage, x, y);
+            }
+        }
+        for (int x0 = WALL_DISTANCE / 2; x0 < LEVEL_WIDTH; x0 += WALL_DISTANCE) {
+            for (int y = FLOOR_Y - WALL_HEIGHT; y < FLOOR_Y; y++) {
+                for (int x = x0; x < x0 + WALL_WIDTH && x < LEVEL_WIDTH; x++) {
+                    fillPixel(stencil, fgImage, x, y);
+                }
+            }
+        }
+    }
+
+    private static void fillPixel(final Stencil stencil, final LemImage fgImage, final int x, final int y) {
+        stencil.setMask(x, y, Stencil.MSK_BRICK);
+        fgImage.setRGB(x, y, TERRAIN_COLOR);
+    }
+}
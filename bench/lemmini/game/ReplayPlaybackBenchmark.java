@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replay playback with a big crowd: skill assignments spread over the whole
+ * Lemming list and a nuke that goes through all Lemmings.
+ * @author Will James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayPlaybackBenchmark {
+
+    /** number of frames simulated per invocation */
+    private static final int TICKS = 200;
+    /** skill assignments stored in the replay per frame */
+    private static final int ASSIGNMENTS_PER_FRAME = 4;
+
+    @Param({"1000"})
+    public int lemmings;
+
+    /** "assign": skill assignments from the replay, "nuke": nuke from the replay */
+    @Param({"assign", "nuke"})
+    public String events;
+
+    private Level level;
+    private GameSession session;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void loadLevel() throws Exception {
+        level = BenchFixture.createLevel();
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void resetSession() throws Exception {
+        session = BenchFixture.createSession(level);
+        BenchFixture.spawnLemmings(session, lemmings, Lemming.Type.WALKER);
+        session.numClimbers = Integer.MAX_VALUE;
+        int start = session.replayFrame;
+        if (events.equals("nuke")) {
+            session.replay.addNukeEvent(start);
+        } else {
+            for (int f = 0; f < TICKS; f++) {
+                for (int i = 0; i < ASSIGNMENTS_PER_FRAME; i++) {
+                    // walk through the list with a stride, so the whole crowd is hit
+                    int idx = (int) (((long) f * ASSIGNMENTS_PER_FRAME + i) * 397 % lemmings);
+                    session.replay.addAssignSkillEvent(start + f, Lemming.Type.CLIMBER, idx);
+                }
+            }
+        }
+        session.replay.rewind();
+        session.replayMode = true;
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void unbind() {
+        LemGame.bindSession(null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public int playback() {
+        for (int i = 0; i < TICKS; i++) {
+            LemGame.update();
+        }
+        return session.lemmings.size();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulation ticks per second with a fixed number of Lemmings doing the same thing.
+ * <p>
+ * Every invocation starts from a freshly painted level, so bashers, diggers and bombers
+ * find the same terrain each time. Only the ticks are measured, not the setup.
+ * @author Will James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    /** number of frames simulated per invocation */
+    private static final int TICKS = 200;
+
+    @Param({"10", "100", "1000"})
+    public int lemmings;
+
+    /** type to assign: WALKER, FALLER or any skill (OHNOER is the bomber) */
+    @Param({"WALKER", "FALLER", "CLIMBER", "FLOATER", "OHNOER", "BLOCKER", "BUILDER", "BASHER", "MINER", "DIGGER"})
+    public String type;
+
+    private Level level;
+    private GameSession session;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void loadLevel() throws Exception {
+        level = BenchFixture.createLevel();
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void resetSession() throws Exception {
+        session = BenchFixture.createSession(level);
+        BenchFixture.spawnLemmings(session, lemmings, Lemming.Type.valueOf(type));
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void unbind() {
+        LemGame.bindSession(null);
+    }
+
+    /**
+     * Simulate {@value #TICKS} frames of the session bound to this thread.
+     */
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public int update() {
+        for (int i = 0; i < TICKS; i++) {
+            LemGame.update();
+        }
+        return session.lemmings.size();
+    }
+}
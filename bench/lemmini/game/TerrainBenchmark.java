@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import lemmini.graphics.LemImage;
+
+/**
+ * Terrain operations used by the simulation and the level setup: mask erasing and
+ * painting, terrain painting, stencil lookups and minimap creation.
+ * @author Will James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TerrainBenchmark {
+
+    /** number of precomputed positions, a power of two */
+    private static final int NUM_POSITIONS = 4096;
+    /** scale of the minimap as used by the game */
+    private static final double MINIMAP_SCALE_X = 1.0 / 16.0;
+    private static final double MINIMAP_SCALE_Y = 1.0 / 8.0;
+
+    private Level level;
+    private GameSession session;
+    private Mask bashMask;
+    private Mask stepMask;
+    private int[] posX;
+    private int[] posY;
+    private int posIdx;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setup() throws Exception {
+        level = BenchFixture.createLevel();
+        session = BenchFixture.createSession(level);
+        bashMask = Lemming.getResource(Lemming.Type.BASHER).getMask(Lemming.Direction.RIGHT);
+        stepMask = Lemming.getResource(Lemming.Type.BUILDER).getMask(Lemming.Direction.RIGHT);
+        // fixed seed: every run erases and paints at the same places
+        Random rnd = new Random(42);
+        posX = new int[NUM_POSITIONS];
+        posY = new int[NUM_POSITIONS];
+        for (int i = 0; i < NUM_POSITIONS; i++) {
+            posX[i] = rnd.nextInt(BenchFixture.LEVEL_WIDTH);
+            posY[i] = rnd.nextInt(BenchFixture.LEVEL_HEIGHT);
+        }
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void unbind() {
+        LemGame.bindSession(null);
+    }
+
+    private int nextPos() {
+        posIdx = (posIdx + 1) & (NUM_POSITIONS - 1);
+        return posIdx;
+    }
+
+    /**
+     * One basher step at a pseudo random position.
+     */
+    @Benchmark
+    public void eraseMask() {
+        int i = nextPos();
+        bashMask.eraseMask(posX[i], posY[i], 0, Stencil.MSK_BRICK, Stencil.MSK_STEEL);
+    }
+
+    /**
+     * One builder step at a pseudo random position.
+     */
+    @Benchmark
+    public void paintStep() {
+        int i = nextPos();
+        stepMask.paintStep(posX[i], posY[i], 0);
+    }
+
+    /**
+     * Paint all terrain pieces of the level.
+     */
+    @Benchmark
+    public void paintTerrain() throws Exception {
+        level.paintTerrain();
+    }
+
+    /**
+     * Read the stencil at all precomputed positions.
+     */
+    @Benchmark
+    public void getMask(final Blackhole bh) {
+        Stencil stencil = session.stencil;
+        for (int i = 0; i < NUM_POSITIONS; i++) {
+            bh.consume(stencil.getMask(posX[i], posY[i]));
+        }
+    }
+
+    /**
+     * Create the tinted minimap of the whole level like Minimap.init().
+     */
+    @Benchmark
+    public LemImage createMinimap() {
+        return level.createMinimap(session.fgImage, MINIMAP_SCALE_X, MINIMAP_SCALE_Y, false, true, false);
+    }
+}
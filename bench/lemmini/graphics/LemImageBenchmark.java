@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.graphics;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Pixel operations of LemImage. INT_ARGB images use the int array backing the
+ * image, 4BYTE_ABGR images go through the BufferedImage and its ColorModel, which is
+ * the path all images took before.
+ * <p>
+ * The row operations use the Vector API if jdk.incubator.vector is in the module graph
+ * (ant bench adds it). Pass -Dlemmini.noVector=true to compare with the scalar code.
+ * @author Will James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LemImageBenchmark {
+
+    private static final int WIDTH = 1024;
+    private static final int HEIGHT = 256;
+    /** number of precomputed positions and colors, a power of two */
+    private static final int NUM_PIXELS = 4096;
+
+    @Param({"INT_ARGB", "4BYTE_ABGR"})
+    public String imageType;
+
+    private LemImage image;
+    private int[] posX;
+    private int[] posY;
+    /** colors with random (mostly translucent) alpha, so addRGB has to blend */
+    private int[] colors;
+    /** one row of terrain-like colors: fully opaque or fully transparent */
+    private int[] row;
+
+    @Setup
+    public void setup() {
+        int type = imageType.equals("INT_ARGB") ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_4BYTE_ABGR;
+        image = new LemImage(new BufferedImage(WIDTH, HEIGHT, type));
+        // fixed seed: every run uses the same pixels
+        Random rnd = new Random(42);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, rnd.nextInt());
+            }
+        }
+        posX = new int[NUM_PIXELS];
+        posY = new int[NUM_PIXELS];
+        colors = new int[NUM_PIXELS];
+        for (int i = 0; i < NUM_PIXELS; i++) {
+            posX[i] = rnd.nextInt(WIDTH);
+            posY[i] = rnd.nextInt(HEIGHT);
+            colors[i] = rnd.nextInt();
+        }
+        row = new int[WIDTH];
+        for (int x = 0; x < WIDTH; x++) {
+            row[x] = rnd.nextBoolean() ? (rnd.nextInt() | 0xff000000) : 0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_PIXELS)
+    public void getRGB(final Blackhole bh) {
+        for (int i = 0; i < NUM_PIXELS; i++) {
+            bh.consume(image.getRGB(posX[i], posY[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_PIXELS)
+    public void setRGB() {
+        for (int i = 0; i < NUM_PIXELS; i++) {
+            image.setRGB(posX[i], posY[i], colors[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_PIXELS)
+    public void addRGB() {
+        for (int i = 0; i < NUM_PIXELS; i++) {
+            image.addRGB(posX[i], posY[i], colors[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_PIXELS)
+    public void addRGBBehind() {
+        for (int i = 0; i < NUM_PIXELS; i++) {
+            image.addRGBBehind(posX[i], posY[i], colors[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_PIXELS)
+    public void removeAlpha() {
+        for (int i = 0; i < NUM_PIXELS; i++) {
+            image.removeAlpha(posX[i], posY[i], colors[i] >>> 24);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_PIXELS)
+    public void isPixelOpaque(final Blackhole bh) {
+        for (int i = 0; i < NUM_PIXELS; i++) {
+            bh.consume(image.isPixelOpaque(posX[i], posY[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WIDTH * HEIGHT)
+    public void addRGBRow() {
+        for (int y = 0; y < HEIGHT; y++) {
+            image.addRGB(0, y, WIDTH, row, 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WIDTH * HEIGHT)
+    public void removeAlphaRow() {
+        for (int y = 0; y < HEIGHT; y++) {
+            image.removeAlpha(0, y, WIDTH, row, 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WIDTH * HEIGHT)
+    public void applyTint() {
+        image.applyTint(0x80ff0000);
+    }
+}
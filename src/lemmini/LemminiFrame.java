@@ -66,6 +66,7 @@ import org.apache.commons.lang3.SystemUtils;
 
 import keyrepeatfix.RepeatingReleasedEventsFixer;
 import lemmini.game.Core;
+import lemmini.game.HeadlessReplayCheck;
 import lemmini.game.LemGame;
 import lemmini.game.Icons;
 import lemmini.game.LemCursor;
@@ -671,6 +672,12 @@ public class LemminiFrame extends JFrame {
         boolean isLevel = (LemGame.getGameState() == LemGame.State.LEVEL);
         boolean isLevelEnd = (LemGame.getGameState() == LemGame.State.LEVEL_END);
         boolean isPostview = (LemGame.getGameState() == LemGame.State.POSTVIEW);
+
+        // any other key stops max speed mode, and still does what it does
+        if (LemGame.isMaxSpeed() && action != LemHotkeys.HotkeyAction.HotkeyMaxSpeedForward
+                && code != KeyEvent.VK_SHIFT && code != KeyEvent.VK_CONTROL && code != KeyEvent.VK_ALT) {
+            LemGame.setMaxSpeed(false);
+        }
         
         // Hard-coded keys
         // --- In-game modifier handling --- //
@@ -852,6 +859,12 @@ public class LemminiFrame extends JFrame {
                 case HotkeyRestart:
                     LemGame.requestRestartLevel(true, false);
                     break;
+                case HotkeyRewind:
+                    LemGame.requestRewind(Core.programProps.getInt("rewindSeconds", LemGame.DEFAULT_REWIND_SECONDS));
+                    break;
+                case HotkeySkipForward:
+                    LemGame.requestSkipForward(Core.programProps.getInt("rewindSeconds", LemGame.DEFAULT_REWIND_SECONDS));
+                    break;
                 case HotkeyNuke:
                     LemGame.handleIconButton(Icons.IconType.NUKE);
                     break;
@@ -902,6 +915,9 @@ public class LemminiFrame extends JFrame {
                     LemGame.setFastForward(!LemGame.isFastForward());
                     LemGame.pressIcon(Icons.IconType.FFWD);
                     break;
+                case HotkeyMaxSpeedForward:
+                    LemGame.setMaxSpeed(!LemGame.isMaxSpeed());
+                    break;
                 case HotkeySelectLeft:
                     if (LemGame.isOptionEnabled(LemGame.Option.ADVANCED_SELECT)) {
                         if (LemCursor.getType().isWalkerOnly()) {
@@ -992,6 +1008,12 @@ public class LemminiFrame extends JFrame {
                 case HotkeyDebugAddLemAtCursor:
                 	addLemmingAtCursor();
                     break;
+                case HotkeyDebugToggleProfiler:
+                    LemGame.setProfiling(LemGame.getProfiler() == null);
+                    break;
+                case HotkeyDebugExportProfile:
+                    LemGame.requestProfileExport();
+                    break;
                 default:
                 	break;
             }
@@ -1116,6 +1138,13 @@ public class LemminiFrame extends JFrame {
      * The main function. Entry point of the program.
      */
     public static void main(String[] args) throws IOException {
+        // headless replay check: --verify-replays <dir> [--format csv|json] [--output <file>]
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("--verify-replays")) {
+                System.exit(verifyReplays(args));
+            }
+        }
+
     	// get the current commit ID
 	    try {
 	        ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "getcommitID.bat");
@@ -1221,6 +1250,46 @@ public class LemminiFrame extends JFrame {
         }
     }
     
+    /**
+     * Parse the arguments of the headless replay check and run it.
+     * @return exit code
+     */
+    private static int verifyReplays(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        Path replayFolder = null;
+        Path output = null;
+        boolean json = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i].toLowerCase(Locale.ROOT)) {
+                case "--verify-replays":
+                    if (++i < args.length) {
+                        replayFolder = Paths.get(args[i]);
+                    }
+                    break;
+                case "--format":
+                    if (++i < args.length) {
+                        json = args[i].equalsIgnoreCase("json");
+                    }
+                    break;
+                case "--output":
+                    if (++i < args.length) {
+                        output = Paths.get(args[i]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (replayFolder == null) {
+            System.err.println("usage: --verify-replays <dir> [--format csv|json] [--output <file>]");
+            return HeadlessReplayCheck.EXIT_ERROR;
+        }
+
+        String gameFolder = URLDecoder.decode(LemminiFrame.class.getProtectionDomain().getCodeSource().getLocation().getFile(), "UTF-8");
+        return HeadlessReplayCheck.run(gameFolder, replayFolder, json, output);
+    }
+
     private void goToNextAvailableLevel() {
         if (Fader.getState() == Fader.State.OFF) {
             LevelPack pack = LemGame.getCurLevelPack();
@@ -1493,10 +1562,11 @@ public class LemminiFrame extends JFrame {
                 // Draw the full level image
                 g.setBackground(level.getBgColor());
                 g.clearRect(0, 0, fullWidth, fullHeight);
-                level.drawBackground(g, fullWidth, fullHeight, 0, 0);
-                level.drawBehindObjects(g, fullWidth, fullHeight, 0, 0);
+                Level.ObjectImages objectImages = level.captureObjectImages();
+                level.drawBackground(g, fullWidth, fullHeight, 0, 0, objectImages);
+                level.drawBehindObjects(g, fullWidth, fullHeight, 0, 0, objectImages);
                 g.drawImage(fgImage, 0, 0, fullWidth, fullHeight, 0, 0, fullWidth, fullHeight);
-                level.drawInFrontObjects(g, fullWidth, fullHeight, 0, 0);
+                level.drawInFrontObjects(g, fullWidth, fullHeight, 0, 0, objectImages);
                 
                 // Add lemmings and explosions
                 g.setClip(0, 0, fullWidth, fullHeight);
@@ -23,6 +23,7 @@ import java.awt.FontMetrics;
 import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.HeadlessException;
 import java.awt.Image;
 import java.awt.Rectangle;
@@ -33,15 +34,15 @@ import java.awt.Transparency;
 import java.awt.event.InputEvent;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
@@ -53,6 +54,7 @@ import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import lemmini.game.Core;
+import lemmini.game.FrameSnapshot;
 import lemmini.game.LemGame;
 import lemmini.game.LemGame.Option;
 import lemmini.game.Icons;
@@ -193,6 +195,12 @@ public class LemminiPanel extends JPanel implements Runnable {
     private int drawBrushSize;
     private static final int MIN_DRAW_BRUSH_SIZE = 1;
     private static final int MAX_DRAW_BRUSH_SIZE = 10;
+    /** maximum number of ticks run without drawing a frame to catch up */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    /** render rate used while scrolling if the refresh rate of the display is unknown */
+    private static final int DEFAULT_RENDER_RATE = 60;
+    /** camera jumps larger than this (in pixels per tick) aren't interpolated */
+    private static final int MAX_INTERPOLATED_SCROLL = 64;
 
     /** graphics buffer for information string display */
     private GraphicsBuffer outStrBuffer;
@@ -200,7 +208,18 @@ public class LemminiPanel extends JPanel implements Runnable {
     private GraphicsBuffer offBuffer;
     /** monitoring object used for synchronized painting */
     private final Object paintSemaphore = new Object();
-    private boolean drawNextFrame;
+    /** monitor of nextFrame */
+    private final Object frameMonitor = new Object();
+    /** frame published by the game thread and not drawn yet */
+    private FrameSnapshot nextFrame;
+    /** System.nanoTime() the tick of nextFrame was due */
+    private long nextFrameTime;
+    /** graphics configuration renderPeriod was determined for */
+    private GraphicsConfiguration renderRateConfig;
+    /** time between two frames drawn while scrolling in nanoseconds */
+    private long renderPeriod;
+    /** copy of the offscreen image in (usually accelerated) video memory, only used by paint() */
+    private VolatileImage presentImage;
     private int unmaximizedWidth = 0;
     private int unmaximizedHeight = 0;
     /** pause/resume rendering */
@@ -345,6 +364,9 @@ public class LemminiPanel extends JPanel implements Runnable {
         //boolean middleMousePressed = BooleanUtils.toBoolean(modifiers & InputEvent.BUTTON2_DOWN_MASK);
         boolean rightMousePressed = BooleanUtils.toBoolean(modifiers & InputEvent.BUTTON3_DOWN_MASK);
 
+        // a click stops max speed mode
+        LemGame.setMaxSpeed(false);
+
         if (Fader.getState() != Fader.State.OFF
                 && LemGame.getGameState() != LemGame.State.LEVEL) {
             return;
@@ -812,18 +834,65 @@ public class LemminiPanel extends JPanel implements Runnable {
     @Override
     public void paint(final Graphics g) {
         Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                Core.isBilinear()
+                        ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                        : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        if (paintVolatile(g2)) {
+            return;
+        }
+        // software fallback: scale the offscreen image while holding the lock
         synchronized (paintSemaphore) {
             if (offBuffer != null) {
-                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                        Core.isBilinear()
-                                ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
-                                : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
                 g2.drawImage(offBuffer.getImage().getImage(),
                         0, 0, Core.getScaledDrawWidth(), Core.getScaledDrawHeight(), null);
             }
         }
     }
 
+    /**
+     * Paint the offscreen image via a VolatileImage. Only the unscaled copy into the
+     * VolatileImage is done while holding the lock, the scaling to the window is done
+     * afterwards, usually by the graphics hardware.
+     * @return false if the VolatileImage can't be used, e.g. because its contents were lost
+     */
+    private boolean paintVolatile(final Graphics2D g2) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            VolatileImage img = presentImage;
+            synchronized (paintSemaphore) {
+                if (offBuffer == null) {
+                    return true;
+                }
+                LemImage frame = offBuffer.getImage();
+                int width = frame.getWidth();
+                int height = frame.getHeight();
+                if (img == null || img.getWidth() != width || img.getHeight() != height
+                        || img.validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    if (img != null) {
+                        img.flush();
+                    }
+                    // null if the panel is not displayable
+                    img = createVolatileImage(width, height);
+                    presentImage = img;
+                    if (img == null) {
+                        return false;
+                    }
+                }
+                Graphics2D imgGfx = img.createGraphics();
+                try {
+                    imgGfx.drawImage(frame.getImage(), 0, 0, null);
+                } finally {
+                    imgGfx.dispose();
+                }
+            }
+            g2.drawImage(img, 0, 0, Core.getScaledDrawWidth(), Core.getScaledDrawHeight(), null);
+            if (!img.contentsLost()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void update(final Graphics g) {
         paint(g);
@@ -870,8 +939,11 @@ public class LemminiPanel extends JPanel implements Runnable {
 
     /**
      * Redraw the offscreen image, then flip buffers and force repaint.
+     * @param xOfs x position of the camera, between the ones of the last two frames while scrolling
+     * @param yOfs y position of the camera
+     * @param newFrame true if the frame is drawn for the first time
      */
-    private void redraw() {
+    private void redraw(final FrameSnapshot frame, final int xOfs, final int yOfs, final boolean newFrame) {
         if (offBuffer == null) {
             return;
         }
@@ -888,19 +960,21 @@ public class LemminiPanel extends JPanel implements Runnable {
                     break;
                 case LEVEL:
                 case LEVEL_END:
-                    LemImage fgImage = LemGame.getFgImage();
+                    LemImage fgImage = frame.getFgImage();
                     if (fgImage != null) {
-                        // store local copy of offsets to avoid sync problems with AWT threads
-                        int xOfsTemp = LemGame.getXPos();
-                        int minimapXOfsTemp = Minimap.getXPos();
-                        int yOfsTemp = LemGame.getYPos();
+                        // camera of the frame, scrolling by dragging changes the game's offsets at any time
+                        int xOfsTemp = xOfs;
+                        int minimapXOfsTemp = frame.getMinimapXPos();
+                        int yOfsTemp = yOfs;
 
                         int width = Core.getDrawWidth();
                         int height = Core.getDrawHeight();
                         int levelHeight = Math.min(LemminiFrame.LEVEL_HEIGHT, height);
 
-                        Level level = LemGame.getLevel();
+                        // level of the frame, it may just have been replaced by the next one
+                        Level level = frame.getLevel();
                         if (level != null) {
+                            Level.ObjectImages objectImages = frame.getObjectImages();
 
                             // clear screen
                             offGfx.setClip(0, 0, width, levelHeight);
@@ -908,16 +982,16 @@ public class LemminiPanel extends JPanel implements Runnable {
                             offGfx.clearRect(0, 0, width, levelHeight);
 
                             // draw background
-                            LemGame.getLevel().drawBackground(offGfx, width, levelHeight, xOfsTemp, yOfsTemp);
+                            level.drawBackground(offGfx, width, levelHeight, xOfsTemp, yOfsTemp, objectImages);
 
                             // draw "behind" objects
-                            LemGame.getLevel().drawBehindObjects(offGfx, width, height, xOfsTemp, yOfsTemp);
+                            level.drawBehindObjects(offGfx, width, height, xOfsTemp, yOfsTemp, objectImages);
 
                             // draw foreground
                             offGfx.drawImage(fgImage, 0, 0, width, levelHeight, xOfsTemp, yOfsTemp, xOfsTemp + width, yOfsTemp + levelHeight);
 
                             // draw "in front" objects
-                            LemGame.getLevel().drawInFrontObjects(offGfx, width, height, xOfsTemp, yOfsTemp);
+                            level.drawInFrontObjects(offGfx, width, height, xOfsTemp, yOfsTemp, objectImages);
                         }
                         // clear parts of the screen for menu etc.
                         offGfx.setClip(0, LemminiFrame.LEVEL_HEIGHT, width, height - LemminiFrame.LEVEL_HEIGHT);
@@ -937,6 +1011,10 @@ public class LemminiPanel extends JPanel implements Runnable {
                             countBarY += 3;
                         }
 
+                        if (newFrame) {
+                            // once per tick, however often the frame is drawn
+                            Icons.Animate();
+                        }
                         LemGame.drawIconsAndCounters(offGfx, iconBarX, iconBarY, countBarX, countBarY);
 
                         // Draw iconbar filler?
@@ -968,21 +1046,20 @@ public class LemminiPanel extends JPanel implements Runnable {
 
                         // draw minimap
                         if (LemGame.isOptionEnabled(LemGame.Option.ENHANCED_ICONBAR)) {
-                            drawMiniMapLarge(offGfx, width, height, minimapXOfsTemp, yOfsTemp);
+                            drawMiniMapLarge(offGfx, frame, width, height, minimapXOfsTemp, xOfsTemp, yOfsTemp);
                         } else {
-                            drawMiniMap(offGfx, width, height, minimapXOfsTemp, yOfsTemp);
+                            drawMiniMap(offGfx, frame, width, height, minimapXOfsTemp, xOfsTemp, yOfsTemp);
                         }
 
                         // draw lemmings
                         offGfx.setClip(0, 0, width, levelHeight);
-                        LemGame.drawLemmings(offGfx, LemGame.getXPos(), LemGame.getYPos(), false);
-                        Lemming lemmUnderCursor = LemGame.lemmUnderCursor(LemCursor.getType());
+                        frame.drawLemmings(offGfx, xOfsTemp, yOfsTemp, false);
                         offGfx.setClip(0, 0, width, levelHeight);
                         // draw explosions
-                        LemGame.drawExplosions(offGfx, width, LemminiFrame.LEVEL_HEIGHT, xOfsTemp, yOfsTemp);
+                        frame.drawExplosions(offGfx, width, LemminiFrame.LEVEL_HEIGHT, xOfsTemp, yOfsTemp);
                         offGfx.setClip(0, 0, width, height);
                         //draw Visual SFX
-                        LemGame.drawVisualSfx(offGfx);
+                        frame.drawVisualSfx(offGfx, xOfsTemp, yOfsTemp);
 
 
                         // draw info string
@@ -999,22 +1076,10 @@ public class LemminiPanel extends JPanel implements Runnable {
                         }
                         int yOffset = LemminiFrame.LEVEL_HEIGHT + statusBarGap;
                         
-                        // always show lemming info
-                        String lemmingInfo;
-                        if (lemmUnderCursor != null) {
-                        	if (Core.player.isDebugMode()) {
-                        		// show frame index and position of lem when in debug mode
-                        		lemmingInfo = "F:" + lemmUnderCursor.getFrameIndex() + " X:" + lemmUnderCursor.footX() + " Y:" + lemmUnderCursor.footY();
-                        	} else {
-                        		lemmingInfo = lemmUnderCursor.getLemmingInfo();
-                        	}
-                            // display also the total number of lemmings under the cursor
-                            int num = LemGame.getNumLemmsUnderCursor();
-                            if (num > 1) {
-                            	lemmingInfo += StringUtils.SPACE + num;
-                            }
-                        } else {
-                        	lemmingInfo = StringUtils.EMPTY;
+                        // always show lemming info, or the speed reached in max speed mode
+                        String lemmingInfo = frame.getLemmingInfo();
+                        if (frame.getMaxSpeedFactor() > 0) {
+                            lemmingInfo = "x" + frame.getMaxSpeedFactor();
                         }
                         
                         // draw the lemming info status
@@ -1040,30 +1105,30 @@ public class LemminiPanel extends JPanel implements Runnable {
                         } else {
                             //otherwise show the standard info set
                             String strHome;
-                            if (!LemGame.isOptionEnabled(LemGame.Option.USE_PERCENTAGES) || LemGame.getNumLemmingsMax() > 100) {
-                                strHome = Integer.toString(LemGame.getNumExited());
+                            if (!LemGame.isOptionEnabled(LemGame.Option.USE_PERCENTAGES) || frame.getNumLemmingsMax() > 100) {
+                                strHome = Integer.toString(frame.getNumExited());
                             } else {
-                                int max = LemGame.getNumLemmingsMax();
-                                int home = LemGame.getNumExited() * 100 / max;
+                                int max = frame.getNumLemmingsMax();
+                                int home = frame.getNumExited() * 100 / max;
                                 strHome = String.format("%02d%%", home);
                             }
 
                             // standard text-based status display
                             if (!LemGame.isOptionEnabled(LemGame.Option.ENHANCED_STATUS)) {
                                 String status;
-                                status = String.format("%-15s OUT %-4d IN %-4s TIME %s", lemmingInfo, LemGame.getNumLemmings(), strHome, LemGame.getTimeString());
+                                status = String.format("%-15s OUT %-4d IN %-4s TIME %s", lemmingInfo, frame.getNumLemmings(), strHome, frame.getTimeString());
                                 //use the standard original "text-based" status bar
                                 LemFont.strImage(outStrGfx, status);
                                 offGfx.drawImage(outStrImg, menuOffsetX + 4, yOffset);
                                 
                             // enhanced icon-based status display
                             } else {
-                                int hatchLems = LemGame.getNumLemmingsUnreleased(); // number of lems still in hatch
-                                int maxLevelLemm = LemGame.getNumLemmingsMax(); // maximum number of lems provided from the start of the level
-                                int active = LemGame.getNumLemmings(); // number of lems active in the level
-                                int saveRequirement = LemGame.getNumToRescue(); // the level's save requirement
-                                int exited = LemGame.getNumExited(); // number of lems that have exited
-                                int maxPossibleLemm = LemGame.getNumLemmingsPossibleMax(); // maximum number of lems currently possible to save (including Blockers)
+                                int hatchLems = frame.getNumLemmingsUnreleased(); // number of lems still in hatch
+                                int maxLevelLemm = frame.getNumLemmingsMax(); // maximum number of lems provided from the start of the level
+                                int active = frame.getNumLemmings(); // number of lems active in the level
+                                int saveRequirement = frame.getNumToRescue(); // the level's save requirement
+                                int exited = frame.getNumExited(); // number of lems that have exited
+                                int maxPossibleLemm = frame.getNumLemmingsPossibleMax(); // maximum number of lems currently possible to save (including Blockers)
                                 // show save requirement or maximum lems as the home sub-value depending on "use percentages" option
                                 int homeSubValue = LemGame.isOptionEnabled(LemGame.Option.USE_PERCENTAGES) ? maxLevelLemm : saveRequirement;
                             	
@@ -1136,10 +1201,10 @@ public class LemminiPanel extends JPanel implements Runnable {
                                 int xTimeW = lemmIconTime.getWidth() + xSpace;
                                 
                                 LemFont.LemmColor timeColor;
-                                int time = LemGame.getTime();
-                                String timeString = LemGame.getTimeString();
+                                int time = frame.getTime();
+                                String timeString = frame.getTimeString();
 
-                                if (LemGame.isTimed()) {
+                                if (frame.isTimed()) {
                                 	timeColor = LemFont.LemmColor.GREEN; // time limit
                                 	
                                 	if (time <= 59)
@@ -1216,28 +1281,37 @@ public class LemminiPanel extends JPanel implements Runnable {
                         		int rx = LemCursor.getX() - ruler.getWidth() / 2;
                         		int ry = LemCursor.getY() - ruler.getHeight() / 2;
                         		int rWidth = ruler.getWidth();
-                        		int fallDist = LemGame.getLevel().getMaxFallDistance();
+                        		int fallDist = level.getMaxFallDistance();
                         		int rHeight = fallDist <= 0 ? ruler.getHeight() : fallDist;
                         		offGfx.drawImage(ruler, rx, ry, rWidth, rHeight);
                         	}
                         }
 
+                        // update profiler overlay
+                        String[] lines = frame.getProfilerSummary();
+                        if (lines != null) {
+                            for (int i = 0; i < lines.length; i++) {
+                                LemImage line = LemFont.strImage(lines[i], LemFont.LemmColor.TURQUOISE);
+                                offGfx.drawImage(line, 4, 4 + i * line.getHeight() / 2, 0.5);
+                            }
+                        }
+
                         // replay icon
-                        LemImage replayImage = LemGame.getReplayImage();
+                        LemImage replayImage = frame.getReplayImage();
                         if (replayImage != null) {
                             offGfx.drawImage(replayImage, width - 2 * replayImage.getWidth(), replayImage.getHeight());
                         }
 
                         // draw cursor
-                        if (lemmUnderCursor != null) {
+                        if (frame.isLemmUnderCursor()) {
                             if (LemGame.isOptionEnabled(LemGame.Option.CLASSIC_CURSOR)) {
                                 if (mouseHasEntered && !LemCursor.isBox()) {
                                     LemCursor.setBox(true);
                                     setCursor(LemCursor.getCursor());
                                 }
                             } else {
-                                int lx = lemmUnderCursor.footX() - xOfsTemp; //NOTE: footX() was .midX()
-                                int ly = lemmUnderCursor.midY() - yOfsTemp;
+                                int lx = frame.getLemmUnderCursorX() - xOfsTemp; //NOTE: footX() was .midX()
+                                int ly = frame.getLemmUnderCursorY() - yOfsTemp;
                                 LemImage cursorImg = LemCursor.getBoxImage();
                                 lx -= cursorImg.getWidth() / 2;
                                 ly -= cursorImg.getHeight() / 2;
@@ -1263,15 +1337,14 @@ public class LemminiPanel extends JPanel implements Runnable {
         }
     }
 
-    private void drawMiniMap(GraphicsContext offGfx, final int width, final int height, final int minimapXOfsTemp, final int yOfsTemp) {
+    private void drawMiniMap(GraphicsContext offGfx, final FrameSnapshot frame, final int width, final int height, final int minimapXOfsTemp, final int xOfsTemp, final int yOfsTemp) {
             final int BORDER_WIDTH = 4;
         // draw minimap
         offGfx.drawImage(MiscGfx.getMinimapImage(), menuOffsetX + getSmallX() - BORDER_WIDTH, getSmallY() - BORDER_WIDTH);
         offGfx.setClip(menuOffsetX + getSmallX(), getSmallY(), Minimap.getVisibleWidth(), Minimap.getVisibleHeight());
-        Minimap.draw(offGfx, menuOffsetX + getSmallX(), getSmallY());
-        LemGame.drawMinimapLemmings(offGfx, menuOffsetX + getSmallX(), getSmallY());
+        frame.drawMinimap(offGfx, menuOffsetX + getSmallX(), getSmallY(), yOfsTemp);
         offGfx.setClip(0, 0, width, height);
-        Minimap.drawFrame(offGfx, menuOffsetX + getSmallX(), getSmallY());
+        Minimap.drawFrame(offGfx, menuOffsetX + getSmallX(), getSmallY(), minimapXOfsTemp, xOfsTemp);
         // draw minimap arrows
         if (minimapXOfsTemp > 0) {
             LemImage leftArrow = MiscGfx.getImage(MiscGfx.Index.MINIMAP_ARROW_LEFT);
@@ -1299,19 +1372,17 @@ public class LemminiPanel extends JPanel implements Runnable {
         }
     }
 
-    private void drawMiniMapLarge(GraphicsContext offGfx, final int width, final int height, final int minimapXOfsTemp, final int yOfsTemp) {
+    private void drawMiniMapLarge(GraphicsContext offGfx, final FrameSnapshot frame, final int width, final int height, final int minimapXOfsTemp, final int xOfsTemp, final int yOfsTemp) {
          final int BORDER_WIDTH = 7;
         // draw minimap
         //draw border around minimap
         offGfx.drawImage(MiscGfx.getMinimapLargeImage(), menuOffsetX + getSmallX() - BORDER_WIDTH, getSmallY() - BORDER_WIDTH);
         offGfx.setClip(menuOffsetX + getSmallX(), getSmallY(), Minimap.getVisibleWidth(), Minimap.getVisibleHeight());
-        //draw contents of minimap
-        Minimap.draw(offGfx, menuOffsetX + getSmallX(), getSmallY());
-        //draw lemmings onto minimap
-        LemGame.drawMinimapLemmings(offGfx, menuOffsetX + getSmallX(), getSmallY());
+        //draw contents of minimap and lemmings onto minimap
+        frame.drawMinimap(offGfx, menuOffsetX + getSmallX(), getSmallY(), yOfsTemp);
         offGfx.setClip(0, 0, width, height);
         //draw the yellow frame around what's visible
-        Minimap.drawFrame(offGfx, menuOffsetX + getSmallX(), getSmallY());
+        Minimap.drawFrame(offGfx, menuOffsetX + getSmallX(), getSmallY(), minimapXOfsTemp, xOfsTemp);
 
         //if the minimap goes off screen??
         // draw minimap arrows
@@ -1451,8 +1522,14 @@ public class LemminiPanel extends JPanel implements Runnable {
                 break;
         }
 
-        // fader
-        LemGame.fade();
+        // fader - levels are changed while the screen is black, which must not happen during a redraw
+        if (Fader.getState() == Fader.State.BLACK) {
+            synchronized (paintSemaphore) {
+                LemGame.fade();
+            }
+        } else {
+            LemGame.fade();
+        }
     }
 
     /* (non-Javadoc)
@@ -1461,55 +1538,179 @@ public class LemminiPanel extends JPanel implements Runnable {
     @Override
     public void run() {
         Thread.currentThread().setPriority(Thread.NORM_PRIORITY + 1);
-        final LemminiPanel thisPanel = this;
-        ScheduledExecutorService repaintScheduler = Executors.newSingleThreadScheduledExecutor();
-        Runnable repaintTask = thisPanel::drawNextFrame;
+
+        Thread renderThread = new Thread(this::renderLoop, "Lemmini render");
+        renderThread.setDaemon(true);
+        renderThread.setPriority(Thread.NORM_PRIORITY + 1);
+        renderThread.start();
 
         try {
-            drawNextFrame = false;
-            repaintScheduler.scheduleAtFixedRate(
-                    repaintTask, 0, LemGame.NANOSEC_PER_FRAME, TimeUnit.NANOSECONDS);
+            boolean dropFrames = Core.programProps.getBoolean("dropFramesUnderLoad", true);
+            long nextTick = System.nanoTime();
             while (true) {
-                synchronized (this) {
-                    while (!drawNextFrame) {
-                        try {
-                            wait();
-                        } catch (InterruptedException ex) {
-                        }
+                if (LemGame.isMaxSpeed()) {
+                    // runs for a while by itself, so there is nothing to catch up afterwards
+                    maxSpeedTick();
+                    nextTick = System.nanoTime();
+                    if (doRender) {
+                        publishFrame(LemGame.captureFrame(), nextTick);
                     }
+                    continue;
+                }
+                long delay = nextTick - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                    continue;
                 }
 
-                if (drawNextFrame) {
-                    drawNextFrame = false;
-                    // time passed -> redraw necessary
-                    LemGame.State gameState = LemGame.getGameState();
-                    // special handling for fast forward or super lemming mode only during real gameplay
-                    if (gameState == LemGame.State.LEVEL) {
-                        // in fast forward or super lemming modes, update the game mechanics
-                        // multiple times per (drawn) frame
-                        if (LemGame.isFastForward()) {
-                        	int multiplier;
-                        	if (LemGame.isTurbo()) {
-                        	    multiplier = LemGame.TURBO_MULTI;
-                        	} else if (LemGame.isOptionEnabled(LemGame.Option.FASTER_FAST_FORWARD)) {
-                        	    multiplier = LemGame.FASTER_FAST_FWD_MULTI;
-                        	} else {
-                        	    multiplier = LemGame.FAST_FWD_MULTI;
-                        	}
-                            for (int f = 1; f < multiplier; f++) {
-                                LemGame.update();
-                            }
-                        } else if (LemGame.isSuperLemming()) {
-                            for (int f = 1; f < LemGame.SUPERLEMM_MULTI; f++) {
-                                LemGame.update();
-                            }
+                // time passed -> next tick. If the game fell behind, catch up with
+                // the ticks it missed and only draw the last one.
+                int ticks = 0;
+                do {
+                    tick();
+                    nextTick += LemGame.NANOSEC_PER_FRAME;
+                    ticks++;
+                } while (dropFrames && ticks < MAX_CATCH_UP_TICKS && System.nanoTime() >= nextTick);
+                long tickTime = nextTick - LemGame.NANOSEC_PER_FRAME;
+                if (System.nanoTime() >= nextTick) {
+                    // too far behind: slow down the game instead
+                    nextTick = System.nanoTime();
+                }
+                if (doRender) {
+                    publishFrame(LemGame.captureFrame(), tickTime);
+                }
+            }
+        } catch (Throwable ex) {
+            ToolBox.showException(ex);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Advance the game by one tick.
+     */
+    private void tick() {
+        LemGame.State gameState = LemGame.getGameState();
+        // special handling for fast forward or super lemming mode only during real gameplay
+        if (gameState == LemGame.State.LEVEL) {
+            // in fast forward or super lemming modes, update the game mechanics
+            // multiple times per (drawn) frame
+            if (LemGame.isFastForward()) {
+                int multiplier;
+                if (LemGame.isTurbo()) {
+                    multiplier = LemGame.TURBO_MULTI;
+                } else if (LemGame.isOptionEnabled(LemGame.Option.FASTER_FAST_FORWARD)) {
+                    multiplier = LemGame.FASTER_FAST_FWD_MULTI;
+                } else {
+                    multiplier = LemGame.FAST_FWD_MULTI;
+                }
+                for (int f = 1; f < multiplier; f++) {
+                    LemGame.update();
+                }
+            } else if (LemGame.isSuperLemming()) {
+                for (int f = 1; f < LemGame.SUPERLEMM_MULTI; f++) {
+                    LemGame.update();
+                }
+            }
+        }
+        if (doRender) {
+            updateFrame();
+        }
+    }
+
+    /**
+     * Update the game as often as possible until the next frame is due to be drawn
+     * in max speed mode. Max speed mode ends with the level or when the game is paused.
+     */
+    private void maxSpeedTick() {
+        long start = System.nanoTime();
+        long end = start + LemGame.NANOSEC_MAX_SPEED_FRAME;
+        int updates = 0;
+        while (LemGame.isMaxSpeed() && LemGame.getGameState() == LemGame.State.LEVEL
+                && !LemGame.isPaused() && System.nanoTime() < end) {
+            LemGame.update();
+            updates++;
+        }
+        if (LemGame.getGameState() != LemGame.State.LEVEL || LemGame.isPaused()) {
+            LemGame.setMaxSpeed(false);
+        }
+        // the last update of the frame is done by updateFrame()
+        if (doRender) {
+            updateFrame();
+            updates++;
+        }
+        if (LemGame.isMaxSpeed()) {
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+            LemGame.setMaxSpeedFactor((int) (updates * LemGame.NANOSEC_PER_FRAME / elapsed));
+        }
+    }
+
+    /**
+     * Hand a frame to the render thread. If it is still busy with an older frame,
+     * the frame waiting before is dropped.
+     * @param tickTime System.nanoTime() the tick of the frame was due
+     */
+    private void publishFrame(final FrameSnapshot frame, final long tickTime) {
+        synchronized (frameMonitor) {
+            nextFrame = frame;
+            nextFrameTime = tickTime;
+            frameMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Draw the frames published by the game thread. Only the snapshot is read,
+     * so drawing never waits for the game lock.
+     * <p>
+     * Each new frame is drawn once it arrives. While the camera moves, the frames in
+     * between are drawn at the refresh rate of the display, scrolling from the camera
+     * of the previous tick to the one of the last tick.
+     */
+    private void renderLoop() {
+        try {
+            FrameSnapshot prevFrame = null;
+            FrameSnapshot frame = null;
+            long frameTime = 0;
+            boolean scrolling = false;
+            long nextRender = 0;
+            while (true) {
+                boolean newFrame = false;
+                synchronized (frameMonitor) {
+                    try {
+                        while (nextFrame == null && !scrolling) {
+                            frameMonitor.wait();
                         }
+                        long delay = nextRender - System.nanoTime();
+                        if (nextFrame == null && delay > 0) {
+                            // a new frame may arrive before
+                            TimeUnit.NANOSECONDS.timedWait(frameMonitor, delay);
+                        }
+                    } catch (InterruptedException ex) {
                     }
-                    if (doRender) {
-                    	updateFrame();
-                    	redraw();
+                    if (nextFrame != null) {
+                        prevFrame = frame;
+                        frame = nextFrame;
+                        frameTime = nextFrameTime;
+                        nextFrame = null;
+                        newFrame = true;
                     }
                 }
+
+                long now = System.nanoTime();
+                double progress = Math.min(Math.max((now - frameTime) / (double) LemGame.NANOSEC_PER_FRAME, 0.0), 1.0);
+                int xOfs = frame.getXPos();
+                int yOfs = frame.getYPos();
+                scrolling = false;
+                if (prevFrame != null && progress < 1.0
+                        && Math.abs(xOfs - prevFrame.getXPos()) <= MAX_INTERPOLATED_SCROLL
+                        && Math.abs(yOfs - prevFrame.getYPos()) <= MAX_INTERPOLATED_SCROLL
+                        && (xOfs != prevFrame.getXPos() || yOfs != prevFrame.getYPos())) {
+                    xOfs = prevFrame.getXPos() + (int) Math.round((xOfs - prevFrame.getXPos()) * progress);
+                    yOfs = prevFrame.getYPos() + (int) Math.round((yOfs - prevFrame.getYPos()) * progress);
+                    scrolling = true;
+                }
+                redraw(frame, xOfs, yOfs, newFrame);
+                nextRender = now + getRenderPeriod();
             }
         } catch (Throwable ex) {
             ToolBox.showException(ex);
@@ -1518,11 +1719,25 @@ public class LemminiPanel extends JPanel implements Runnable {
     }
 
     /**
-     * Signals that the next frame should be drawn.
+     * Get the time between two frames drawn while scrolling: the program property
+     * renderRate in Hz, or else the refresh rate of the display showing the panel.
+     * @return period in nanoseconds
      */
-    public synchronized void drawNextFrame() {
-        drawNextFrame = true;
-        notifyAll();
+    private long getRenderPeriod() {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != renderRateConfig) {
+            int rate = Core.programProps.getInt("renderRate", 0);
+            if (rate <= 0 && gc != null) {
+                rate = gc.getDevice().getDisplayMode().getRefreshRate();
+            }
+            if (rate <= 0) {
+                // DisplayMode.REFRESH_RATE_UNKNOWN
+                rate = DEFAULT_RENDER_RATE;
+            }
+            renderPeriod = TimeUnit.SECONDS.toNanos(1) / rate;
+            renderRateConfig = gc;
+        }
+        return renderPeriod;
     }
 
     /**
@@ -1532,38 +1747,23 @@ public class LemminiPanel extends JPanel implements Runnable {
         if (draw && Core.player.isDebugMode()) {
             boolean classicSteel = LemGame.getLevel().getClassicSteel();
             int rgbVal = (doDraw) ? 0xffffffff : 0x0;
-            int minimapVal = (doDraw || Minimap.isTinted()) ? rgbVal : LemGame.getLevel().getBgColor().getRGB();
-            if (doDraw && Minimap.isTinted()) {
-                minimapVal = Minimap.tintColor(minimapVal);
-            }
             int xOfs = LemGame.getXPos();
             int yOfs = LemGame.getYPos();
             LemImage fgImage = LemGame.getFgImage();
-            LemImage fgImageSmall = Minimap.getImage();
             Stencil stencil = LemGame.getStencil();
-            double scaleX = (double) fgImageSmall.getWidth() / (double) fgImage.getWidth();
-            double scaleY = (double) fgImageSmall.getHeight() / (double) fgImage.getHeight();
-            double scaleXHalf = scaleX / 2.0;
-            double scaleYHalf = scaleY / 2.0;
 
             // Define the radius of the "paintbrush" circle
             if (drawBrushSize <= 0 || drawBrushSize >= 11)
                 drawBrushSize = 5;
 
             int radius = drawBrushSize;
+            LemGame.terrainChanged(x + xOfs - radius, y + yOfs - radius, radius * 2 + 1, radius * 2 + 1);
 
             // Loop through a circle-shaped area
             for (int ya = y - radius; ya <= y + radius; ya++) {
                 for (int xa = x - radius; xa <= x + radius; xa++) {
                     // Check if the point is within the circle (using Pythagorean theorem)
                     if (Math.pow(xa - x, 2) + Math.pow(ya - y, 2) <= Math.pow(radius, 2)) {
-                        double scaledY = (ya + 0.5) * scaleY % 1.0;
-                        boolean drawSmallY = (scaledY >= (0.5 - scaleYHalf) % 1.0 && scaledY < (0.5 + scaleYHalf) % 1.0)
-                                || Math.abs(scaleY) >= 1.0;
-                        double scaledX = (xa + 0.5) * scaleX % 1.0;
-                        boolean drawSmallX = (scaledX >= (0.5 - scaleXHalf) % 1.0 && scaledX < (0.5 + scaleXHalf) % 1.0)
-                                || Math.abs(scaleX) >= 1.0;
-
                         if (xa + xOfs >= 0 && xa + xOfs < LemGame.getWidth()
                                 && ya + yOfs >= 0 && ya + yOfs < LemGame.getHeight()) {
                             int[] objects = stencil.getIDs(xa + xOfs, ya + yOfs);
@@ -1589,10 +1789,7 @@ public class LemminiPanel extends JPanel implements Runnable {
                                         classicSteel ? ~Stencil.MSK_BRICK
                                                 : ~(Stencil.MSK_BRICK | Stencil.MSK_STEEL | Stencil.MSK_ONE_WAY));
                             }
-                            LemGame.getFgImage().setRGB(xa + xOfs, ya + yOfs, rgbVal);
-                            if (drawSmallX && drawSmallY) {
-                                fgImageSmall.setRGB(ToolBox.scale(xa + xOfs, scaleX), ToolBox.scale(ya + yOfs, scaleY), minimapVal);
-                            }
+                            fgImage.setRGB(xa + xOfs, ya + yOfs, rgbVal);
                         }
                     }
                 }
@@ -1824,107 +2021,6 @@ public class LemminiPanel extends JPanel implements Runnable {
         }
     }
 
-    /**
-     * This interprets the DMA Remastered level packs as simply "Lemmings" or "Oh No! More Lemmings"
-     */
-    private boolean checkForDMARemasters(String replayPackName, String actualPackName) {
-        if (replayPackName.equals("DMA Lemmings [Remastered]")) {
-            return ToolBox.looselyEquals(actualPackName, "Lemmings") ||
-                   ToolBox.looselyEquals(actualPackName, "DMA Lemmings [Remastered]");
-        }
-        if (replayPackName.equals("DMA Oh No! More Lemmings [Remastered]")) {
-            return ToolBox.looselyEquals(actualPackName, "Oh No! More Lemmings") ||
-                   ToolBox.looselyEquals(actualPackName, "DMA Oh No! More Lemmings [Remastered]");
-        }
-        return false;
-    }
-    
-    private int[] findReplayLevel(ReplayLevelInfo rli) {
-        int lpn = -1;
-        int rn = -1;
-        int ln = -1;
-        LevelPack lp = null;
-        for (int i = 0; i < LemGame.getLevelPackCount(); i++) {
-            LevelPack lpTemp = LemGame.getLevelPack(i);
-            if (ToolBox.looselyEquals(lpTemp.getName(), rli.getLevelPack()) ||
-                    // Handle replays created with the DMA Remastered packs
-                    checkForDMARemasters(rli.getLevelPack(), lpTemp.getName())) {
-                lpn = i;
-                lp = lpTemp;
-            }
-        }
-        
-        // check external levels if no match is found
-        if (lpn < 0) { 
-        	lp = LemGame.getLevelPack(0);
-        	lpn = 0;
-        }
-        
-        if (lp != null && lpn >= 0) {
-            java.util.List<String> ratings = lp.getRatings();
-            int rnTemp = rli.getRatingNumber();
-            if (rnTemp < ratings.size()) {
-                rn = rnTemp;
-            }
-            if (rn < 0 || ToolBox.looselyEquals(ratings.get(rn), rli.getRatingName())) {
-                for (int i = 0; i < ratings.size(); i++) {
-                    if (ToolBox.looselyEquals(ratings.get(i), rli.getRatingName())) {
-                        rn = i;
-                    }
-                }
-            }
-            
-            // check external levels if no match is found
-            if (rn < 0) { 
-            	rn = 0;
-            }
-            
-            if (rn >= 0) {
-                java.util.List<String> levels = lp.getLevels(rn);
-                int lnTemp = rli.getLvlNumber();
-                if (lnTemp < levels.size()) {
-                    ln = lnTemp;
-                }
-                if (ln < 0 || ToolBox.looselyEquals(levels.get(ln), rli.getLvlName())) {
-                    for (int i = 0; i < levels.size(); i++) {
-                        if (ToolBox.looselyEquals(levels.get(i), rli.getLvlName())) {
-                            ln = i;
-                        }
-                    }
-                }
-            }
-        }
-        
-        // fallback - search by level name only
-        if (lpn < 0 || rn < 0 || ln < 0) {
-        	LemGame.replayCaption = "RetroLemmini - Closest match for '" + rli.getLvlName() + "' (" + rli.getLevelPack() + ")";
-            outer:
-            for (int p = 0; p < LemGame.getLevelPackCount(); p++) {
-                LevelPack pack = LemGame.getLevelPack(p);
-                List<String> ratings = pack.getRatings();
-
-                for (int r = 0; r < ratings.size(); r++) {
-                    List<String> levels = pack.getLevels(r);
-
-                    for (int l = 0; l < levels.size(); l++) {
-                        if (ToolBox.looselyEquals(levels.get(l), rli.getLvlName())) {
-                            lpn = p;
-                            rn = r;
-                            ln = l;
-                            break outer; // first match wins
-                        }
-                    }
-                }
-            }
-        }
-        
-        if (lpn >= 0 && rn >= 0 && ln >= 0) {
-            return new int[] { lpn, rn, ln };
-        }
-
-        return null;
-    }
-
     void handleLoadReplay(Path replayPath) {
     	if (replayPath == null)
     		replayPath = ToolBox.getFileName(getParent(), Core.resourcePath.resolve(Core.REPLAYS_PATH),
@@ -1934,7 +2030,7 @@ public class LemminiPanel extends JPanel implements Runnable {
                 if (FilenameUtils.getExtension(replayPath.getFileName().toString()).equalsIgnoreCase("rpl")) {
                     ReplayLevelInfo rli = LemGame.loadReplay(replayPath);
                     if (rli != null) {
-                    	int[] level = findReplayLevel(rli);
+                    	int[] level = ReplayChecker.findReplayLevel(rli);
 
                     	if (level != null) {
                     	    LemGame.requestChangeLevel(
@@ -2074,39 +2170,18 @@ public class LemminiPanel extends JPanel implements Runnable {
         pauseRendering();
 
         // Perform batch replay check
+        final int threads = Core.programProps.getInt("replayCheckThreads", Runtime.getRuntime().availableProcessors());
         new Thread(() -> {
             List<ReplayChecker.ReplayCheckResult> results = new ArrayList<>();
-            int count = 0;
 
             try {
-                for (Path replayPath : replayFiles) {
-                    try {
-                        // Update progress UI
-                        count++;
-                        final int current = count;
-                        final String fileName = replayPath.getFileName().toString();
-
-                        SwingUtilities.invokeLater(() -> {
-                            overlay.setProgress(current, totalReplays, String.format("Checking replay %d of %d\n%s", current, totalReplays, fileName));
-                        });
-
-                        // Move to next replay and level
-                        ReplayLevelInfo rli = LemGame.loadReplay(replayPath);
-                        if (rli == null) continue;
-                        int[] level = findReplayLevel(rli);
-                        if (level == null) continue;
-                        LemGame.changeLevel(level[0], level[1], level[2], true);
-                        
-                        // Get replay results
-                        ReplayChecker.ReplayResult resultCheck = ReplayChecker.check();
-                        int lemsSaved = LemGame.getNumExited();
-                        int saveReq = LemGame.getNumToRescue();
-                        int timeElapsed = LemGame.getLevelRecord().getTimeElapsed();
-                        results.add(new ReplayChecker.ReplayCheckResult(replayPath, resultCheck, lemsSaved, saveReq, timeElapsed));
-                    } catch (Exception ex) {
-                        System.out.println(replayPath.getFileName() + " -> ERROR: " + ex.getMessage());
-                    }
-                }
+                results.addAll(ReplayChecker.checkAll(replayFiles, threads, (replayPath, current) -> {
+                    // Update progress UI
+                    final String fileName = replayPath.getFileName().toString();
+                    SwingUtilities.invokeLater(() -> {
+                        overlay.setProgress(current, totalReplays, String.format("Checking replay %d of %d\n%s", current, totalReplays, fileName));
+                    });
+                }));
             } finally {
                 SwingUtilities.invokeLater(() -> {
                     try {
@@ -160,6 +160,14 @@ public class Core {
      * Initialize some core elements (settings, resources, etc)
      */
     public static boolean init(String workingFolder) throws LemException, IOException  {
+        return init(workingFolder, false);
+    }
+
+    /**
+     * Initialize some core elements (settings, resources, etc)
+     * @param headless if true, no dialogs are shown and missing styles are not downloaded
+     */
+    public static boolean init(String workingFolder, boolean headless) throws LemException, IOException  {
         System.out.println("\ninitializing Core...");
         String tmp;// = java.net.URLDecoder.decode(workingFolder, "UTF-8");
         tmp = new java.io.File(workingFolder).getPath();
@@ -186,7 +194,10 @@ public class Core {
         // read main ini file
         programProps = new Props();
 
-        if (!programProps.load(programPropsFilePath)) {
+        boolean configRead = programProps.load(programPropsFilePath);
+        if (!configRead && headless) {
+            System.out.println("    unable to read config file... using defaults");
+        } else if (!configRead) {
             System.out.println("    unable to read config file... prompting disclaimer agreement ...");
             // if config does not exist, show the Legal Disclaimer (which is loaded from "disclaimer.htm")
             // User must agree with the Legal disclaimer to use the program.
@@ -314,8 +325,10 @@ public class Core {
         System.out.println("    loading player settings...");
         loadPlayerSettings();
         
-        System.out.println("    validating default styles...");
-        validateDefaultStyles();
+        if (!headless) {
+            System.out.println("    validating default styles...");
+            validateDefaultStyles();
+        }
 
         System.out.println("Core initialization complete.");
         return true;
@@ -94,6 +94,23 @@ public class Explosion {
         finished = false;
     }
 
+    /**
+     * Constructor. Create a copy of another explosion (used for rewind snapshots).
+     */
+    public Explosion(final Explosion src) {
+        xExp = src.xExp;
+        yExp = src.yExp;
+        maxCounter = src.maxCounter;
+        counter = src.counter;
+        finished = src.finished;
+        particles = new Particle[src.particles.length];
+        for (int i = 0; i < particles.length; i++) {
+            if (src.particles[i] != null) {
+                particles[i] = new Particle(src.particles[i]);
+            }
+        }
+    }
+
     /**
      * Update explosion (move particles etc.).
      */
@@ -186,5 +203,17 @@ public class Explosion {
             color = new Color(col);
             lifeCtr = lCtr;
         }
+
+        /**
+         * Copy constructor
+         */
+        Particle(Particle p) {
+            x = p.x;
+            y = p.y;
+            dx = p.dx;
+            dy = p.dy;
+            color = p.color;
+            lifeCtr = p.lifeCtr;
+        }
     }
 }
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.StringUtils;
+
+import lemmini.LemminiFrame;
+import lemmini.graphics.GraphicsContext;
+import lemmini.graphics.LemImage;
+
+/**
+ * Everything the renderer needs from the game state of one frame: the camera, the
+ * current frames of the level objects, the minimap, the Lemmings, explosions and
+ * visual SFX, the Lemming under the cursor, the counters of the status bar and the
+ * profiler overlay.
+ * <p>
+ * A snapshot is captured by {@link LemGame#captureFrame()} while holding the game lock
+ * and never changes afterwards, so it can be drawn by another thread while the game
+ * goes on. Images are shared with the game, since they aren't modified once loaded.
+ * The only exception is the foreground image: terrain changes are written into it
+ * directly, so a frame may show them one tick early.
+ * @author Will James
+ */
+public final class FrameSnapshot {
+
+    /** camera position in the level */
+    private final int xPos;
+    private final int yPos;
+    /** camera position in the minimap */
+    private final int minimapXPos;
+
+    /** level of the frame, null if none is loaded */
+    private final Level level;
+    private final LemImage fgImage;
+    /** current frames of the level objects, null if no level is loaded */
+    private final Level.ObjectImages objectImages;
+    /** copy of the minimap image, null if there is none */
+    private final LemImage minimap;
+
+    /** number of Lemmings */
+    private final int numLemmings;
+    private final LemImage[] lemmImages;
+    private final int[] lemmX;
+    private final int[] lemmY;
+    private final int[] lemmWidth;
+    private final int[] lemmHeight;
+    /** offset of left-facing Lemmings, see {@link LemGame#getLeftFacingLemOffset(Lemming)} */
+    private final int[] lemmOffset;
+    private final int[] lemmEffectX;
+    private final int[] footX;
+    private final int[] footY;
+    private final LemImage[] countdowns;
+    private final LemImage[] selectImages;
+
+    /** copies of the explosions */
+    private final Explosion[] explosions;
+
+    private final LemImage[] vsfxImages;
+    private final int[] vsfxX;
+    private final int[] vsfxY;
+    private final int[] vsfxWidth;
+    private final int[] vsfxHeight;
+
+    /** Lemming info shown in the status bar, empty if no Lemming is under the cursor */
+    private final String lemmingInfo;
+    private final boolean lemmUnderCursor;
+    /** foot x and middle y position of the Lemming under the cursor */
+    private final int lemmUnderCursorX;
+    private final int lemmUnderCursorY;
+
+    private final int numExited;
+    private final int numLemmingsMax;
+    private final int numLemmingsUnreleased;
+    private final int numLemmingsPossibleMax;
+    private final int numToRescue;
+    private final int time;
+    private final boolean timed;
+    private final String timeString;
+    private final LemImage replayImage;
+    /** speed reached in max speed mode, 0 otherwise */
+    private final int maxSpeedFactor;
+    /** lines of the profiler overlay, null if it isn't shown */
+    private final String[] profilerSummary;
+
+    /**
+     * Capture the current frame of a session. The caller must hold the game lock.
+     */
+    FrameSnapshot(final GameSession session, final Lemming underCursor, final int numUnderCursor,
+            final int minimapXPos, final LemImage replayImage) {
+        xPos = session.xPos;
+        yPos = session.yPos;
+        this.minimapXPos = minimapXPos;
+
+        level = session.level;
+        fgImage = session.fgImage;
+        objectImages = (level != null) ? level.captureObjectImages() : null;
+        minimap = Minimap.captureImage();
+
+        LemmingList lemmings = session.lemmings;
+        numLemmings = lemmings.size();
+        lemmImages = new LemImage[numLemmings];
+        lemmX = new int[numLemmings];
+        lemmY = new int[numLemmings];
+        lemmWidth = new int[numLemmings];
+        lemmHeight = new int[numLemmings];
+        lemmOffset = new int[numLemmings];
+        lemmEffectX = new int[numLemmings];
+        countdowns = new LemImage[numLemmings];
+        selectImages = new LemImage[numLemmings];
+        for (int i = 0; i < numLemmings; i++) {
+            Lemming l = lemmings.get(i);
+            lemmImages[i] = l.getImage();
+            lemmX[i] = l.screenX();
+            lemmY[i] = l.screenY();
+            lemmWidth[i] = l.width();
+            lemmHeight[i] = l.height();
+            lemmOffset[i] = LemGame.getLeftFacingLemOffset(l);
+            lemmEffectX[i] = LemGame.getEffectX(l);
+            countdowns[i] = l.getCountdown();
+            selectImages[i] = l.getSelectImg();
+        }
+        footX = Arrays.copyOf(lemmings.getFootX(), numLemmings);
+        footY = Arrays.copyOf(lemmings.getFootY(), numLemmings);
+
+        explosions = new Explosion[session.explosions.size()];
+        int n = 0;
+        for (Explosion e : session.explosions) {
+            explosions[n++] = new Explosion(e);
+        }
+
+        vsfxImages = new LemImage[session.vsfxs.size()];
+        vsfxX = new int[vsfxImages.length];
+        vsfxY = new int[vsfxImages.length];
+        vsfxWidth = new int[vsfxImages.length];
+        vsfxHeight = new int[vsfxImages.length];
+        n = 0;
+        for (Vsfx v : session.vsfxs) {
+            vsfxImages[n] = v.getImage();
+            vsfxX[n] = v.screenX();
+            vsfxY[n] = v.screenY();
+            vsfxWidth[n] = v.width();
+            vsfxHeight[n] = v.height();
+            n++;
+        }
+
+        if (underCursor != null) {
+            String info;
+            if (Core.player.isDebugMode()) {
+                // show frame index and position of lem when in debug mode
+                info = "F:" + underCursor.getFrameIndex() + " X:" + underCursor.footX() + " Y:" + underCursor.footY();
+            } else {
+                info = underCursor.getLemmingInfo();
+            }
+            // display also the total number of lemmings under the cursor
+            if (numUnderCursor > 1) {
+                info += StringUtils.SPACE + numUnderCursor;
+            }
+            lemmingInfo = info;
+            lemmUnderCursor = true;
+            lemmUnderCursorX = underCursor.footX();
+            lemmUnderCursorY = underCursor.midY();
+        } else {
+            lemmingInfo = StringUtils.EMPTY;
+            lemmUnderCursor = false;
+            lemmUnderCursorX = 0;
+            lemmUnderCursorY = 0;
+        }
+
+        numExited = session.numExited;
+        numLemmingsMax = session.numLemmingsMax;
+        numLemmingsUnreleased = session.numLemmingsMax - session.numLemmingsOut;
+        numLemmingsPossibleMax = numLemmingsUnreleased + numLemmings + session.numExited;
+        numToRescue = session.numToRescue;
+        time = session.time;
+        timed = session.timed;
+        timeString = LemGame.getTimeString(session.time);
+        this.replayImage = replayImage;
+        maxSpeedFactor = LemGame.isMaxSpeed() ? LemGame.getMaxSpeedFactor() : 0;
+        UpdateProfiler profiler = session.profiler;
+        profilerSummary = (profiler != null && Core.player.isDebugMode()) ? profiler.getSummary() : null;
+    }
+
+    /**
+     * Draw the Lemmings with their countdowns and selection images.
+     * @param isScreenshot draw all Lemmings, not only the ones inside the camera
+     */
+    public void drawLemmings(final GraphicsContext g, final int cameraX, final int cameraY, final boolean isScreenshot) {
+        boolean debug = Core.player.isDebugMode();
+        int drawWidth = Core.getDrawWidth();
+        for (int i = 0; i < numLemmings; i++) {
+            // Draw lemmings
+            int lx = lemmX[i];
+            int ly = lemmY[i];
+            int lfo = lemmOffset[i];
+
+            if (isScreenshot || (lx + lemmWidth[i] > cameraX && lx < cameraX + drawWidth &&
+                                 ly + lemmHeight[i] > cameraY && ly < cameraY + LemminiFrame.LEVEL_HEIGHT)) {
+                g.drawImage(lemmImages[i], lx - lfo - cameraX, ly - cameraY);
+            }
+
+            // Draw lemming position in debug mode
+            if (debug) {
+                g.setColor(LemGame.DEBUG_FOOT_COLOR);
+                g.fillRect(footX[i] - cameraX, footY[i] - cameraY, 2, 2);
+            }
+
+            // Draw countdown graphics if necessary
+            LemImage cd = countdowns[i];
+            if (cd != null) {
+                int x = lemmEffectX[i] - lfo - cameraX - cd.getWidth() / 2;
+                int y = ly - cameraY - cd.getHeight();
+                if (isScreenshot || (x + cd.getHeight() > 0 && x < drawWidth &&
+                                     y + cd.getHeight() > 0 && y < LemminiFrame.LEVEL_HEIGHT)) {
+                    g.drawImage(cd, x, y);
+                }
+            }
+
+            // Draw lightbulb for selected lems
+            LemImage sel = selectImages[i];
+            if (sel != null) {
+                int x = lemmEffectX[i] - lfo - cameraX - sel.getWidth() / 2;
+                int y = ly - cameraY - sel.getHeight();
+                if (isScreenshot || (x + sel.getHeight() > 0 && x < drawWidth &&
+                                     y + sel.getHeight() > 0 && y < LemminiFrame.LEVEL_HEIGHT)) {
+                    g.drawImage(sel, x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw the minimap with the Lemmings.
+     * @param levelYPos y position of the camera in the level
+     */
+    public void drawMinimap(final GraphicsContext g, final int x, final int y, final int levelYPos) {
+        if (minimap != null) {
+            Minimap.draw(g, minimap, x, y, minimapXPos, levelYPos);
+        }
+        Minimap.drawLemmings(g, x, y, footX, footY, numLemmings, minimapXPos, levelYPos);
+    }
+
+    /**
+     * Draw the explosions.
+     */
+    public void drawExplosions(final GraphicsContext g, final int width, final int height, final int xOfs, final int yOfs) {
+        for (Explosion e : explosions) {
+            e.draw(g, width, height, xOfs, yOfs);
+        }
+    }
+
+    /**
+     * Draw the visual SFX that are inside the camera.
+     */
+    public void drawVisualSfx(final GraphicsContext g, final int cameraX, final int cameraY) {
+        for (int i = 0; i < vsfxImages.length; i++) {
+            int vx = vsfxX[i];
+            int vy = vsfxY[i];
+            if (vx + vsfxWidth[i] > cameraX && vx < cameraX + Core.getDrawWidth()
+            && vy + vsfxHeight[i] > cameraY && vy < cameraY + LemminiFrame.LEVEL_HEIGHT) {
+                g.drawImage(vsfxImages[i], vx - cameraX, vy - cameraY);
+            }
+        }
+    }
+
+    public int getXPos() {
+        return xPos;
+    }
+
+    public int getYPos() {
+        return yPos;
+    }
+
+    public int getMinimapXPos() {
+        return minimapXPos;
+    }
+
+    /**
+     * Get the level of the frame, null if none is loaded.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    public LemImage getFgImage() {
+        return fgImage;
+    }
+
+    /**
+     * Get the frames of the level objects to pass to the draw methods of the level.
+     */
+    public Level.ObjectImages getObjectImages() {
+        return objectImages;
+    }
+
+    public String getLemmingInfo() {
+        return lemmingInfo;
+    }
+
+    /**
+     * Check if there was a Lemming under the cursor.
+     */
+    public boolean isLemmUnderCursor() {
+        return lemmUnderCursor;
+    }
+
+    /**
+     * Get the foot x position of the Lemming under the cursor.
+     */
+    public int getLemmUnderCursorX() {
+        return lemmUnderCursorX;
+    }
+
+    /**
+     * Get the middle y position of the Lemming under the cursor.
+     */
+    public int getLemmUnderCursorY() {
+        return lemmUnderCursorY;
+    }
+
+    public int getNumLemmings() {
+        return numLemmings;
+    }
+
+    public int getNumExited() {
+        return numExited;
+    }
+
+    public int getNumLemmingsMax() {
+        return numLemmingsMax;
+    }
+
+    public int getNumLemmingsUnreleased() {
+        return numLemmingsUnreleased;
+    }
+
+    public int getNumLemmingsPossibleMax() {
+        return numLemmingsPossibleMax;
+    }
+
+    public int getNumToRescue() {
+        return numToRescue;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public boolean isTimed() {
+        return timed;
+    }
+
+    public String getTimeString() {
+        return timeString;
+    }
+
+    /**
+     * Get the speed reached in max speed mode.
+     * @return multiple of normal speed, 0 if not in max speed mode
+     */
+    public int getMaxSpeedFactor() {
+        return maxSpeedFactor;
+    }
+
+    /**
+     * Get the lines of the profiler overlay.
+     * @return lines or null if the overlay isn't shown
+     */
+    public String[] getProfilerSummary() {
+        return profilerSummary;
+    }
+
+    /**
+     * Get the blinking replay icon, null if not in replay mode.
+     */
+    public LemImage getReplayImage() {
+        return replayImage;
+    }
+}
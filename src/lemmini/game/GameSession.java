@@ -0,0 +1,1107 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lemmini.game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import lemmini.LemminiFrame;
+import lemmini.gameutil.KeyRepeat;
+import lemmini.gameutil.Sprite;
+import lemmini.graphics.LemImage;
+import lemmini.sound.Music;
+import lemmini.sound.Sound;
+
+/**
+ * Per-level simulation state. LemGame delegates to the session that is current
+ * for the calling thread, so several levels can be simulated side by side.
+ * @author Will James
+ */
+public class GameSession {
+
+    private static final int MAX_START_SOUND_CTR = 28;
+    /** open entrance after about 2 seconds */
+    private static final int MAX_ENTRANCE_OPEN_CTR = 72;
+    /** one second is 33.333 ticks */
+    private static final int[] MAX_SECOND_CTR = {34, 33, 33};
+    /** one second in superlemming mode is 100 ticks */
+    private static final int[] MAX_SUPERLEMMING_SECOND_CTR = {100};
+    /** default number of frames between two rewind snapshots (about 3 seconds) */
+    private static final int DEFAULT_REWIND_INTERVAL = 100;
+    /** default memory budget of the rewind buffer in MiB */
+    private static final int DEFAULT_REWIND_MEMORY_MB = 64;
+
+    /** flag: session is not attached to the UI (no music, captions or fading) */
+    final boolean detached;
+
+    LemGame.GameMode gameMode = LemGame.GameMode.NORMAL;
+    ReplayChecker.ReplayResult replayResult;
+
+    /** the foreground stencil */
+    Stencil stencil;
+    /** the foreground image */
+    LemImage fgImage;
+    /** flag: Direct Drop is active */
+    boolean directDrop;
+    /** flag: Superlemming mode is active */
+    boolean superLemming;
+    boolean forceNormalTimerSpeed;
+    /** skill to assign to lemming (skill icon) */
+    Lemming.Type lemmSkill;
+    /** flag: entrances is opened */
+    boolean entranceOpened;
+    /** flag: nuke was activated */
+    boolean nuke;
+    /** flag: game is paused */
+    boolean paused;
+    /** flag: debug or max exit physics mode was activated during play */
+    boolean cheatWasActivated = false;
+    /** flag: force physics update */
+    boolean forceAdvanceFrame = false;
+    /** frame counter for handling opening of entrances */
+    int entranceOpenCtr;
+    int startSoundCtr;
+    boolean startSoundPlayed;
+    final Set<SpriteObject> entranceSprites = new HashSet<>();
+    /** frame counter for handling time */
+    int secondCtr;
+    /** frame counter used to handle release of new Lemmings */
+    int releaseCtr;
+    /** threshold to release a new Lemming */
+    int releaseBase;
+    /** order in which entrances release Lemmings */
+    final TrapDoor trapDoor = new TrapDoor();
+    /** level object */
+    Level level;
+    /** list of all active Lemmings in the Level */
+    final LemmingList lemmings = new LemmingList();
+    /** list of all active explosions */
+    final List<Explosion> explosions = new LinkedList<>();
+    /** list of all active Visual SFX */
+    final List<Vsfx> vsfxs = new LinkedList<>();
+    /** key repeat object for plus key/icon */
+    final KeyRepeat plus;
+    /** key repeat object for minus key/icon */
+    final KeyRepeat minus;
+    /** Lemming for which skill change is requested */
+    Lemming lemmSkillRequest;
+    /** horizontal scrolling offset for level */
+    int xPos;
+    int xPosCenter;
+    /** vertical scrolling offset for level */
+    int yPos;
+    int yPosCenter;
+    /** replay stream used for handling replays */
+    final ReplayStream replay = new ReplayStream();
+    /** frame counter used for handling replays */
+    int replayFrame;
+    /** old value of release rate */
+    int releaseRateOld;
+    /** old value of nuke flag */
+    boolean nukeOld;
+    /** old value of horizontal scrolling position */
+    int xPosOld;
+    /** old value of vertical scrolling position */
+    int yPosOld;
+    /** old value of selected skill */
+    Lemming.Type lemmSkillOld;
+    /** flag: replay mode is active */
+    boolean replayMode;
+    /** flag: replay mode should be stopped */
+    boolean stopReplayMode;
+    /** flag: cancel autosave if replay mode is active at the end of the level */
+    boolean cancelAutosave;
+    /** flag: replay autosaved successfully */
+    boolean replayAutosaved;
+    /** number of Lemmings which exited the level */
+    int numExited;
+    /** release rate */
+    int releaseRate;
+    boolean lockReleaseRate;
+    /** number of Lemmings available */
+    int numLemmingsMax;
+    /** number of Lemmings who entered the level */
+    int numLemmingsOut;
+    /** number of Lemmings which have to be rescued to finish the level */
+    int numToRescue;
+    /** time left in seconds */
+    int time;
+    int timeLimit;
+    int timeElapsedTillLastExited;
+    boolean timed;
+    /** number of climber skills left to be assigned */
+    int numClimbers;
+    /** number of floater skills left to be assigned */
+    int numFloaters;
+    /** number of bomber skills left to be assigned */
+    int numBombers;
+    /** number of blocker skills left to be assigned */
+    int numBlockers;
+    /** number of builder skills left to be assigned */
+    int numBuilders;
+    /** number of basher skills left to be assigned */
+    int numBashers;
+    /** number of miner skills left to be assigned */
+    int numMiners;
+    /** number of digger skills left to be assigned */
+    int numDiggers;
+    int numSkillsUsed;
+    /** free running update counter */
+    int updateCtr;
+    int width = Level.DEFAULT_WIDTH;
+    int height = Level.DEFAULT_HEIGHT;
+    /** snapshots used for rewinding (null for detached sessions) */
+    RewindBuffer rewindBuffer;
+    /** terrain changed since the minimap was last updated (null for detached sessions) */
+    final TerrainJournal terrainJournal;
+    /** frame to jump to at the start of the next update, -1 if none */
+    int seekRequest = -1;
+    /** flag: the frames skipped by a seek are being simulated again */
+    boolean rewinding;
+    /** number of frames between two replay checkpoints, 0 to store no checkpoints */
+    int checkpointInterval;
+    /** hash over the simulation state after each frame */
+    long stateHash;
+    /** hash over all terrain modifications since the level was painted */
+    long terrainHash;
+    /** number of frames between two state hashes stored in new replays, 0 to store none */
+    int stateHashInterval;
+    /** first frame whose state hash didn't match the one stored in the replay, -1 if none */
+    int desyncFrame = -1;
+    /** phase timing of update(), null while profiling is switched off */
+    UpdateProfiler profiler;
+
+    /**
+     * Constructor.
+     * @param detached true if this session runs without the UI (e.g. a background replay check)
+     */
+    private GameSession(final boolean detached) {
+        this.detached = detached;
+        terrainJournal = detached ? null : new TerrainJournal();
+        plus  = new KeyRepeat(LemGame.NANOSEC_KEYREPEAT_START, LemGame.NANOSEC_KEYREPEAT_REPEAT, LemGame.NANOSEC_RELEASE_DOUBLE_CLICK);
+        minus = new KeyRepeat(LemGame.NANOSEC_KEYREPEAT_START, LemGame.NANOSEC_KEYREPEAT_REPEAT, LemGame.NANOSEC_RELEASE_DOUBLE_CLICK);
+    }
+
+    /**
+     * Create a session.
+     * @param detached true if this session runs without the UI (e.g. a background replay check)
+     */
+    public static GameSession create(final boolean detached) {
+        GameSession session = new GameSession(detached);
+        // only handed out once the session is fully constructed
+        session.lemmings.setSession(session);
+        return session;
+    }
+
+    /**
+     * Check whether this session runs without the UI.
+     */
+    public boolean isDetached() {
+        return detached;
+    }
+
+    /**
+     * Reset the simulation state for the given level. The level is painted here.
+     */
+    synchronized void initLevel(final Level lvl) throws LemException, ResourceException {
+        level = lvl;
+        paused = false;
+        nuke = false;
+
+        lemmSkillRequest = null;
+
+        lemmings.clear();
+        explosions.clear();
+        vsfxs.clear();
+
+        plus.init();
+        minus.init();
+
+        numExited = 0;
+        releaseRate = level.getReleaseRate();
+        lockReleaseRate = level.isReleaseRateLocked();
+        numLemmingsMax = level.getNumLemmings();
+        numLemmingsOut = 0;
+        numToRescue = level.getNumToRescue();
+        time = level.getTimeLimitSeconds();
+        numClimbers = level.getNumClimbers();
+        numFloaters = level.getNumFloaters();
+        numBombers = level.getNumBombers();
+        numBlockers = level.getNumBlockers();
+        numBuilders = level.getNumBuilders();
+        numBashers = level.getNumBashers();
+        numMiners = level.getNumMiners();
+        numDiggers = level.getNumDiggers();
+        numSkillsUsed = 0;
+        xPosCenter = level.getXPosCenter();
+        yPosCenter = level.getYPosCenter();
+        width = level.getWidth();
+        height = level.getHeight();
+        lemmings.setArea(width, height);
+        if (time <= 0) {
+            timed = false;
+            time = 0;
+        } else {
+            timed = true;
+        }
+        timeLimit = time;
+        timeElapsedTillLastExited = 0;
+
+        level.paintLevel();
+        stateHash = 0;
+        terrainHash = 0;
+        if (terrainJournal != null) {
+            terrainJournal.clear();
+        }
+        desyncFrame = -1;
+        stencil = level.getStencil();
+        fgImage = level.getFgImage();
+
+        trapDoor.reset(level.getNumEntrances(), level.getEntranceOrder());
+        startSoundPlayed = false;
+        startSoundCtr = 0;
+        entranceOpened = false;
+        entranceOpenCtr = 0;
+        secondCtr = 0;
+        releaseCtr = 0;
+        lemmSkill = null;
+
+        entranceSprites.clear();
+        for (int i = 0; i < level.getNumEntrances(); i++) {
+            SpriteObject spr = level.getSprObject(level.getEntrance(i).id);
+            if (spr != null) {
+                entranceSprites.add(spr);
+            }
+        }
+
+        calcReleaseBase();
+
+        boolean directDropActive = LemGame.isOptionEnabled(LemGame.Option.DIRECT_DROP);
+        boolean replayIsDirectDrop = replay.isDirectDropActive() && !directDropActive;
+        directDrop = level.isDirectDrop() || replayIsDirectDrop || directDropActive;
+        superLemming = level.isSuperLemming();
+        forceNormalTimerSpeed = level.getForceNormalTimerSpeed();
+
+        replayFrame = 0;
+        stopReplayMode = false;
+        replayAutosaved = false;
+        cancelAutosave = false;
+        releaseRateOld = releaseRate;
+        lemmSkillOld = lemmSkill;
+        nukeOld = false;
+
+        cheatWasActivated = Core.player.isDebugMode() || Core.player.isMaximumExitPhysics();
+
+        seekRequest = -1;
+        if (!detached) {
+            stateHashInterval = Math.max(0, Core.programProps.getInt("replayStateHashInterval", 0));
+            checkpointInterval = Math.max(0, Core.programProps.getInt("replayCheckpointInterval", 0));
+            if (rewindBuffer == null) {
+                rewindBuffer = new RewindBuffer(
+                        Core.programProps.getInt("rewindInterval", DEFAULT_REWIND_INTERVAL),
+                        Core.programProps.getInt("rewindMemoryMB", DEFAULT_REWIND_MEMORY_MB) * 1024L * 1024L);
+            }
+            rewindBuffer.reset(width, height);
+            rewindBuffer.capture(this);
+        }
+    }
+
+    /**
+     * Update the simulation by one frame.
+     */
+    synchronized void update() {
+        updateCtr++;
+        UpdateProfiler prof = profiler;
+        if (prof != null) {
+            if (prof.isExportRequested()) {
+                exportProfile(prof);
+            }
+            prof.begin();
+        }
+
+        if (!replayMode) {
+            assignSkill(false); // first try to assign skill
+        }
+
+        // check +/- buttons also if paused
+        KeyRepeat.Event fired = plus.fired();
+        if (fired != KeyRepeat.Event.NONE) {
+            if (!lockReleaseRate && releaseRate < level.getMaxReleaseRate()) {
+                if (fired == KeyRepeat.Event.DOUBLE_CLICK) {
+                    releaseRate = level.getMaxReleaseRate();
+                } else {
+                    releaseRate += 1;
+                }
+                calcReleaseBase();
+                LemGame.sound.playPitched(Sound.PitchedEffect.RELEASE_RATE, LemGame.getReleaseRatePitch(releaseRate));
+            }
+        }
+
+        fired = minus.fired();
+        if (fired != KeyRepeat.Event.NONE) {
+            if (!lockReleaseRate && releaseRate > level.getReleaseRate()) {
+                if (fired == KeyRepeat.Event.DOUBLE_CLICK) {
+                    releaseRate = level.getReleaseRate();
+                } else {
+                    releaseRate -= 1;
+                }
+                calcReleaseBase();
+                LemGame.sound.playPitched(Sound.PitchedEffect.RELEASE_RATE, LemGame.getReleaseRatePitch(releaseRate));
+            }
+        }
+
+        if (forceAdvanceFrame) {
+            forceAdvanceFrame = false;
+        } else if (paused) {
+            return;
+        }
+
+        // test for end of replay mode
+        if (replayMode && stopReplayMode) {
+            stopReplayMode();
+        }
+
+        if (!replayMode) {
+            if (!cheatWasActivated) {
+                // replay: release rate changed?
+                if (releaseRate != releaseRateOld) {
+                    replay.addReleaseRateEvent(replayFrame, releaseRate);
+                    releaseRateOld = releaseRate;
+                }
+                // replay: nuked?
+                if (nuke != nukeOld) {
+                    replay.addNukeEvent(replayFrame);
+                    nukeOld = nuke;
+                }
+                // replay: position changed?
+                if (xPos != xPosOld || yPos != yPosOld) {
+                    replay.addPosEvent(replayFrame, xPos + Core.getDrawWidth() / 2, yPos + LemminiFrame.LEVEL_HEIGHT / 2, 0);
+                    xPosOld = xPos;
+                    yPosOld = yPos;
+                }
+                // skill changed
+                if (lemmSkill != lemmSkillOld) {
+                    replay.addSelectSkillEvent(replayFrame, lemmSkill, 0);
+                    lemmSkillOld = lemmSkill;
+                }
+            } else {
+                replay.clear();
+            }
+        } else {
+            // replay mode
+            ReplayEvent r;
+            while ((r = replay.getNext(replayFrame)) != null) {
+                switch (r.type) {
+                    case ReplayStream.ASSIGN_SKILL: {
+                        ReplayAssignSkillEvent rs = (ReplayAssignSkillEvent) r;
+                        double pan = 0;
+                        try {
+                        	Lemming l = lemmings.get(rs.lemming);
+                            l.setSkill(rs.skill, false, r);
+                            lemmings.moved(l);
+                            l.setSelected();
+                            pan = l.getPan();
+                        } catch(IndexOutOfBoundsException e) {
+                        	if (!detached) {
+                        		Core.setWindowCaption("RetroLemmini - Replay Error: Expected lemming index is " + rs.lemming + " (" + e.getMessage() + ")");
+                        	}
+                        }
+                        switch (rs.skill) {
+                            case CLIMBER:
+                                if (numClimbers != Integer.MAX_VALUE) {
+                                    numClimbers--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            case FLOATER:
+                                if (numFloaters != Integer.MAX_VALUE) {
+                                    numFloaters--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            case OHNOER:
+                                if (numBombers != Integer.MAX_VALUE) {
+                                    numBombers--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            case BLOCKER:
+                                if (numBlockers != Integer.MAX_VALUE) {
+                                    numBlockers--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            case BUILDER:
+                                if (numBuilders != Integer.MAX_VALUE) {
+                                    numBuilders--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            case BASHER:
+                                if (numBashers != Integer.MAX_VALUE) {
+                                    numBashers--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            case MINER:
+                                if (numMiners != Integer.MAX_VALUE) {
+                                    numMiners--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            case DIGGER:
+                                if (numDiggers != Integer.MAX_VALUE) {
+                                    numDiggers--;
+                                    numSkillsUsed++;
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                        LemGame.sound.play(Sound.Effect.SELECT_SKILL, pan);
+                        break;
+                    }
+                    case ReplayStream.SET_RELEASE_RATE:
+                        if (!lockReleaseRate) {
+                            ReplayReleaseRateEvent rr = (ReplayReleaseRateEvent) r;
+                            releaseRate = rr.releaseRate;
+                            calcReleaseBase();
+                            LemGame.sound.playPitched(Sound.PitchedEffect.RELEASE_RATE, LemGame.getReleaseRatePitch(releaseRate));
+                            releaseRateOld = releaseRate;
+                        }
+                        break;
+                    case ReplayStream.NUKE:
+                        nuke();
+                        LemGame.pressIcon(Icons.IconType.NUKE);
+                        nukeOld = nuke;
+                        break;
+                    case ReplayStream.MOVE_POS: {
+                        ReplayMovePosEvent rx = (ReplayMovePosEvent) r;
+                        if (LemGame.isOptionEnabled(LemGame.Option.REPLAY_SCROLL) && rx.player == 0) {
+                            setXPos(rx.xPos - Core.getDrawWidth() / 2);
+                            setYPos(rx.yPos - LemminiFrame.LEVEL_HEIGHT / 2);
+                            xPosOld = xPos;
+                            yPosOld = yPos;
+                        }
+                        break;
+                    }
+                    case ReplayStream.SELECT_SKILL: {
+                        ReplaySelectSkillEvent rs = (ReplaySelectSkillEvent) r;
+                        if (rs.player == 0) {
+                            lemmSkill = rs.skill;
+                            switch (lemmSkill) {
+                                case CLIMBER:
+                                    LemGame.pressIcon(Icons.IconType.CLIMB);
+                                    break;
+                                case FLOATER:
+                                    LemGame.pressIcon(Icons.IconType.FLOAT);
+                                    break;
+                                case OHNOER:
+                                    LemGame.pressIcon(Icons.IconType.BOMB);
+                                    break;
+                                case BLOCKER:
+                                    LemGame.pressIcon(Icons.IconType.BLOCK);
+                                    break;
+                                case BUILDER:
+                                    LemGame.pressIcon(Icons.IconType.BUILD);
+                                    break;
+                                case BASHER:
+                                    LemGame.pressIcon(Icons.IconType.BASH);
+                                    break;
+                                case MINER:
+                                    LemGame.pressIcon(Icons.IconType.MINE);
+                                    break;
+                                case DIGGER:
+                                    LemGame.pressIcon(Icons.IconType.DIG);
+                                    break;
+                                default:
+                                    break;
+                            }
+                            lemmSkillOld = lemmSkill;
+                        }
+                        break;
+                    }
+                    case ReplayStream.END:
+                        stopReplayMode = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.REPLAY);
+        }
+
+        // store locally to avoid it's overwritten amidst function
+        boolean nukeTemp = nuke;
+
+        // time
+        secondCtr++;
+        if (secondCtr > ((superLemming && forceNormalTimerSpeed)
+                ? MAX_SUPERLEMMING_SECOND_CTR[time % MAX_SUPERLEMMING_SECOND_CTR.length]
+                : MAX_SECOND_CTR[time % MAX_SECOND_CTR.length])) {
+            // one second passed
+            secondCtr -= (superLemming && forceNormalTimerSpeed)
+                    ? MAX_SUPERLEMMING_SECOND_CTR[time % MAX_SUPERLEMMING_SECOND_CTR.length]
+                    : MAX_SECOND_CTR[time % MAX_SECOND_CTR.length];
+
+            if (timed) {
+                if (time > 0) {
+                    time--;
+                }
+            } else {
+                time++;
+            }
+            if (!Core.player.isDebugMode() && time <= 0 && timed) {
+                // level failed
+                LemGame.endLevel();
+            }
+        }
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.TIMER);
+        }
+        // release
+        if (entranceOpened && !nukeTemp && numLemmingsOut < numLemmingsMax && --releaseCtr <= 0) {
+            releaseCtr = releaseBase;
+            if (level.getNumEntrances() != 0) {
+                Level.Entrance e = level.getEntrance(trapDoor.getNext());
+                Lemming l = new Lemming(e.xPos + 2, e.yPos + Lemming.HEIGHT, e.leftEntrance ? Lemming.Direction.LEFT : Lemming.Direction.RIGHT);
+                lemmings.add(l);
+                numLemmingsOut++;
+            }
+        }
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.RELEASE);
+        }
+        // nuking
+        if (nukeTemp && ((updateCtr & 1) == 1)) {
+            Lemming l = lemmings.nextToNuke();
+            if (l != null) {
+                l.setSkill(Lemming.Type.NUKE, false);
+            }
+        }
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.NUKE);
+        }
+
+        if (!startSoundPlayed) {
+            if (++startSoundCtr == MAX_START_SOUND_CTR) {
+                //show the Let's Go graphic several times
+                for( SpriteObject spr : entranceSprites) {
+                    //display the graphic right below the opening sprite.
+                    int y = spr.getY() + spr.getHeight() + (Vsfx.IMG_HEIGHT/2);
+                    LemGame.sound.playVisualSFXSilent(Sound.Effect.START, spr.midX(), y);
+                }
+                //play the actual sfx only once
+                LemGame.sound.play(Sound.Effect.START);
+                startSoundPlayed = true;
+            }
+        }
+        // open trap doors?
+        if (!entranceOpened) {
+            if (++entranceOpenCtr == MAX_ENTRANCE_OPEN_CTR) {
+                for (int i = 0; i < level.getNumSprObjects(); i++) {
+                    SpriteObject spr = level.getSprObject(i);
+                    if (spr != null && spr.getAnimMode() == Sprite.Animation.ONCE_ENTRANCE) {
+                        spr.setAnimMode(Sprite.Animation.ONCE);
+                    }
+                }
+                level.openBackgroundEntrances();
+                // play the *creak* sound only once, not per-sprite
+                entranceSprites.stream().findAny().ifPresent(LemGame.sound::play);
+            } else if (entranceOpenCtr == MAX_ENTRANCE_OPEN_CTR + 30) {
+                entranceOpened = true;
+                releaseCtr = 0; // first lemming to enter at once
+                if (!detached && LemGame.isOptionEnabled(LemGame.Option.MUSIC_ON)) {
+                    Music.play();
+                }
+            }
+        }
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.ENTRANCE);
+        }
+        // end of game conditions
+        if ((nukeTemp || numLemmingsOut == numLemmingsMax) && lemmings.isEmpty()) {
+            // End the level only if no objects are triggered.
+            if (!level.isAnySprObjectTriggered()) {
+                LemGame.endLevel();
+            }
+        }
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.END_CHECK);
+        }
+
+        //animate Lemmings, then remove the ones that died or exited
+        for (int i = 0; i < lemmings.size(); i++) {
+            Lemming l = lemmings.get(i);
+            l.animate();
+            lemmings.moved(l);
+        }
+        lemmings.removeFinished();
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.LEMMINGS);
+        }
+
+        //animate or remove Explosions
+        for (Iterator<Explosion> it = explosions.iterator(); it.hasNext(); ) {
+            Explosion e = it.next();
+            if (e.isFinished()) {
+                it.remove();
+            } else {
+                e.update();
+            }
+        }
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.EXPLOSIONS);
+        }
+
+        //animate or remove visual sfx
+        for (Iterator<Vsfx> it = vsfxs.iterator(); it.hasNext(); ) {
+            Vsfx l = it.next();
+            l.animate();
+            if (l.hasFinished()) {
+                it.remove();
+            }
+        }
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.VSFX);
+        }
+
+        // animate level objects
+        level.animateSprObjects();
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.SPRITES);
+        }
+        level.advanceBackgroundFrame();
+        if (prof != null) {
+            prof.lap(UpdateProfiler.Phase.BACKGROUND);
+        }
+
+        if (!replayMode) {
+            assignSkill(true); // 2nd try to assign skill
+        }
+
+        replayFrame++;
+
+        stateHash = hashState();
+        if (!cheatWasActivated && !replay.putStateHash(replayFrame, (int) (stateHash ^ (stateHash >>> 32)), stateHashInterval)
+                && desyncFrame < 0) {
+            desyncFrame = replayFrame;
+            if (!detached) {
+                Core.setWindowCaption("RetroLemmini - Replay desync detected at frame " + replayFrame);
+            }
+        }
+
+        if (rewindBuffer != null && (gameMode != LemGame.GameMode.REPLAY_CHECK || rewinding)
+                && rewindBuffer.isDue(replayFrame)) {
+            rewindBuffer.capture(this);
+        }
+        if (checkpointInterval > 0 && rewindBuffer != null && !cheatWasActivated
+                && (gameMode != LemGame.GameMode.REPLAY_CHECK || rewinding)
+                && replayFrame % checkpointInterval == 0 && !replay.hasCheckpoint(replayFrame)) {
+            ReplayCheckpoint cp = rewindBuffer.createCheckpoint(this);
+            if (cp != null) {
+                replay.addCheckpoint(cp);
+            }
+        }
+
+        if (prof != null) {
+            prof.end();
+        }
+    }
+
+    /**
+     * Write the update profile to the settings folder.
+     */
+    private void exportProfile(final UpdateProfiler prof) {
+        Path file = Core.settingsPath.resolve(String.format(Locale.ROOT, "profile_%tY%<tm%<td_%<tH%<tM%<tS.csv", new Date()));
+        try {
+            prof.export(file);
+            System.out.println("update profile saved to " + file);
+        } catch (IOException ex) {
+            System.out.println("unable to save update profile: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Jump to the requested frame: restore the nearest snapshot or replay checkpoint
+     * and simulate the remaining frames from the replay.
+     * Going forward is only possible while a replay is played back.
+     * @return true if the state was changed
+     */
+    synchronized boolean seek() {
+        int target = seekRequest;
+        seekRequest = -1;
+        int currentFrame = replayFrame;
+        if (rewindBuffer == null || target < 0 || target == currentFrame
+                || (target > currentFrame && (!replayMode || cheatWasActivated))) {
+            return false;
+        }
+        // the replay was cleared if cheats were used, so only snapshots can be restored
+        ReplayCheckpoint cp = cheatWasActivated ? null : replay.getCheckpoint(target);
+        // going forward, the current state is the nearest snapshot
+        int snapFrame = (target < currentFrame) ? rewindBuffer.findSnapshot(target) : currentFrame;
+        int restored = -1;
+        if (cp != null && cp.frame > snapFrame) {
+            restored = rewindBuffer.restoreCheckpoint(this, cp);
+        }
+        if (restored < 0) {
+            restored = (target < currentFrame) ? rewindBuffer.restore(this, target) : currentFrame;
+        }
+        if (restored < 0) {
+            return false;
+        }
+        if (!cheatWasActivated) {
+            if (!replayMode) {
+                // like a restart with replay: play back the recorded actions up to the current frame
+                replay.addEndEvent(currentFrame);
+            }
+            replayMode = true;
+            stopReplayMode = false;
+            LemGame.GameMode oldMode = gameMode;
+            boolean oldPaused = paused;
+            gameMode = LemGame.GameMode.REPLAY_CHECK; // mute sounds and icons
+            paused = false;
+            rewinding = true;
+            try {
+                while (replayFrame < target && !stopReplayMode) {
+                    update();
+                }
+            } finally {
+                rewinding = false;
+                gameMode = oldMode;
+                paused = oldPaused;
+            }
+        }
+        xPosOld = xPos;
+        yPosOld = yPos;
+        return true;
+    }
+
+    /**
+     * Mix a value into a state hash.
+     */
+    static long mixHash(final long h, final long v) {
+        return Long.rotateLeft(h ^ v, 27) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Calculate the state hash after the current frame from the previous one and
+     * everything the simulation depends on. Only the terrain modifications are hashed
+     * instead of the terrain itself. Of the sprite objects only the triggered ones matter,
+     * since a Lemming can't trigger them again until their animation has finished.
+     */
+    private long hashState() {
+        long h = mixHash(stateHash, replayFrame);
+        h = mixHash(h, terrainHash);
+        h = mixHash(h, ((long) numExited << 32) | (numLemmingsOut & 0xffffffffL));
+        h = mixHash(h, ((long) releaseRate << 32) | (time & 0xffffffffL));
+        h = mixHash(h, ((long) releaseCtr << 32) | (secondCtr & 0xffffffffL));
+        h = mixHash(h, ((long) numClimbers << 32) | (numFloaters & 0xffffffffL));
+        h = mixHash(h, ((long) numBombers << 32) | (numBlockers & 0xffffffffL));
+        h = mixHash(h, ((long) numBuilders << 32) | (numBashers & 0xffffffffL));
+        h = mixHash(h, ((long) numMiners << 32) | (numDiggers & 0xffffffffL));
+        h = mixHash(h, ((long) trapDoor.getCounter() << 32) | (nuke ? 1 : 0) | (entranceOpened ? 2 : 0));
+        h = mixHash(h, lemmings.size());
+        for (Lemming l : lemmings) {
+            h = l.hashState(h);
+        }
+        for (int n = level.nextTriggeredSprObject(0); n >= 0; n = level.nextTriggeredSprObject(n + 1)) {
+            h = mixHash(h, ((long) n << 32) | level.getSprObject(n).getFrameIdx());
+        }
+        return h;
+    }
+
+    /**
+     * Terrain inside the given rectangle was changed.
+     */
+    void terrainChanged(final int x, final int y, final int w, final int h) {
+        terrainHash = mixHash(terrainHash, ((long) x << 48) ^ ((long) y << 32) ^ ((long) w << 16) ^ h);
+        if (rewindBuffer != null) {
+            rewindBuffer.markDirty(x, y, w, h);
+        }
+        if (terrainJournal != null) {
+            terrainJournal.add(x, y, w, h);
+        }
+    }
+
+    /**
+     * Assign the selected skill to the selected Lemming.
+     */
+    private void assignSkill(final boolean delete) {
+        if (lemmSkillRequest == null || lemmSkill == null) {
+            return;
+        }
+
+        Lemming lemm = lemmSkillRequest;
+        if (delete) {
+            lemmSkillRequest = null;
+        }
+
+        boolean canSet = false;
+        stopReplayMode();
+
+        if (Core.player.isDebugMode()) {
+            canSet = lemm.setSkill(lemmSkill, true);
+        } else {
+            switch (lemmSkill) {
+                case CLIMBER:
+                    if (tryAssignSkill(lemm, lemmSkill, numClimbers)) {
+                        if (numClimbers != Integer.MAX_VALUE) numClimbers--;
+                        canSet = true;
+                    }
+                    break;
+                case FLOATER:
+                    if (tryAssignSkill(lemm, lemmSkill, numFloaters)) {
+                        if (numFloaters != Integer.MAX_VALUE) numFloaters--;
+                        canSet = true;
+                    }
+                    break;
+                case OHNOER:
+                    if (tryAssignSkill(lemm, lemmSkill, numBombers)) {
+                        if (numBombers != Integer.MAX_VALUE) numBombers--;
+                        canSet = true;
+                    }
+                    break;
+                case BLOCKER:
+                    if (tryAssignSkill(lemm, lemmSkill, numBlockers)) {
+                        if (numBlockers != Integer.MAX_VALUE) numBlockers--;
+                        canSet = true;
+                    }
+                    break;
+                case BUILDER:
+                    if (tryAssignSkill(lemm, lemmSkill, numBuilders)) {
+                        if (numBuilders != Integer.MAX_VALUE) numBuilders--;
+                        canSet = true;
+                    }
+                    break;
+                case BASHER:
+                    if (tryAssignSkill(lemm, lemmSkill, numBashers)) {
+                        if (numBashers != Integer.MAX_VALUE) numBashers--;
+                        canSet = true;
+                    }
+                    break;
+                case MINER:
+                    if (tryAssignSkill(lemm, lemmSkill, numMiners)) {
+                        if (numMiners != Integer.MAX_VALUE) numMiners--;
+                        canSet = true;
+                    }
+                    break;
+                case DIGGER:
+                    if (tryAssignSkill(lemm, lemmSkill, numDiggers)) {
+                        if (numDiggers != Integer.MAX_VALUE) numDiggers--;
+                        canSet = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (canSet) {
+            lemmSkillRequest = null; // erase request
+            lemmings.moved(lemm);
+            if (paused && LemGame.isOptionEnabled(LemGame.Option.UNPAUSE_ON_ASSIGNMENT)) {
+                paused = false;
+                LemGame.pressIcon(Icons.IconType.PAUSE);
+            }
+            // add to replay stream
+            if (!cheatWasActivated) {
+                int idx = lemmings.indexOf(lemm);
+                if (idx != StringUtils.INDEX_NOT_FOUND) {
+                    // if 2nd try (delete == true) assign to next frame
+                    replay.addAssignSkillEvent(replayFrame + ((delete) ? 1 : 0), lemmSkill, idx);
+                }
+            }
+        } else if (!delete) {
+            lemmSkillRequest = null;
+        }
+    }
+
+    private boolean tryAssignSkill(Lemming lemm, Lemming.Type skill, int availableCount) {
+        if (availableCount > 0) {
+            if (lemm.setSkill(skill, true)) {
+                if (availableCount != Integer.MAX_VALUE) {
+                    numSkillsUsed++;
+                }
+                return true;
+            }
+        } else {
+            if (!LemGame.attemptingHoldToAssign) {
+                LemGame.sound.play(Sound.Effect.INVALID, lemm.getPan());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calculate the counter threshold for releasing a new Lemmings.
+     */
+    void calcReleaseBase() {
+        // the original formula is: release lemming every (107-releaseRate)/2 time steps
+        // where one step is 60ms (3s/50) or 66ms (4s/60).
+        // Lemmini runs at 30ms/33ms, so the term has to be multiplied by 2
+        // 107-releaseRate should be correct
+        releaseBase = 107 - releaseRate;
+    }
+
+    /**
+     * Activate the nuke.
+     */
+    void nuke() {
+        nuke = true;
+        LemGame.sound.play(Sound.Effect.NUKE);
+    }
+
+    /**
+     * Lemming has exited the Level.
+     */
+    synchronized void increaseExited() {
+        numExited++;
+        timeElapsedTillLastExited = time;
+    }
+
+    /**
+     * Stop replay.
+     */
+    void stopReplayMode() {
+        if (replayMode) {
+            replay.clearFrom(replayFrame);
+            replayMode = false;
+            stopReplayMode = false;
+            if (!detached) {
+                LemGame.replayCaption = null;
+                LemGame.setLevelTitle();
+            }
+        }
+    }
+
+    /**
+     * Record the end of the level and set the replay check result if a check is running.
+     */
+    synchronized void endLevel() {
+        if (gameMode == LemGame.GameMode.REPLAY_CHECK) {
+            replayResult = saveRequirementMet() ? ReplayChecker.ReplayResult.PASS : ReplayChecker.ReplayResult.FAIL;
+        }
+
+        if (!replayMode && !cheatWasActivated) {
+            replay.addEndEvent(replayFrame);
+        }
+
+        if (replayMode) {
+            cancelAutosave = true;
+        }
+    }
+
+    /**
+     * Get save requirement state.
+     */
+    boolean saveRequirementMet() {
+        return numExited >= numToRescue;
+    }
+
+    /**
+     * Set horizontal scrolling offset.
+     */
+    void setXPos(final int x) {
+        if (width < Core.getDrawWidth()) {
+            xPos = (width - Core.getDrawWidth()) / 2;
+        } else if (x >= width - Core.getDrawWidth()) {
+            xPos = width - Core.getDrawWidth();
+        } else if (x < 0) {
+            xPos = 0;
+        } else {
+            xPos = x;
+        }
+    }
+
+    /**
+     * Set vertical scrolling offset.
+     */
+    void setYPos(final int y) {
+        if (height < LemminiFrame.LEVEL_HEIGHT) {
+            yPos = height - LemminiFrame.LEVEL_HEIGHT;
+        } else if (y >= height - LemminiFrame.LEVEL_HEIGHT) {
+            yPos = height - LemminiFrame.LEVEL_HEIGHT;
+        } else if (y < 0) {
+            yPos = 0;
+        } else {
+            yPos = y;
+        }
+    }
+
+    /**
+     * Get level object.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the replay stream of this session.
+     */
+    public ReplayStream getReplay() {
+        return replay;
+    }
+
+    /**
+     * Get number of Lemmings that exited the level.
+     */
+    public int getNumExited() {
+        return numExited;
+    }
+
+    /**
+     * Get number of Lemmings to rescue.
+     */
+    public int getNumToRescue() {
+        return numToRescue;
+    }
+
+    /**
+     * Get the replay check result.
+     */
+    public ReplayChecker.ReplayResult getReplayResult() {
+        return replayResult;
+    }
+
+    /**
+     * Get the level record for this session.
+     */
+    public LevelRecord getLevelRecord() {
+        if (saveRequirementMet() && !cheatWasActivated) {
+            return new LevelRecord(true, numExited, numSkillsUsed,
+                    timed ? (timeLimit - timeElapsedTillLastExited) : time, getScore());
+        } else {
+            return LevelRecord.BLANK_LEVEL_RECORD;
+        }
+    }
+
+    int getScore() {
+        return numExited * 100 / numLemmingsMax * 100 + numClimbers + numFloaters + numBombers +
+                numBlockers + numBuilders + numBashers + numMiners + numDiggers;
+    }
+}
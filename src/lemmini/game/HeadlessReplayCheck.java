@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lemmini.game;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks all replays of a folder without creating any window, sound or music.
+ * Used by the --verify-replays command line option.
+ * @author Will James
+ */
+public final class HeadlessReplayCheck {
+
+    /** exit code: all replays passed */
+    public static final int EXIT_PASS = 0;
+    /** exit code: at least one replay failed, desynced, timed out or could not be checked */
+    public static final int EXIT_FAIL = 1;
+    /** exit code: invalid arguments or the game could not be initialized */
+    public static final int EXIT_ERROR = 2;
+
+    /** result string for replays that could not be loaded or matched to a level */
+    private static final String ERROR = "ERROR";
+
+    private HeadlessReplayCheck() {
+    }
+
+    /**
+     * Check all replays in the given folder and write a report.
+     * @param gameFolder folder containing the game (and its settings and resources folders)
+     * @param replayFolder folder containing the replays to check
+     * @param json true to write JSON, false to write CSV
+     * @param output report file or null to write the report to stdout
+     * @return exit code
+     */
+    public static int run(final String gameFolder, final Path replayFolder, final boolean json, final Path output) {
+        // keep stdout clean for the report, all logging goes to stderr
+        PrintStream report = System.out;
+        System.setOut(System.err);
+
+        if (!Files.isDirectory(replayFolder)) {
+            System.err.println("replay folder not found: " + replayFolder);
+            return EXIT_ERROR;
+        }
+
+        List<Path> replayFiles;
+        try (Stream<Path> stream = Files.list(replayFolder)) {
+            replayFiles = stream
+                .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".rpl"))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException ex) {
+            System.err.println("unable to read replay folder: " + ex.getMessage());
+            return EXIT_ERROR;
+        }
+
+        try {
+            Core.setJarDirectory(gameFolder);
+            if (!Core.init(gameFolder, true)) {
+                return EXIT_ERROR;
+            }
+            LemGame.initHeadless();
+        } catch (Exception ex) {
+            System.err.println("initialization failed: " + ex.getMessage());
+            return EXIT_ERROR;
+        }
+        // desyncs are only found if the state hash covers the whole Lemming state
+        if (!Lemming.checkHashState()) {
+            System.err.println("state hash doesn't distinguish Lemming types or directions");
+            return EXIT_ERROR;
+        }
+
+        int threads = Core.programProps.getInt("replayCheckThreads", Runtime.getRuntime().availableProcessors());
+        List<ReplayChecker.ReplayCheckResult> results = ReplayChecker.checkAll(replayFiles, threads,
+                (replayPath, done) -> System.err.println(String.format("[%d/%d] %s", done, replayFiles.size(), replayPath.getFileName())));
+
+        Map<Path, ReplayChecker.ReplayCheckResult> resultMap = new HashMap<>();
+        results.forEach(r -> resultMap.put(r.getReplayPath(), r));
+
+        StringBuilder sb = new StringBuilder();
+        boolean allPassed = true;
+        if (json) {
+            sb.append("[\n");
+        } else {
+            sb.append("replay,result,saved,required,time,desync\n");
+        }
+        for (int i = 0; i < replayFiles.size(); i++) {
+            Path replayPath = replayFiles.get(i);
+            ReplayChecker.ReplayCheckResult r = resultMap.get(replayPath);
+            String name = replayPath.getFileName().toString();
+            String result = (r == null) ? ERROR : r.getReplayResult().name();
+            int saved = (r == null) ? 0 : r.getLemsSaved();
+            int required = (r == null) ? 0 : r.getSaveRequirement();
+            int time = (r == null) ? 0 : r.getTimeElapsed();
+            int desync = (r == null) ? -1 : r.getDesyncFrame();
+            // a desync means the simulation changed since the replay was recorded, even if it still passes
+            allPassed &= (r != null && r.getReplayResult() == ReplayChecker.ReplayResult.PASS && desync < 0);
+            if (json) {
+                sb.append(String.format("  {\"replay\": \"%s\", \"result\": \"%s\", \"saved\": %d, \"required\": %d, \"time\": %d, \"desync\": %s}%s%n",
+                        escapeJson(name), result, saved, required, time, (desync < 0) ? "null" : Integer.toString(desync),
+                        (i < replayFiles.size() - 1) ? "," : ""));
+            } else {
+                sb.append(String.format("%s,%s,%d,%d,%d,%s%n", escapeCsv(name), result, saved, required, time,
+                        (desync < 0) ? "" : Integer.toString(desync)));
+            }
+        }
+        if (json) {
+            sb.append("]\n");
+        }
+
+        try {
+            if (output == null) {
+                report.print(sb);
+                report.flush();
+            } else {
+                Files.writeString(output, sb, StandardCharsets.UTF_8);
+            }
+        } catch (IOException ex) {
+            System.err.println("unable to write report: " + ex.getMessage());
+            return EXIT_ERROR;
+        }
+
+        System.err.println(String.format("%d replays checked, %d passed", replayFiles.size(),
+                results.stream().filter(r -> r.getReplayResult() == ReplayChecker.ReplayResult.PASS).count()));
+        return allPassed ? EXIT_PASS : EXIT_FAIL;
+    }
+
+    private static String escapeJson(final String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String escapeCsv(final String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0) {
+            return s;
+        }
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -181,6 +181,14 @@ public class LemCursor  {
         box = b;
     }
 
+    /**
+     * Get the largest horizontal or vertical distance in pixels between cursor and Lemming
+     * for which doesCollide() is true.
+     */
+    public static int getHitDistance() {
+        return HIT_DISTANCE;
+    }
+
     /**
      * Check if a Lemming is under the cursor.
      */
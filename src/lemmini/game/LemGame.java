@@ -27,10 +27,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -42,7 +39,6 @@ import java.util.TreeSet;
 import javax.swing.JOptionPane;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 
 import lemmini.LemminiFrame;
@@ -51,8 +47,6 @@ import lemmini.extract.ExtractLevel;
 import lemmini.game.Lemming.Direction;
 import lemmini.gameutil.Fader;
 import lemmini.gameutil.Hotkey;
-import lemmini.gameutil.KeyRepeat;
-import lemmini.gameutil.Sprite;
 import lemmini.graphics.GraphicsContext;
 import lemmini.graphics.LemImage;
 import lemmini.sound.Music;
@@ -204,9 +198,11 @@ public class LemGame {
         REPLAY_CHECK
     }
 
-    private static GameMode gameMode = GameMode.NORMAL;
-    private static ReplayChecker.ReplayResult replayResult;
-    
+    /** simulation state of the level shown in the UI */
+    private static final GameSession mainSession = GameSession.create(false);
+    /** simulation state bound to a worker thread (e.g. background replay check) */
+    private static final ThreadLocal<GameSession> boundSession = new ThreadLocal<>();
+
     /** list of currently-active hotkeys */
     public static List<Hotkey> activeHotkeys;
 
@@ -221,31 +217,27 @@ public class LemGame {
     public static final int FASTER_FAST_FWD_MULTI = 6;
     /** updates 9 frames instead of 1 in turbo mode */
     public static final int TURBO_MULTI = 9;
+    /** time between two drawn frames in max speed mode in nanoseconds */
+    public static final long NANOSEC_MAX_SPEED_FRAME = 100_000_000;
     /** updates 3 frames instead of 1 in Superlemming mode */
     public static final int SUPERLEMM_MULTI = 3;
+    /** seconds to go back or forward with the rewind and skip forward hotkeys */
+    public static final int DEFAULT_REWIND_SECONDS = 5;
     /** time per frame in nanoseconds - this is the timing everything else is based on */
     public static final long NANOSEC_PER_FRAME = 30_000_000;
     /** redraw animated level objects every 2nd frame (about 60ms) */
     public static final int MAX_ANIM_CTR = 2;
 
-    private static final int MAX_START_SOUND_CTR = 28;
-    /** open entrance after about 2 seconds */
-    private static final int MAX_ENTRANCE_OPEN_CTR = 72;
-    /** one second is 33.333 ticks */
-    private static final int[] MAX_SECOND_CTR = {34, 33, 33};
-    /** one second in superlemming mode is 100 ticks */
-    private static final int[] MAX_SUPERLEMMING_SECOND_CTR = {100};
-
     /** nuke icon: maximum time between two mouse clicks for double click detection (in nanoseconds) */
     private static final long NANOSEC_NUKE_DOUBLE_CLICK = 240_000_000;
     /** restart icon: maximum time between two mouse clicks for double click detection (in nanoseconds) */
     private static final long NANOSEC_RESTART_DOUBLE_CLICK = 240_000_000;
     /** +/- icons: maximum time between two mouse clicks for double click detection (in nanoseconds) */
-    private static final long NANOSEC_RELEASE_DOUBLE_CLICK = 200_000_000;
+    static final long NANOSEC_RELEASE_DOUBLE_CLICK = 200_000_000;
     /** +/- icons: time for key repeat to kick in */
-    private static final long NANOSEC_KEYREPEAT_START = 88_000_000;
+    static final long NANOSEC_KEYREPEAT_START = 88_000_000;
     /** +/- icons: time for key repeat rate */
-    private static final long NANOSEC_KEYREPEAT_REPEAT = 39_000_000;
+    static final long NANOSEC_KEYREPEAT_REPEAT = 39_000_000;
     
     private static final int TOP_BOUNDARY = 2;
     private static final int BOTTOM_BOUNDARY = 20;
@@ -265,10 +257,6 @@ public class LemGame {
     /** sound object */
     public static Sound sound;
 
-    /** the foreground stencil */
-    private static Stencil stencil;
-    /** the foreground image */
-    private static LemImage fgImage;
     /** options set */
     private static final Set<Option> options = EnumSet.noneOf(Option.class);
     /** 3-way option for setting the Exit sound */
@@ -279,41 +267,15 @@ public class LemGame {
     /** flag: fast forward mode is active */
     private static boolean fastForward;
     private static boolean turbo;
+    /** flag: max speed mode is active */
+    private static volatile boolean maxSpeed;
+    /** speed reached in max speed mode, as a multiple of normal speed */
+    private static volatile int maxSpeedFactor;
     private static boolean verticalLock;
-    /** flag: Direct Drop is active */
-    private static boolean directDrop;
-    /** flag: Superlemming mode is active */
-    private static boolean superLemming;
-    private static boolean forceNormalTimerSpeed;
     /** game state */
     private static State gameState;
     /** transition (fading) state */
     private static TransitionState transitionState;
-    /** skill to assign to lemming (skill icon) */
-    private static Lemming.Type lemmSkill;
-    /** flag: entrances is opened */
-    private static boolean entranceOpened;
-    /** flag: nuke was activated */
-    private static boolean nuke;
-    /** flag: game is paused */
-    private static boolean paused;
-    /** flag: debug or max exit physics mode was activated during play */
-    private static boolean cheatWasActivated = false;
-    /** flag: force physics update */
-    private static boolean forceAdvanceFrame = false;
-    /** frame counter for handling opening of entrances */
-    private static int entranceOpenCtr;
-    private static int startSoundCtr;
-    private static boolean startSoundPlayed;
-    private static final Set<SpriteObject> entranceSprites = new HashSet<>();
-    /** frame counter for handling time */
-    private static int secondCtr;
-    /** frame counter used to handle release of new Lemmings */
-    private static int releaseCtr;
-    /** threshold to release a new Lemming */
-    private static int releaseBase;
-    /** level object */
-    private static Level level;
     /** index of current rating */
     private static int curRating;
     /** index of current level pack */
@@ -327,14 +289,12 @@ public class LemGame {
     /** index of next level */
     private static int nextLevelNumber;
     private static List<String> modPaths;
-    /** list of all active Lemmings in the Level */
-    private static final List<Lemming> lemmings = new LinkedList<>();
-    /** list of all active explosions */
-    private static final List<Explosion> explosions = new LinkedList<>();
     /** list of all Lemmings under the mouse cursor */
     private static final Queue<Lemming> lemmsUnderCursor = Collections.asLifoQueue(new ArrayDeque<Lemming>(128));
-    /** list of all active Visual SFX */
-    private static final List<Vsfx> vsfxs = new LinkedList<>();
+    /** color of the foot position drawn in debug mode */
+    static final Color DEBUG_FOOT_COLOR = new Color(255, 0, 255); // Magenta
+    /** Lemmings near the mouse cursor, reused by updateLemmsUnderCursor() */
+    private static final List<Lemming> lemmsNearCursor = new ArrayList<>(128);
     /** array of available level packs */
     public static List<LevelPack> levelPacks;
     public static Set<ExternalLevelEntry> externalLevelList;
@@ -344,81 +304,10 @@ public class LemGame {
     private static NanosecondTimer timerNuke;
     /** timer used for restart icon */
     private static NanosecondTimer timerRestart;
-    /** key repeat object for plus key/icon */
-    private static KeyRepeat plus;
-    /** key repeat object for minus key/icon */
-    private static KeyRepeat minus;
-    /** Lemming for which skill change is requested */
-    private static Lemming lemmSkillRequest;
-    /** horizontal scrolling offset for level */
-    private static int xPos;
-    private static int xPosCenter;
-    /** vertical scrolling offset for level */
-    private static int yPos;
-    private static int yPosCenter;
-    /** replay stream used for handling replays */
-    private static ReplayStream replay;
-    /** frame counter used for handling replays */
-    private static int replayFrame;
-    /** old value of release rate */
-    private static int releaseRateOld;
-    /** old value of nuke flag */
-    private static boolean nukeOld;
-    /** old value of horizontal scrolling position */
-    private static int xPosOld;
-    /** old value of vertical scrolling position */
-    private static int yPosOld;
-    /** old value of selected skill */
-    private static Lemming.Type lemmSkillOld;
-    /** flag: replay mode is active */
-    private static boolean replayMode;
-    /** flag: replay mode should be stopped */
-    private static boolean stopReplayMode;
-    /** flag: cancel autosave if replay mode is active at the end of the level */
-    public static boolean cancelAutosave;
-    /** flag: replay autosaved successfully */
-    private static boolean replayAutosaved;
-    /** number of Lemmings which exited the level */
-    private static int numExited;
-    /** release rate */
-    private static int releaseRate;
-    private static boolean lockReleaseRate;
-    /** number of Lemmings available */
-    private static int numLemmingsMax;
-    /** number of Lemmings who entered the level */
-    private static int numLemmingsOut;
-    /** number of Lemmings which have to be rescued to finish the level */
-    private static int numToRescue;
-    /** time left in seconds */
-    private static int time;
-    private static int timeLimit;
-    private static int timeElapsedTillLastExited;
-    private static boolean timed;
-    /** number of climber skills left to be assigned */
-    private static int numClimbers;
-    /** number of floater skills left to be assigned */
-    private static int numFloaters;
-    /** number of bomber skills left to be assigned */
-    private static int numBombers;
-    /** number of blocker skills left to be assigned */
-    private static int numBlockers;
-    /** number of builder skills left to be assigned */
-    private static int numBuilders;
-    /** number of basher skills left to be assigned */
-    private static int numBashers;
-    /** number of miner skills left to be assigned */
-    private static int numMiners;
-    /** number of digger skills left to be assigned */
-    private static int numDiggers;
-    private static int numSkillsUsed;
-    /** free running update counter */
-    private static int updateCtr;
     /** gain for sound 0-2.0 */
     private static double soundGain = 1.0;
     /** gain for music 0-2.0 */
     private static double musicGain = 1.0;
-    private static int width = Level.DEFAULT_WIDTH;
-    private static int height = Level.DEFAULT_HEIGHT;
     private static int timesFailed;
     
     private static String lemmNames;
@@ -438,25 +327,78 @@ public class LemGame {
     private static boolean ctrlPressed;
     /** flag: alt key is pressed */
     private static boolean altPressed;
+    /** flag: running without GUI, only level simulation is available */
+    private static boolean headless;
 
     /**
      * Initialization.
      */
     public static void init() throws ResourceException {
         System.out.println("initializing LemGame...");
-        width = Level.DEFAULT_WIDTH;
-        height = Level.DEFAULT_HEIGHT;
+        mainSession.width = Level.DEFAULT_WIDTH;
+        mainSession.height = Level.DEFAULT_HEIGHT;
 
-        fgImage = ToolBox.createLemImage(width, height);
+        mainSession.fgImage = ToolBox.createLemImage(mainSession.width, mainSession.height);
 
         gameState = State.INIT;
 
-        plus  = new KeyRepeat(NANOSEC_KEYREPEAT_START, NANOSEC_KEYREPEAT_REPEAT, NANOSEC_RELEASE_DOUBLE_CLICK);
-        minus = new KeyRepeat(NANOSEC_KEYREPEAT_START, NANOSEC_KEYREPEAT_REPEAT, NANOSEC_RELEASE_DOUBLE_CLICK);
         timerNuke = new NanosecondTimer();
         timerRestart = new NanosecondTimer();
 
-        // read level packs
+        loadLevelPacks();
+        modPaths = levelPacks.get(curLevelPack).getModPaths();
+
+        sound = new Sound();
+        sound.setGain(soundGain);
+        Icons.init();
+        Explosion.init();
+        Lemming.loadLemmings();
+        mainSession.lemmSkillRequest = null;
+
+        MiscGfx.init(ToolBox.scale(mainSession.width, 1.0 / 16.0));
+        LemFont.init();
+        TextScreen.init();
+        NumFont.init();
+        LemCursor.init();
+        Music.init();
+        Music.setGain(musicGain);
+
+        timesFailed = 0;
+        mainSession.numSkillsUsed = 0;
+
+        mainSession.replayFrame = 0;
+        mainSession.replay.clear();
+        mainSession.replayMode = false;
+        mainSession.stopReplayMode = false;
+
+        mainSession.cheatWasActivated = Core.player.isDebugMode() || Core.player.isMaximumExitPhysics();
+
+        System.out.println("LemGame initialization complete.");
+    }
+
+    /**
+     * Initialization without any GUI, music or audio output.
+     * Only the resources needed to simulate levels are loaded.
+     */
+    public static void initHeadless() throws ResourceException {
+        System.out.println("initializing LemGame (headless)...");
+        headless = true;
+        gameState = State.INIT;
+
+        loadLevelPacks();
+        modPaths = levelPacks.get(curLevelPack).getModPaths();
+
+        sound = new Sound(true);
+        Explosion.init();
+        Lemming.loadLemmings();
+
+        System.out.println("LemGame initialization complete.");
+    }
+
+    /**
+     * Read the external level list and all level packs in the resource tree.
+     */
+    private static void loadLevelPacks() {
         levelPacks = new ArrayList<>(32);
         externalLevelList = new LinkedHashSet<>();
         LevelPack externalLevels = new LevelPack();
@@ -500,34 +442,6 @@ public class LemGame {
         curRating = 0;
         curLevelPack = 0;
         curLevelNumber = 0;
-        modPaths = levelPacks.get(curLevelPack).getModPaths();
-
-        sound = new Sound();
-        sound.setGain(soundGain);
-        Icons.init();
-        Explosion.init();
-        Lemming.loadLemmings();
-        lemmSkillRequest = null;
-
-        MiscGfx.init(ToolBox.scale(width, 1.0 / 16.0));
-        LemFont.init();
-        TextScreen.init();
-        NumFont.init();
-        LemCursor.init();
-        Music.init();
-        Music.setGain(musicGain);
-
-        timesFailed = 0;
-        numSkillsUsed = 0;
-
-        replayFrame = 0;
-        replay = new ReplayStream();
-        replayMode = false;
-        stopReplayMode = false;
-
-        cheatWasActivated = Core.player.isDebugMode() || Core.player.isMaximumExitPhysics();
-
-        System.out.println("LemGame initialization complete.");
     }
     
     public static Path getLevelPackFolder(int levelPackIndex) {
@@ -614,16 +528,12 @@ public class LemGame {
      * Fade out at end of level.
      */
     public static synchronized void endLevel() {
-    	if (isReplayCheck()) {
-    		setReplayResult(saveRequirementMet() ? ReplayChecker.ReplayResult.PASS : ReplayChecker.ReplayResult.FAIL);
-    	}
-    	
-        if (!replayMode && !cheatWasActivated)
-            replay.addEndEvent(replayFrame);
-        
-        if (replayMode)
-        	cancelAutosave = true;
-        
+        GameSession session = getSession();
+        session.endLevel();
+        if (session.isDetached()) {
+            return;
+        }
+
         transitionState = TransitionState.END_LEVEL;
         gameState = State.LEVEL_END;
         Fader.setState(Fader.State.OUT);
@@ -633,8 +543,10 @@ public class LemGame {
      * Level successfully finished, enter postview and enable next level.
      */
     static synchronized void finishLevel() {
+        GameSession session = getSession();
         Music.close();
         setFastForward(false);
+        setMaxSpeed(false);
         setVerticalLock(false);
         setSuperLemming(false);
         setDirectDrop(LemGame.isOptionEnabled(LemGame.Option.DIRECT_DROP));
@@ -646,8 +558,8 @@ public class LemGame {
             Core.player.storePlayerRecords();
         }
 
-        replayMode = false;
-        replay.setDirectDropActive(false);
+        session.replayMode = false;
+        session.replay.setDirectDropActive(false);
         
         
         if (!isReplayCheck()) {
@@ -659,19 +571,20 @@ public class LemGame {
      * Restart level.
      */
     private static synchronized void restartLevel(final boolean doReplay, final boolean showPreview) throws LemException, ResourceException {
-        if (!replayMode && !levelPassed() && (gameState == State.LEVEL
+        GameSession session = getSession();
+        if (!session.replayMode && !levelPassed() && (gameState == State.LEVEL
                 || gameState == State.LEVEL_END
                 || gameState == State.POSTVIEW)) {
             timesFailed++;
         }
         initLevel(showPreview);
         if (doReplay) {
-            replayMode = true;
-            replay.save(Core.TEMP_PATH + "/replay.rpl");
-            replay.rewind();
+            session.replayMode = true;
+            session.replay.save(Core.TEMP_PATH + "/replay.rpl");
+            session.replay.rewind();
         } else {
-            replayMode = false;
-            replay.clear();
+            session.replayMode = false;
+            session.replay.clear();
         }
     }
 
@@ -679,113 +592,42 @@ public class LemGame {
      * Initialize a level after it was loaded.
      */
     private static synchronized void initLevel(boolean showPreview) throws LemException, ResourceException {
+        GameSession session = getSession();
         if (showPreview) {
         	Music.stop();
         }
 
         setFastForward(false);
+        setMaxSpeed(false);
         setVerticalLock(false);
-        setPaused(false);
-        nuke = false;
-
-        lemmSkillRequest = null;
 
         TextScreen.setMode(TextScreen.Mode.INIT);
-
-        lemmings.clear();
-        explosions.clear();
-        vsfxs.clear();
         Icons.reset();
 
-        plus.init();
-        minus.init();
-
-        int oldWidth = width;
-        int oldHeight = height;
-
-        numExited = 0;
-        releaseRate = level.getReleaseRate();
-        lockReleaseRate = level.isReleaseRateLocked();
-        numLemmingsMax = level.getNumLemmings();
-        numLemmingsOut = 0;
-        numToRescue = level.getNumToRescue();
-        time = level.getTimeLimitSeconds();
-        numClimbers = level.getNumClimbers();
-        numFloaters = level.getNumFloaters();
-        numBombers = level.getNumBombers();
-        numBlockers = level.getNumBlockers();
-        numBuilders = level.getNumBuilders();
-        numBashers = level.getNumBashers();
-        numMiners = level.getNumMiners();
-        numDiggers = level.getNumDiggers();
-        numSkillsUsed = 0;
-        xPosCenter = level.getXPosCenter();
-        yPosCenter = level.getYPosCenter();
-        width = level.getWidth();
-        height = level.getHeight();
-        if (time <= 0) {
-            timed = false;
-            time = 0;
-        } else {
-            timed = true;
-        }
-        timeLimit = time;
-        timeElapsedTillLastExited = 0;
-
-        level.paintLevel();
-        stencil = level.getStencil();
-        fgImage = level.getFgImage();
-
-        if (width != oldWidth || height != oldHeight) {
-            MiscGfx.setMinimapWidth(ToolBox.scale(width, 1.0 / 16.0));
-        }
+        int oldWidth = session.width;
+        int oldHeight = session.height;
 
-        TrapDoor.reset(level.getNumEntrances(), level.getEntranceOrder());
-        startSoundPlayed = false;
-        startSoundCtr = 0;
-        entranceOpened = false;
-        entranceOpenCtr = 0;
-        secondCtr = 0;
-        releaseCtr = 0;
-        lemmSkill = null;
+        session.initLevel(session.level);
+        Level level = session.level;
 
-        entranceSprites.clear();
-        for (int i = 0; i < level.getNumEntrances(); i++) {
-            SpriteObject spr = level.getSprObject(level.getEntrance(i).id);
-            if (spr != null) {
-                entranceSprites.add(spr);
-            }
+        if (session.width != oldWidth || session.height != oldHeight) {
+            MiscGfx.setMinimapWidth(ToolBox.scale(session.width, 1.0 / 16.0));
         }
 
-        calcReleaseBase();
-
-        int scaleFactorWidth = width / 800;
-        if (width % 800 != 0) {
+        int scaleFactorWidth = session.width / 800;
+        if (session.width % 800 != 0) {
             scaleFactorWidth++;
         }
-        int scaleFactorHeight = height / 80;
-        if (height % 80 != 0) {
+        int scaleFactorHeight = session.height / 80;
+        if (session.height % 80 != 0) {
             scaleFactorHeight++;
         }
         int scaleFactor = NumberUtils.max(4, scaleFactorWidth, scaleFactorHeight);
-        mapPreview = level.createMinimap(fgImage, 1.0 / scaleFactor, 1.0 / scaleFactor, true, false, true);
+        mapPreview = level.createMinimap(session.fgImage, 1.0 / scaleFactor, 1.0 / scaleFactor, true, false, true);
         Minimap.init(1.0 / 16.0, 1.0 / 8.0, !LemGame.isOptionEnabled(LemGame.Option.FULL_COLOR_MINIMAP));
 
-        boolean directDropActive = LemGame.isOptionEnabled(LemGame.Option.DIRECT_DROP);
-        boolean replayIsDirectDrop = replay.isDirectDropActive() && !directDropActive;
+        boolean replayIsDirectDrop = session.replay.isDirectDropActive() && !LemGame.isOptionEnabled(LemGame.Option.DIRECT_DROP);
         LemGame.directDropCaption = replayIsDirectDrop ? " - Direct Drop Active" : "";
-        setDirectDrop(level.isDirectDrop() || replayIsDirectDrop || directDropActive);
-        
-        setSuperLemming(level.isSuperLemming());
-        forceNormalTimerSpeed = level.getForceNormalTimerSpeed();
-
-        replayFrame = 0;
-        stopReplayMode = false;
-        replayAutosaved = false;
-        cancelAutosave = false;
-        releaseRateOld = releaseRate;
-        lemmSkillOld = lemmSkill;
-        nukeOld = false;
 
         if (showPreview) {
 	        String music = level.getMusic();
@@ -837,18 +679,17 @@ public class LemGame {
             gameState = State.LEVEL;
             transitionState = TransitionState.TO_LEVEL;
         }
-
-        cheatWasActivated = Core.player.isDebugMode() || Core.player.isMaximumExitPhysics();
     }
 
     /**
      * Request the restart of this level.
      */
     public static synchronized void requestRestartLevel(final boolean doReplay, final boolean showPreview) {
-        if (doReplay && !replayMode) {
-            replay.addEndEvent(replayFrame);
+        GameSession session = getSession();
+        if (doReplay && !session.replayMode) {
+            session.replay.addEndEvent(session.replayFrame);
         }
-        if (doReplay || replayMode) {
+        if (doReplay || session.replayMode) {
             if (showPreview) {
                 transitionState = TransitionState.REPLAY_LEVEL;
             } else {
@@ -893,6 +734,7 @@ public class LemGame {
      * Start a new level.
      */
     public static synchronized Level changeLevel(final int lPack, final int rating, final int lNum, final boolean doReplay) throws LemException, ResourceException {   	
+        GameSession session = getSession();
     	timesFailed = 0;
 
         curLevelPack = lPack;
@@ -901,13 +743,37 @@ public class LemGame {
 
         Resource lvlRes = levelPacks.get(curLevelPack).getInfo(curRating, curLevelNumber).getLevelResource();
         // loading the level will swap appropriate lemmings pixels to the correct colors
-        level = new Level(lvlRes, level);
+        session.level = new Level(lvlRes, session.level);
         
+        applyLevelMods(session.level);
+        
+        Lemming.replaceColors(session.level.getDebrisColor(), session.level.getDebrisColor2());
+
+        initLevel(true);
+
+        if (doReplay) {
+            session.replayMode = true;
+            session.replay.rewind();
+        } else {
+            session.replayMode = false;
+            session.replay.clear();
+        }
+
+        return session.level;
+    }
+
+    /**
+     * Reload all mod-dependent resources if the given level uses different mods.
+     */
+    static synchronized void applyLevelMods(final Level lvl) throws ResourceException, LemException {
         List<String> oldMods = modPaths;
-        modPaths = level.getMods(); // per-level mods override per-pack mods
-        if (!modPaths.equals(oldMods)) {
+        modPaths = lvl.getMods(); // per-level mods override per-pack mods
+        if (!modPaths.equals(oldMods) && headless) {
+            Explosion.init();
+            Lemming.loadLemmings();
+        } else if (!modPaths.equals(oldMods)) {
             sound.load();
-            MiscGfx.init(ToolBox.scale(width, 1.0 / 16.0));
+            MiscGfx.init(ToolBox.scale(getSession().width, 1.0 / 16.0));
             Icons.init();
             Explosion.init();
             LemFont.init();
@@ -916,27 +782,20 @@ public class LemGame {
             LemCursor.init();
             Lemming.loadLemmings();
         }
-        
-        Lemming.replaceColors(level.getDebrisColor(), level.getDebrisColor2());
-
-        initLevel(true);
-
-        if (doReplay) {
-            replayMode = true;
-            replay.rewind();
-        } else {
-            replayMode = false;
-            replay.clear();
-        }
+    }
 
-        return level;
+    /**
+     * Check if the game runs without GUI.
+     */
+    public static boolean isHeadless() {
+        return headless;
     }
 
     /**
      * Get level passed state.
      */
     public static synchronized boolean saveRequirementMet() {
-    	return numExited >= numToRescue;
+    	return getSession().saveRequirementMet();
     }
     
     public static synchronized boolean levelPassed() {
@@ -947,10 +806,11 @@ public class LemGame {
      * Get current replay image.
      */
     public static synchronized LemImage getReplayImage() {
-        if (!replayMode) {
+        GameSession session = getSession();
+        if (!session.replayMode) {
             return null;
         }
-        if ((replayFrame & 0x3f) > 0x20) {
+        if ((session.replayFrame & 0x3f) > 0x20) {
             return MiscGfx.getImage(MiscGfx.Index.REPLAY_1);
         } else {
             return MiscGfx.getImage(MiscGfx.Index.REPLAY_2);
@@ -961,7 +821,8 @@ public class LemGame {
      * Get a Lemming under the selection cursor.
      */
     public static synchronized Lemming lemmUnderCursor(final LemCursor.CursorType type) {
-        if (lemmSkill != null && !type.isWalkerOnly()) {
+        GameSession session = getSession();
+        if (session.lemmSkill != null && !type.isWalkerOnly()) {
             for (Lemming l : lemmsUnderCursor) {
                 if (type.isLeftOnly() && l.getDirection() != Lemming.Direction.LEFT) {
                     continue;
@@ -971,8 +832,8 @@ public class LemGame {
                 }
                 switch (l.getSkill()) {
                     case BLOCKER:
-                        if (l.getSkill() != lemmSkill && !l.getLemmingInfo().isEmpty()) {
-                            switch (lemmSkill) {
+                        if (l.getSkill() != session.lemmSkill && l.hasLemmingInfo()) {
+                            switch (session.lemmSkill) {
                                 case OHNOER:
                                     if (!l.hasTimer()) {
                                         return l;
@@ -988,8 +849,8 @@ public class LemGame {
                     case BASHER:
                     case MINER:
                     case DIGGER:
-                        if (l.getSkill() != lemmSkill && !l.getLemmingInfo().isEmpty()) {
-                            switch (lemmSkill) {
+                        if (l.getSkill() != session.lemmSkill && l.hasLemmingInfo()) {
+                            switch (session.lemmSkill) {
                                 case CLIMBER:
                                     if (!l.canClimb()) {
                                         return l;
@@ -1028,11 +889,11 @@ public class LemGame {
             }
             switch (l.getSkill()) {
                 case WALKER:
-                    if (l.getSkill() != lemmSkill && !l.getLemmingInfo().isEmpty()) {
-                        if (lemmSkill == null) {
+                    if (l.getSkill() != session.lemmSkill && l.hasLemmingInfo()) {
+                        if (session.lemmSkill == null) {
                             return l;
                         } else {
-                            switch (lemmSkill) {
+                            switch (session.lemmSkill) {
                                 case CLIMBER:
                                     if (!l.canClimb()) {
                                         return l;
@@ -1059,11 +920,11 @@ public class LemGame {
                 case HOISTER:
                 case FLOATER:
                 case HOPPER:
-                    if (lemmSkill != null && l.getSkill() != lemmSkill && !l.getLemmingInfo().isEmpty()) {
-                        if (lemmSkill == null) {
+                    if (session.lemmSkill != null && l.getSkill() != session.lemmSkill && l.hasLemmingInfo()) {
+                        if (session.lemmSkill == null) {
                             return l;
                         } else {
-                            switch (lemmSkill) {
+                            switch (session.lemmSkill) {
                                 case CLIMBER:
                                     if (!l.canClimb()) {
                                         return l;
@@ -1091,7 +952,7 @@ public class LemGame {
         }
         if (type == LemCursor.CursorType.NORMAL) {
             for (Lemming l : lemmsUnderCursor) {
-                if (!l.getLemmingInfo().isEmpty()) {
+                if (l.hasLemmingInfo()) {
                     return l;
                 }
             }
@@ -1102,32 +963,32 @@ public class LemGame {
     /**
      * Lemming has exited the Level.
      */
-    static synchronized void increaseExited() {
-        numExited++;
-        timeElapsedTillLastExited = time;
+    static void increaseExited() {
+        getSession().increaseExited();
     }
 
     /**
      * Stop replay.
      */
     public static void stopReplayMode() {
-        if (replayMode) {
-            replay.clearFrom(replayFrame);
-            replayMode = false;
-            stopReplayMode = false;
-            replayCaption = null;
-            setLevelTitle();
-        }
+        getSession().stopReplayMode();
     }
     
     public static void setReplayMode(boolean b) {
-    	replayMode = b;
+    	getSession().replayMode = b;
     }
 
     /**
      * Return time as String "minutes-seconds"
      */
     public static synchronized String getTimeString() {
+        return getTimeString(getSession().time);
+    }
+
+    /**
+     * Return the given time in seconds as String "minutes-seconds"
+     */
+    static String getTimeString(final int time) {
         return String.format(Locale.ROOT, "%d-%02d", time / 60, time % 60);
     }
     
@@ -1142,7 +1003,7 @@ public class LemGame {
         return levelPackIndex + "," + ratingIndex + "," + levelIndex;
     }
     
-    private static int getReleaseRatePitch(int releaseRate) {
+    static int getReleaseRatePitch(int releaseRate) {
         return (int) Math.round(releaseRate * 2.69);
     }
 
@@ -1154,8 +1015,6 @@ public class LemGame {
             return;
         }
 
-        updateCtr++;
-        
     	if ((leftMouseButtonHeld && ctrlPressed) && !isReplayCheck()) {   		
             Lemming l = LemGame.lemmUnderCursor(LemCursor.getType());
             if (l != null && l != lastAssignedLemming) {
@@ -1165,368 +1024,94 @@ public class LemGame {
             }
     	}
 
-        if (!replayMode) {
-            assignSkill(false); // first try to assign skill
-        }
-
-        // check +/- buttons also if paused
-        KeyRepeat.Event fired = plus.fired();
-        if (fired != KeyRepeat.Event.NONE) {
-            if (!lockReleaseRate && releaseRate < level.getMaxReleaseRate()) {
-                if (fired == KeyRepeat.Event.DOUBLE_CLICK) {
-                    releaseRate = level.getMaxReleaseRate();
-                } else {
-                    releaseRate += 1;
-                }
-                calcReleaseBase();
-                sound.playPitched(Sound.PitchedEffect.RELEASE_RATE, getReleaseRatePitch(releaseRate));
-            }
-        }
-
-        fired = minus.fired();
-        if (fired != KeyRepeat.Event.NONE) {
-            if (!lockReleaseRate && releaseRate > level.getReleaseRate()) {
-                if (fired == KeyRepeat.Event.DOUBLE_CLICK) {
-                    releaseRate = level.getReleaseRate();
-                } else {
-                    releaseRate -= 1;
-                }
-                calcReleaseBase();
-                sound.playPitched(Sound.PitchedEffect.RELEASE_RATE, getReleaseRatePitch(releaseRate));
+        GameSession session = getSession();
+        if (session.seekRequest >= 0) {
+            if (session.seek() && !session.isDetached()) {
+                // old Lemming objects were replaced by the snapshot copies
+                lemmsUnderCursor.clear();
+                lastAssignedLemming = null;
+                session.terrainJournal.clear();
+                Minimap.init(Minimap.getScaleX(), Minimap.getScaleY(), Minimap.isTinted());
+                Minimap.adjustXPos();
+                setLevelTitle();
             }
-        }
-
-        if (forceAdvanceFrame) {
-            forceAdvanceFrame = false;
-        } else if (isPaused()) {
             return;
         }
 
-        // test for end of replay mode
-        if (replayMode && stopReplayMode) {
-            stopReplayMode();
-        }
-
-        if (!replayMode) {
-            if (!cheatWasActivated) {
-                // replay: release rate changed?
-                if (releaseRate != releaseRateOld) {
-                    replay.addReleaseRateEvent(replayFrame, releaseRate);
-                    releaseRateOld = releaseRate;
-                }
-                // replay: nuked?
-                if (nuke != nukeOld) {
-                    replay.addNukeEvent(replayFrame);
-                    nukeOld = nuke;
-                }
-                // replay: position changed?
-                if (getXPos() != xPosOld || getYPos() != yPosOld) {
-                    replay.addPosEvent(replayFrame, getXPos() + Core.getDrawWidth() / 2, getYPos() + LemminiFrame.LEVEL_HEIGHT / 2, 0);
-                    xPosOld = getXPos();
-                    yPosOld = getYPos();
-                }
-                // skill changed
-                if (lemmSkill != lemmSkillOld) {
-                    replay.addSelectSkillEvent(replayFrame, lemmSkill, 0);
-                    lemmSkillOld = lemmSkill;
-                }
-            } else {
-                replay.clear();
-            }
-        } else {
-            // replay mode
-            ReplayEvent r;
-            while ((r = replay.getNext(replayFrame)) != null) {
-                switch (r.type) {
-                    case ReplayStream.ASSIGN_SKILL: {
-                        ReplayAssignSkillEvent rs = (ReplayAssignSkillEvent) r;
-                        double pan = 0;
-                        try {
-                        	Lemming l = lemmings.get(rs.lemming);
-                            l.setSkill(rs.skill, false, r);
-                            l.setSelected();
-                            pan = l.getPan();
-                        } catch(IndexOutOfBoundsException e) {
-                        	Core.setWindowCaption("RetroLemmini - Replay Error: Expected lemming index is " + rs.lemming + " (" + e.getMessage() + ")");
-                        }
-                        switch (rs.skill) {
-                            case CLIMBER:
-                                if (numClimbers != Integer.MAX_VALUE) {
-                                    numClimbers--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            case FLOATER:
-                                if (numFloaters != Integer.MAX_VALUE) {
-                                    numFloaters--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            case OHNOER:
-                                if (numBombers != Integer.MAX_VALUE) {
-                                    numBombers--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            case BLOCKER:
-                                if (numBlockers != Integer.MAX_VALUE) {
-                                    numBlockers--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            case BUILDER:
-                                if (numBuilders != Integer.MAX_VALUE) {
-                                    numBuilders--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            case BASHER:
-                                if (numBashers != Integer.MAX_VALUE) {
-                                    numBashers--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            case MINER:
-                                if (numMiners != Integer.MAX_VALUE) {
-                                    numMiners--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            case DIGGER:
-                                if (numDiggers != Integer.MAX_VALUE) {
-                                    numDiggers--;
-                                    numSkillsUsed++;
-                                }
-                                break;
-                            default:
-                                break;
-                        }
-                        sound.play(Sound.Effect.SELECT_SKILL, pan);
-                        break;
-                    }
-                    case ReplayStream.SET_RELEASE_RATE:
-                        if (!lockReleaseRate) {
-                            ReplayReleaseRateEvent rr = (ReplayReleaseRateEvent) r;
-                            releaseRate = rr.releaseRate;
-                            calcReleaseBase();
-                            sound.playPitched(Sound.PitchedEffect.RELEASE_RATE, getReleaseRatePitch(releaseRate));
-                            releaseRateOld = releaseRate;
-                        }
-                        break;
-                    case ReplayStream.NUKE:
-                        nuke();
-                        pressIcon(Icons.IconType.NUKE);
-                        nukeOld = nuke;
-                        break;
-                    case ReplayStream.MOVE_POS: {
-                        ReplayMovePosEvent rx = (ReplayMovePosEvent) r;
-                        if (isOptionEnabled(Option.REPLAY_SCROLL) && rx.player == 0) {
-                            setXPos(rx.xPos - Core.getDrawWidth() / 2);
-                            setYPos(rx.yPos - LemminiFrame.LEVEL_HEIGHT / 2);
-                            xPosOld = xPos;
-                            yPosOld = yPos;
-                        }
-                        break;
-                    }
-                    case ReplayStream.SELECT_SKILL: {
-                        ReplaySelectSkillEvent rs = (ReplaySelectSkillEvent) r;
-                        if (rs.player == 0) {
-                            lemmSkill = rs.skill;
-                            switch (lemmSkill) {
-                                case CLIMBER:
-                                    pressIcon(Icons.IconType.CLIMB);
-                                    break;
-                                case FLOATER:
-                                    pressIcon(Icons.IconType.FLOAT);
-                                    break;
-                                case OHNOER:
-                                    pressIcon(Icons.IconType.BOMB);
-                                    break;
-                                case BLOCKER:
-                                    pressIcon(Icons.IconType.BLOCK);
-                                    break;
-                                case BUILDER:
-                                    pressIcon(Icons.IconType.BUILD);
-                                    break;
-                                case BASHER:
-                                    pressIcon(Icons.IconType.BASH);
-                                    break;
-                                case MINER:
-                                    pressIcon(Icons.IconType.MINE);
-                                    break;
-                                case DIGGER:
-                                    pressIcon(Icons.IconType.DIG);
-                                    break;
-                                default:
-                                    break;
-                            }
-                            lemmSkillOld = lemmSkill;
-                        }
-                        break;
-                    }
-                    case ReplayStream.END:
-                        stopReplayMode = true;
-                        break;
-                    default:
-                        break;
-                }
-            }
-        }
-
-        // replay: xpos changed
-
-        // store locally to avoid it's overwritten amidst function
-        boolean nukeTemp = nuke;
-
-        // time
-        secondCtr++;
-        if (secondCtr > ((superLemming && forceNormalTimerSpeed)
-                ? MAX_SUPERLEMMING_SECOND_CTR[time % MAX_SUPERLEMMING_SECOND_CTR.length]
-                : MAX_SECOND_CTR[time % MAX_SECOND_CTR.length])) {
-            // one second passed
-            secondCtr -= (superLemming && forceNormalTimerSpeed)
-                    ? MAX_SUPERLEMMING_SECOND_CTR[time % MAX_SUPERLEMMING_SECOND_CTR.length]
-                    : MAX_SECOND_CTR[time % MAX_SECOND_CTR.length];
-
-            if (timed) {
-                if (time > 0) {
-                    time--;
-                }
-            } else {
-                time++;
-            }
-            if (!Core.player.isDebugMode() && time <= 0 && timed) {
-                // level failed
-                endLevel();
-            }
-        }
-        // release
-        if (entranceOpened && !nukeTemp /*&& !isPaused()*/ && numLemmingsOut < getNumLemmingsMax() && --releaseCtr <= 0) {
-            releaseCtr = releaseBase;
-            if (level.getNumEntrances() != 0) {
-                Level.Entrance e = level.getEntrance(TrapDoor.getNext());
-                Lemming l = new Lemming(e.xPos + 2, e.yPos + Lemming.HEIGHT, e.leftEntrance ? Lemming.Direction.LEFT : Lemming.Direction.RIGHT);
-                lemmings.add(l);
-                numLemmingsOut++;
-            }
-        }
-        // nuking
-        if (nukeTemp && ((updateCtr & 1) == 1)) {
-            for (Lemming l : lemmings) {
-                if (!l.nuke() && !l.hasDied() && !l.hasExited()) {
-                    l.setSkill(Lemming.Type.NUKE, false);
-                    //System.out.println("nuked!");
-                    break;
-                }
-            }
+        session.update();
+        if (!session.isDetached()) {
+            Minimap.update(session.terrainJournal);
         }
+    }
 
-        if (!startSoundPlayed) {
-            if (++startSoundCtr == MAX_START_SOUND_CTR) {
-                //show the Let's Go graphic several times
-                for( SpriteObject spr : entranceSprites) {
-                    //display the graphic right below the opening sprite.
-                    int y = spr.getY() + spr.getHeight() + (Vsfx.IMG_HEIGHT/2);
-                    sound.playVisualSFXSilent(Sound.Effect.START, spr.midX(), y);
-                }
-                //play the actual sfx only once
-                sound.play(Sound.Effect.START);
-                startSoundPlayed = true;
-            }
-        }
-        // open trap doors?
-        if (!entranceOpened) {
-            if (++entranceOpenCtr == MAX_ENTRANCE_OPEN_CTR) {
-                for (int i = 0; i < level.getNumSprObjects(); i++) {
-                    SpriteObject spr = level.getSprObject(i);
-                    if (spr != null && spr.getAnimMode() == Sprite.Animation.ONCE_ENTRANCE) {
-                        spr.setAnimMode(Sprite.Animation.ONCE);
-                    }
-                }
-                level.openBackgroundEntrances();
-                // BOOKMARK - this is the *creak* sound of the doors opening (sound_5 door.wav)
-
-                // this code here plays the sound and shows the "creak" VSFX
-                //entranceSprites.stream().findAny().ifPresent(sound::playVisualSFX);
-
-                // this code just plays the sound
-                entranceSprites.stream().findAny().ifPresent(sound::play); // play the sound only once, not per-sprite
-            } else if (entranceOpenCtr == MAX_ENTRANCE_OPEN_CTR + 30) {
-                //System.out.println("opened");
-                entranceOpened = true;
-                releaseCtr = 0; // first lemming to enter at once
-                if (isOptionEnabled(Option.MUSIC_ON)) {
-                    Music.play();
-                }
-            }
-        }
-        // end of game conditions
-        if ((nukeTemp || numLemmingsOut == getNumLemmingsMax()) && lemmings.isEmpty()) {
-            // End the level only if no objects are triggered.
-            boolean endLevel = true;
-            for (int i = 0; i < level.getNumSprObjects(); i++) {
-                SpriteObject sprite = level.getSprObject(i);
-                if (sprite != null && sprite.isTriggered()) {
-                    endLevel = false;
-                    break;
-                }
-            }
-            if (endLevel) {
-                endLevel();
-            }
+    /**
+     * Request to rewind the level by the given number of seconds.
+     * The rewind is done by the next update.
+     */
+    public static synchronized void requestRewind(final int seconds) {
+        if (seconds > 0) {
+            requestSeek(Math.max(0, getSession().replayFrame - secondsToFrames(seconds)));
         }
+    }
 
-        //animate or remove Lemmings
-        for (Iterator<Lemming> it = lemmings.iterator(); it.hasNext(); ) {
-            Lemming l = it.next();
-            l.animate();
-            if (l.hasDied() || l.hasExited()) {
-                it.remove();
-            }
+    /**
+     * Request to skip forward by the given number of seconds while a replay is played back.
+     * The skip is done by the next update.
+     */
+    public static synchronized void requestSkipForward(final int seconds) {
+        if (seconds > 0 && getSession().replayMode) {
+            requestSeek(getSession().replayFrame + secondsToFrames(seconds));
         }
+    }
 
-        //animate or remove Explosions
-        for (Iterator<Explosion> it = explosions.iterator(); it.hasNext(); ) {
-            Explosion e = it.next();
-            if (e.isFinished()) {
-                it.remove();
-            } else {
-                e.update();
-            }
+    /**
+     * Request to jump to the given frame of the level.
+     * The jump is done by the next update.
+     */
+    public static synchronized void requestSeek(final int frame) {
+        if (gameState == State.LEVEL && frame >= 0) {
+            getSession().seekRequest = frame;
         }
+    }
 
-        //animate or remove visual sfx
-        for (Iterator<Vsfx> it = vsfxs.iterator(); it.hasNext(); ) {
-            Vsfx l = it.next();
-            l.animate();
-            if (l.hasFinished()) {
-                it.remove();
-            }
-        }
+    private static int secondsToFrames(final int seconds) {
+        // one second is 33.333 ticks
+        return seconds * 100 / 3;
+    }
 
+    /**
+     * Switch the phase timing of the simulation on or off.
+     * Switching it on starts with empty histograms.
+     */
+    public static synchronized void setProfiling(final boolean on) {
+        getSession().profiler = on ? new UpdateProfiler() : null;
+    }
 
-        // animate level objects
-        for (int n = 0; n < level.getNumSprObjects(); n++) {
-            SpriteObject spr = level.getSprObject(n);
-            if (spr != null) {
-                spr.getImageAnim(); // just to animate
-            }
-        }
-        level.advanceBackgroundFrame();
+    /**
+     * Get the phase timing of the simulation.
+     * @return profiler or null if profiling is switched off
+     */
+    public static UpdateProfiler getProfiler() {
+        return getSession().profiler;
+    }
 
-        if (!replayMode) {
-            assignSkill(true); // 2nd try to assign skill
+    /**
+     * Request to export the phase timing histograms. The export is done by the next update.
+     */
+    public static synchronized void requestProfileExport() {
+        UpdateProfiler prof = getSession().profiler;
+        if (prof != null) {
+            prof.requestExport();
         }
-
-        replayFrame++;
     }
 
     /**
      * Request a skill change for a Lemming (currently selected skill).
      */
     public static synchronized void requestSkill(final Lemming lemm) {
-        if (lemmSkill != null) {
-            lemmSkillRequest = lemm;
+        GameSession session = getSession();
+        if (session.lemmSkill != null) {
+            session.lemmSkillRequest = lemm;
         }
         stopReplayMode();
         if (isOptionEnabled(Option.ENABLE_FRAME_STEPPING)) {
@@ -1534,113 +1119,6 @@ public class LemGame {
         }
     }
 
-    /**
-     * Assign the selected skill to the selected Lemming.
-     */
-    private static synchronized void assignSkill(final boolean delete) {
-        if (lemmSkillRequest == null || lemmSkill == null) {
-            return;
-        }
-
-        Lemming lemm = lemmSkillRequest;
-        if (delete) {
-            lemmSkillRequest = null;
-        }
-
-        boolean canSet = false;
-        stopReplayMode();
-
-        if (Core.player.isDebugMode()) {
-            canSet = lemm.setSkill(lemmSkill, true);
-        } else {
-            switch (lemmSkill) {
-                case CLIMBER:
-                    if (tryAssignSkill(lemm, lemmSkill, numClimbers)) {
-                        if (numClimbers != Integer.MAX_VALUE) numClimbers--;
-                        canSet = true;
-                    }
-                    break;
-                case FLOATER:
-                    if (tryAssignSkill(lemm, lemmSkill, numFloaters)) {
-                        if (numFloaters != Integer.MAX_VALUE) numFloaters--;
-                        canSet = true;
-                    }
-                    break;
-                case OHNOER:
-                    if (tryAssignSkill(lemm, lemmSkill, numBombers)) {
-                        if (numBombers != Integer.MAX_VALUE) numBombers--;
-                        canSet = true;
-                    }
-                    break;
-                case BLOCKER:
-                    if (tryAssignSkill(lemm, lemmSkill, numBlockers)) {
-                        if (numBlockers != Integer.MAX_VALUE) numBlockers--;
-                        canSet = true;
-                    }
-                    break;
-                case BUILDER:
-                    if (tryAssignSkill(lemm, lemmSkill, numBuilders)) {
-                        if (numBuilders != Integer.MAX_VALUE) numBuilders--;
-                        canSet = true;
-                    }
-                    break;
-                case BASHER:
-                    if (tryAssignSkill(lemm, lemmSkill, numBashers)) {
-                        if (numBashers != Integer.MAX_VALUE) numBashers--;
-                        canSet = true;
-                    }
-                    break;
-                case MINER:
-                    if (tryAssignSkill(lemm, lemmSkill, numMiners)) {
-                        if (numMiners != Integer.MAX_VALUE) numMiners--;
-                        canSet = true;
-                    }
-                    break;
-                case DIGGER:
-                    if (tryAssignSkill(lemm, lemmSkill, numDiggers)) {
-                        if (numDiggers != Integer.MAX_VALUE) numDiggers--;
-                        canSet = true;
-                    }
-                    break;
-                default:
-                    break;
-            }
-        }
-        if (canSet) {
-            lemmSkillRequest = null; // erase request
-            if (isPaused() && isOptionEnabled(Option.UNPAUSE_ON_ASSIGNMENT)) {
-                setPaused(false);
-                pressIcon(Icons.IconType.PAUSE);
-            }
-            // add to replay stream
-            if (!cheatWasActivated) {
-                int idx = lemmings.indexOf(lemm);
-                if (idx != StringUtils.INDEX_NOT_FOUND) {
-                    // if 2nd try (delete == true) assign to next frame
-                    replay.addAssignSkillEvent(replayFrame + ((delete) ? 1 : 0), lemmSkill, idx);
-                }
-            }
-        } else if (!delete) {
-            lemmSkillRequest = null;
-        }
-    }
-    
-    private static boolean tryAssignSkill(Lemming lemm, Lemming.Type skill, int availableCount) {
-        if (availableCount > 0) {
-            if (lemm.setSkill(skill, true)) {
-                if (availableCount != Integer.MAX_VALUE) {
-                    numSkillsUsed++;
-                }
-                return true;
-            }
-        } else {
-            if (!attemptingHoldToAssign) {
-                sound.play(Sound.Effect.INVALID, lemm.getPan());
-            }
-        }
-        return false;
-    }
-    
     public static void togglePause() {
         boolean isPaused = isPaused();
         if (isOptionEnabled(Option.PAUSE_STOPS_FAST_FORWARD)
@@ -1656,28 +1134,18 @@ public class LemGame {
     	drawRulerAtCursor = !drawRulerAtCursor;
     }
 
-    /**
-     * Calculate the counter threshold for releasing a new Lemmings.
-     */
-    private static void calcReleaseBase() {
-        // the original formula is: release lemming every (107-releaseRate)/2 time steps
-        // where one step is 60ms (3s/50) or 66ms (4s/60).
-        // Lemmini runs at 30ms/33ms, so the term has to be multiplied by 2
-        // 107-releaseRate should be correct
-        releaseBase = 107 - releaseRate;
-    }
-    
     /**
      * Handle dragging mouse across icon buttons.
      */
     public static synchronized void handleIconButtonDrag(final Icons.IconType type) {
+        GameSession session = getSession();
         if (testIcon(type)) {
             switch (type) {
                 case PLUS:
-                    plus.pressedContinue(KEYREPEAT_ICON);
+                    session.plus.pressedContinue(KEYREPEAT_ICON);
                     break;
                 case MINUS:
-                    minus.pressedContinue(KEYREPEAT_ICON);
+                    session.minus.pressedContinue(KEYREPEAT_ICON);
                     break;
                 default:
                     handleIconButton(type);
@@ -1690,51 +1158,52 @@ public class LemGame {
      * Handle pressing of an icon button.
      */
     public static synchronized void handleIconButton(final Icons.IconType type) {
+        GameSession session = getSession();
         //Lemming.Type lemmSkillOld = lemmSkill;
         if (testIcon(type)) {
             switch (type) {
                 case PLUS:
-                    plus.pressed(KEYREPEAT_ICON);
+                    session.plus.pressed(KEYREPEAT_ICON);
                     stopReplayMode();
                     break;
                 case MINUS:
-                    minus.pressed(KEYREPEAT_ICON);
+                    session.minus.pressed(KEYREPEAT_ICON);
                     stopReplayMode();
                     break;
                 case CLIMB:
-                    lemmSkill = Lemming.Type.CLIMBER;
+                    session.lemmSkill = Lemming.Type.CLIMBER;
                     stopReplayMode();
                     break;
                 case FLOAT:
-                    lemmSkill = Lemming.Type.FLOATER;
+                    session.lemmSkill = Lemming.Type.FLOATER;
                     stopReplayMode();
                     break;
                 case BOMB:
-                    lemmSkill = Lemming.Type.OHNOER;
+                    session.lemmSkill = Lemming.Type.OHNOER;
                     stopReplayMode();
                     break;
                 case BLOCK:
-                    lemmSkill = Lemming.Type.BLOCKER;
+                    session.lemmSkill = Lemming.Type.BLOCKER;
                     stopReplayMode();
                     break;
                 case BUILD:
-                    lemmSkill = Lemming.Type.BUILDER;
+                    session.lemmSkill = Lemming.Type.BUILDER;
                     stopReplayMode();
                     break;
                 case BASH:
-                    lemmSkill = Lemming.Type.BASHER;
+                    session.lemmSkill = Lemming.Type.BASHER;
                     stopReplayMode();
                     break;
                 case MINE:
-                    lemmSkill = Lemming.Type.MINER;
+                    session.lemmSkill = Lemming.Type.MINER;
                     stopReplayMode();
                     break;
                 case DIG:
-                    lemmSkill = Lemming.Type.DIGGER;
+                    session.lemmSkill = Lemming.Type.DIGGER;
                     stopReplayMode();
                     break;
                 case PAUSE:
-                    if (isOptionEnabled(Option.PAUSE_STOPS_FAST_FORWARD) && !paused && fastForward) {
+                    if (isOptionEnabled(Option.PAUSE_STOPS_FAST_FORWARD) && !session.paused && fastForward) {
                         fastForward = false;
                         pressIcon(Icons.IconType.FFWD);
                     }
@@ -1743,8 +1212,8 @@ public class LemGame {
                 case NUKE:
                     stopReplayMode();
                     if (timerNuke.delta() < NANOSEC_NUKE_DOUBLE_CLICK) {
-                        if (!nuke) {
-                            nuke();
+                        if (!session.nuke) {
+                            session.nuke();
                         }
                     } else {
                         timerNuke.deltaUpdate();
@@ -1837,6 +1306,7 @@ public class LemGame {
      * Checks whether the given icon button can be pressed.
      */
     private static boolean testIcon(final Icons.IconType type) {
+        GameSession session = getSession();
         switch (type) {
             case PLUS:
             case MINUS:
@@ -1846,41 +1316,37 @@ public class LemGame {
             case RESTART:
                 return true;
             case CLIMB:
-                return (Core.player.isDebugMode() || numClimbers > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numClimbers > 0) && Icons.getSelectedSkill() != type;
             case FLOAT:
-                return (Core.player.isDebugMode() || numFloaters > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numFloaters > 0) && Icons.getSelectedSkill() != type;
             case BOMB:
-                return (Core.player.isDebugMode() || numBombers > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numBombers > 0) && Icons.getSelectedSkill() != type;
             case BLOCK:
-                return (Core.player.isDebugMode() || numBlockers > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numBlockers > 0) && Icons.getSelectedSkill() != type;
             case BUILD:
-                return (Core.player.isDebugMode() || numBuilders > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numBuilders > 0) && Icons.getSelectedSkill() != type;
             case BASH:
-                return (Core.player.isDebugMode() || numBashers > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numBashers > 0) && Icons.getSelectedSkill() != type;
             case MINE:
-                return (Core.player.isDebugMode() || numMiners > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numMiners > 0) && Icons.getSelectedSkill() != type;
             case DIG:
-                return (Core.player.isDebugMode() || numDiggers > 0) && Icons.getSelectedSkill() != type;
+                return (Core.player.isDebugMode() || session.numDiggers > 0) && Icons.getSelectedSkill() != type;
             case NUKE:
-                return !nuke;
+                return !session.nuke;
             default:
                 return false;
         }
     }
 
-    private static void nuke() {
-        nuke = true;
-        sound.play(Sound.Effect.NUKE);
-    }
-
     public static boolean isNuked() {
-        return nuke;
+        return getSession().nuke;
     }
 
     /**
      * Fade in/out.
      */
     public static void fade() {
+        GameSession session = getSession();
         boolean doReplay = transitionState == TransitionState.REPLAY_LEVEL
                 || transitionState == TransitionState.REPLAY_LEVEL_NO_PREVIEW;
         boolean showPreview = transitionState != TransitionState.REPLAY_LEVEL_NO_PREVIEW;
@@ -1905,10 +1371,10 @@ public class LemGame {
                     break;
                 case TO_LEVEL:
                 case REPLAY_LEVEL_NO_PREVIEW:
-                    setXPos(xPosCenter - Core.getDrawWidth() / 2);
-                    setYPos(yPosCenter - LemminiFrame.LEVEL_HEIGHT / 2);
-                    xPosOld = xPos;
-                    yPosOld = yPos;
+                    setXPos(session.xPosCenter - Core.getDrawWidth() / 2);
+                    setYPos(session.yPosCenter - LemminiFrame.LEVEL_HEIGHT / 2);
+                    session.xPosOld = session.xPos;
+                    session.yPosOld = session.yPos;
                     gameState = State.LEVEL;
                     if (transitionState != TransitionState.REPLAY_LEVEL_NO_PREVIEW) {
                         break;
@@ -1973,7 +1439,7 @@ public class LemGame {
     private static void checkReplay(final int lPack, final int rating, final int lNum) throws LemException {
     	try {
     		ReplayChecker.ReplayResult result = ReplayChecker.check();
-    		Core.updateReplayCaption(result.toString(), numExited);
+    		Core.updateReplayCaption(result.toString(), getSession().numExited);
     		restartLevel(true, true);
     	} catch (Exception ex) {
     		ToolBox.showException(ex);
@@ -1981,9 +1447,10 @@ public class LemGame {
     }
     
     private static void maybeAutoSaveReplay() {  	
+        GameSession session = getSession();
         if (!LemGame.isOptionEnabled(LemGame.Option.AUTOSAVE_REPLAYS)) return;
 
-        if (replayAutosaved || cancelAutosave) return;
+        if (session.replayAutosaved || session.cancelAutosave) return;
         if (getWasCheated() || !levelPassed()) return;        
 
         Level level = getLevel();
@@ -2018,7 +1485,7 @@ public class LemGame {
         if (!LemGame.saveReplay(replayPath)) {
             JOptionPane.showMessageDialog(null, "Unable to auto-save replay.", "Error", JOptionPane.ERROR_MESSAGE);
         } else {
-        	replayAutosaved = true;
+        	session.replayAutosaved = true;
         }
     }
     
@@ -2032,21 +1499,22 @@ public class LemGame {
             + "." + Core.REPLAY_EXTENSIONS[0];
     }
 
-    private static void setLevelTitle() {
+    static void setLevelTitle() {
+        GameSession session = getSession();
     	if (LemGame.replayCaption != null) {
     		Core.setWindowCaption(LemGame.replayCaption);
     	} else {
-	        int numLemmings = level.getNumLemmings();	
+	        int numLemmings = session.level.getNumLemmings();	
 	        String numToRescue = (!isOptionEnabled(Option.USE_PERCENTAGES) || numLemmings > 100) 
-	                ? String.valueOf(level.getNumToRescue())
-	                : (level.getNumToRescue() * 100 / numLemmings) + "%";
+	                ? String.valueOf(session.level.getNumToRescue())
+	                : (session.level.getNumToRescue() * 100 / numLemmings) + "%";
 	        
 	        String lemmingWord = (numLemmings == 1) ? "Lemming" : "Lemmings";
 	        String levelTitleCaption = String.format("RetroLemmini - %s - %s %d - %s - Save %s of %d %s",
 	                LemGame.getCurLevelPack().getName(),
 	                LemGame.getCurLevelPack().getRatings().get(LemGame.getCurRating()),
 	                LemGame.curLevelNumber + 1,
-	                level.getLevelName().trim(),
+	                session.level.getLevelName().trim(),
 	                numToRescue,
 	                numLemmings,
 	                lemmingWord);
@@ -2059,7 +1527,7 @@ public class LemGame {
      */
     public static synchronized void drawExplosions(final GraphicsContext g,
             final int width, final int height, final int xOfs, final int yOfs) {
-        explosions.stream().forEachOrdered(e -> e.draw(g, width, height, xOfs, yOfs));
+        captureFrame().drawExplosions(g, width, height, xOfs, yOfs);
     }
 
     /**
@@ -2067,21 +1535,9 @@ public class LemGame {
      */
     public static synchronized void addExplosion(final int x, final int y) {
         // create particle explosion
-        explosions.add(new Explosion(x, y));
+        getSession().explosions.add(new Explosion(x, y));
     }
 
-    public static synchronized void drawVisualSfx(final GraphicsContext g) {
-        //draw the visual sfx
-        vsfxs.stream().forEachOrdered(v -> {
-            int vx = v.screenX();
-            int vy = v.screenY();
-            if (vx + v.width() > xPos && vx < xPos + Core.getDrawWidth()
-            && vy + v.height() > yPos && vy < yPos + LemminiFrame.LEVEL_HEIGHT) {
-                g.drawImage(v.getImage(), vx - xPos, vy - yPos);
-            }
-        });
-    }
-    
     private static boolean isLeftAndBidirectional(Lemming l) {
         if (l.getDirection() != Direction.LEFT)
             return false;
@@ -2133,54 +1589,17 @@ public class LemGame {
     }
 
     public static synchronized void drawLemmings(final GraphicsContext g, int cameraX, int cameraY, boolean isScreenshot) {
-        lemmings.stream().forEachOrdered(l -> {
-            // Draw lemmings
-        	int lx = l.screenX();
-            int ly = l.screenY();
-            int lfo = getLeftFacingLemOffset(l);
-
-            if (isScreenshot || (lx + l.width() > cameraX && lx < cameraX + Core.getDrawWidth() &&
-                                 ly + l.height() > cameraY && ly < cameraY + LemminiFrame.LEVEL_HEIGHT)) {
-                g.drawImage(l.getImage(), lx - lfo - cameraX, ly - cameraY);
-            }
-
-            // Draw lemming position in debug mode
-            if (Core.player.isDebugMode()) {
-	            g.setColor(new Color(255, 0, 255)); // Magenta
-	            g.fillRect(l.footX() - cameraX, l.footY() - cameraY, 2, 2);
-            }
-
-            // Draw countdown graphics if necessary
-            LemImage cd = l.getCountdown();
-            if (cd != null) {
-                int x = getEffectX(l) - lfo - cameraX - cd.getWidth() / 2;
-                int y = ly - cameraY - cd.getHeight();
-                if (isScreenshot || (x + cd.getHeight() > 0 && x < Core.getDrawWidth() &&
-                                     y + cd.getHeight() > 0 && y < LemminiFrame.LEVEL_HEIGHT)) {
-                    g.drawImage(cd, x, y);
-                }
-            }
-
-            // Draw lightbulb for selected lems
-            LemImage sel = l.getSelectImg();
-            if (sel != null) {
-                int x = getEffectX(l) - lfo - cameraX - sel.getWidth() / 2;
-                int y = ly - cameraY - sel.getHeight();
-                if (isScreenshot || (x + sel.getHeight() > 0 && x < Core.getDrawWidth() &&
-                                     y + sel.getHeight() > 0 && y < LemminiFrame.LEVEL_HEIGHT)) {
-                    g.drawImage(sel, x, y);
-                }
-            }
-        });
+        captureFrame().drawLemmings(g, cameraX, cameraY, isScreenshot);
     }
 
-    public static synchronized void drawMinimapLemmings(final GraphicsContext g, final int x, final int y) {
-        lemmings.stream().forEachOrdered(l -> {
-            int lx = l.footX();
-            int ly = l.footY();
-            // draw pixel in minimap
-            Minimap.drawLemming(g, x, y, lx, ly);
-        });
+    /**
+     * Capture everything the renderer needs from the current frame, so it can be drawn
+     * without holding the game lock.
+     */
+    public static synchronized FrameSnapshot captureFrame() {
+        GameSession session = getSession();
+        return new FrameSnapshot(session, lemmUnderCursor(LemCursor.getType()), lemmsUnderCursor.size(),
+                Minimap.getXPos(), getReplayImage());
     }
 
     /**
@@ -2202,7 +1621,6 @@ public class LemGame {
      */
     private static void drawIcons(final GraphicsContext g, final int x, final int y) {
         //System.out.println("drawing IconBar: " + x + "/" + y);
-        Icons.Animate();
         g.drawImage(Icons.getImg(), x, y);
     }
 
@@ -2210,6 +1628,7 @@ public class LemGame {
      * Draw the skill/release rate values
      */
     private static void drawCounters(final GraphicsContext g, final int x, final int y) {
+        GameSession session = getSession();
         // draw counters
         Integer val = NumberUtils.INTEGER_ZERO;
         List<Icons.IconType> iconOrder = Icons.CurrentIconOrder();
@@ -2217,34 +1636,34 @@ public class LemGame {
             Icons.IconType type = iconOrder.get(i);
             switch (type) {
                 case MINUS:
-                    val = level.getReleaseRate();
+                    val = session.level.getReleaseRate();
                     break;
                 case PLUS:
-                    val = lockReleaseRate ? null : releaseRate;
+                    val = session.lockReleaseRate ? null : session.releaseRate;
                     break;
                 case CLIMB:
-                    val = numClimbers;
+                    val = session.numClimbers;
                     break;
                 case FLOAT:
-                    val = numFloaters;
+                    val = session.numFloaters;
                     break;
                 case BOMB:
-                    val = numBombers;
+                    val = session.numBombers;
                     break;
                 case BLOCK:
-                    val = numBlockers;
+                    val = session.numBlockers;
                     break;
                 case BUILD:
-                    val = numBuilders;
+                    val = session.numBuilders;
                     break;
                 case BASH:
-                    val = numBashers;
+                    val = session.numBashers;
                     break;
                 case MINE:
-                    val = numMiners;
+                    val = session.numMiners;
                     break;
                 case DIG:
-                    val = numDiggers;
+                    val = session.numDiggers;
                     break;
                 default:
                     val = 0;
@@ -2424,44 +1843,28 @@ public class LemGame {
      * Set horizontal scrolling offset.
      */
     public static void setXPos(final int x) {
-        if (width < Core.getDrawWidth()) {
-            xPos = (width - Core.getDrawWidth()) / 2;
-        } else if (x >= width - Core.getDrawWidth()) {
-            xPos = width - Core.getDrawWidth();
-        } else if (x < 0) {
-            xPos = 0;
-        } else {
-            xPos = x;
-        }
+        getSession().setXPos(x);
     }
 
     /**
      * Set vertical scrolling offset.
      */
     public static void setYPos(final int y) {
-        if (height < LemminiFrame.LEVEL_HEIGHT) {
-            yPos = height - LemminiFrame.LEVEL_HEIGHT;
-        } else if (y >= height - LemminiFrame.LEVEL_HEIGHT) {
-            yPos = height - LemminiFrame.LEVEL_HEIGHT;
-        } else if (y < 0) {
-            yPos = 0;
-        } else {
-            yPos = y;
-        }
+        getSession().setYPos(y);
     }
 
     /**
      * Get horizontal scrolling offset.
      */
     public static int getXPos() {
-        return xPos;
+        return getSession().xPos;
     }
 
     /**
      * Get vertical scrolling offset.
      */
     public static int getYPos() {
-        return yPos;
+        return getSession().yPos;
     }
 
     /**
@@ -2479,7 +1882,7 @@ public class LemGame {
     }
 
     public static void advanceFrame() {
-        forceAdvanceFrame = true;
+        getSession().forceAdvanceFrame = true;
     }
 
     /**
@@ -2494,67 +1897,67 @@ public class LemGame {
      * Load a replay.
      */
     public static ReplayLevelInfo loadReplay(final Path fn) throws LemException {
-        return replay.load(fn);
+        return getSession().replay.load(fn);
     }
 
     /**
      * Save a replay.
      */
     public static boolean saveReplay(final Path fn) {
-        return replay.save(fn);
+        return getSession().replay.save(fn);
     }
     
     /**
      * Activate/deactivate Direct Drop.
      */
     public static void setDirectDrop(final boolean dd) {
-        directDrop = dd;
+        getSession().directDrop = dd;
     }
     
     /**
      * Get Direct Drop state.
      */
     public static boolean isDirectDrop() {
-        return directDrop;
+        return getSession().directDrop;
     }
 
     /**
      * Activate/deactivate Superlemming mode.
      */
     public static void setSuperLemming(final boolean sl) {
-        superLemming = sl;
+        getSession().superLemming = sl;
     }
 
     /**
      * Get Superlemming state.
      */
     public static boolean isSuperLemming() {
-        return superLemming;
+        return getSession().superLemming;
     }
 
     /**
      * Set cheated detection.
      */
     public static void setWasCheated(final boolean c) {
-    	cheatWasActivated = c;
+    	getSession().cheatWasActivated = c;
     }
 
     public static boolean getWasCheated() {
-        return cheatWasActivated;
+        return getSession().cheatWasActivated;
     }
 
     /**
      * Enable pause mode.
      */
     public static void setPaused(final boolean p) {
-        paused = p;
+        getSession().paused = p;
     }
 
     /**
      * Get pause state.
      */
     public static boolean isPaused() {
-        return paused;
+        return getSession().paused;
     }
 
     /**
@@ -2571,6 +1974,41 @@ public class LemGame {
         turbo = t;
     }
 
+    /**
+     * Enable max speed mode: the game is updated as often as possible and only
+     * drawn every {@link #NANOSEC_MAX_SPEED_FRAME} nanoseconds, without sound.
+     * It stops at the end of the level or on user input.
+     */
+    public static void setMaxSpeed(final boolean ms) {
+        maxSpeed = ms;
+        if (!ms) {
+            maxSpeedFactor = 0;
+        }
+    }
+
+    /**
+     * Get max speed state.
+     */
+    public static boolean isMaxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * Set the speed reached in max speed mode.
+     * @param factor multiple of normal speed
+     */
+    public static void setMaxSpeedFactor(final int factor) {
+        maxSpeedFactor = factor;
+    }
+
+    /**
+     * Get the speed reached in max speed mode.
+     * @return multiple of normal speed, 0 if not known yet or not in max speed mode
+     */
+    public static int getMaxSpeedFactor() {
+        return maxSpeedFactor;
+    }
+
     /**
      * Get fast forward state.
      */
@@ -2599,49 +2037,49 @@ public class LemGame {
     /** get number of lemmings that exited the level
      */
     public static int getNumExited() {
-        return numExited;
+        return getSession().numExited;
     }
 
     /**
      * Set number of Lemmings that exited the level.
      */
     public static void setNumExited(final int n) {
-        numExited = n;
+        getSession().numExited = n;
     }
 
     /**
      * Get level object.
      */
     public static Level getLevel() {
-        return level;
+        return getSession().level;
     }
 
     /**
      * Get the number of Lemmings currently in this level.
      */
     public static int getNumLemmings() {
-        return lemmings.size();
+        return getSession().lemmings.size();
     }
 
     /**
      * Get maximum number of Lemmings for this level.
      */
     public static int getNumLemmingsMax() {
-        return numLemmingsMax;
+        return getSession().numLemmingsMax;
     }
     
     /**
      * Get maximum possible number of Lemmings that can still be saved.
      */
     public static int getNumLemmingsPossibleMax() {
-        return getNumLemmingsUnreleased() + getNumLemmings() + numExited;
+        return getNumLemmingsUnreleased() + getNumLemmings() + getSession().numExited;
     }
 
     /**
      * Get the number of lemmings still in the entrance gate.
      */
     public static int getNumLemmingsUnreleased() {
-        return getNumLemmingsMax() - numLemmingsOut;
+        return getNumLemmingsMax() - getSession().numLemmingsOut;
     }
 
 
@@ -2685,14 +2123,14 @@ public class LemGame {
      */
     public static void pressPlus(final int d) {
         stopReplayMode();
-        plus.pressed(d);
+        getSession().plus.pressed(d);
     }
 
     /**
      * Plus was released.
      */
     public static void releasePlus(final int d) {
-        plus.released(d);
+        getSession().plus.released(d);
     }
 
     /**
@@ -2700,14 +2138,14 @@ public class LemGame {
      */
     public static void pressMinus(final int d) {
         stopReplayMode();
-        minus.pressed(d);
+        getSession().minus.pressed(d);
     }
 
     /**
      * Minus was released.
      */
     public static void releaseMinus(final int d) {
-        minus.released(d);
+        getSession().minus.released(d);
     }
 
     /**
@@ -2718,50 +2156,77 @@ public class LemGame {
     }
 
     public static synchronized void updateLemmsUnderCursor() {
+        GameSession session = getSession();
         lemmsUnderCursor.clear();
-        lemmings.stream().forEachOrdered(l -> {
+        // doesCollide() checks footX() and midY(), which is above the foot by the size of the animation
+        int r = LemCursor.getHitDistance();
+        int cx = LemCursor.getX() + session.xPos;
+        int cy = LemCursor.getY() + session.yPos;
+        lemmsNearCursor.clear();
+        session.lemmings.findNear(cx - r, cy - r + Lemming.getMinSize(), cx + r, cy + r + Lemming.getMaxSize(), lemmsNearCursor);
+        for (Lemming l : lemmsNearCursor) {
             int lx = l.screenX();
             int ly = l.screenY();
-            if (lx + l.width() >= xPos && lx < xPos + Core.getDrawWidth()
-                    && ly + l.height() >= yPos && ly < yPos + LemminiFrame.LEVEL_HEIGHT) {
-                if (LemCursor.doesCollide(l, xPos, yPos)) {
+            if (lx + l.width() >= session.xPos && lx < session.xPos + Core.getDrawWidth()
+                    && ly + l.height() >= session.yPos && ly < session.yPos + LemminiFrame.LEVEL_HEIGHT) {
+                if (LemCursor.doesCollide(l, session.xPos, session.yPos)) {
                     lemmsUnderCursor.add(l);
                 }
             }
-        });
+        }
+        lemmsNearCursor.clear();
     }
 
     /**
      * Get list of all Lemmings in this level.
      */
     public static List<Lemming> getLemmings() {
-        return Collections.unmodifiableList(lemmings);
+        return Collections.unmodifiableList(getSession().lemmings);
     }
 
     public static synchronized void addLemming(Lemming l) {
-        lemmings.add(l);
+        getSession().lemmings.add(l);
     }
     
+    /**
+     * Get the simulation session of the calling thread.
+     */
+    public static GameSession getSession() {
+        GameSession session = boundSession.get();
+        return (session != null) ? session : mainSession;
+    }
+
+    /**
+     * Bind a session to the calling thread (null to return to the main session).
+     */
+    public static void bindSession(final GameSession session) {
+        if (session == null) {
+            boundSession.remove();
+        } else {
+            boundSession.set(session);
+        }
+    }
+
     /**
      * Setter/helper for GameMode
      */
     public static void setGameMode(GameMode mode) {
-        gameMode = mode;
+        getSession().gameMode = mode;
     }
 
     public static boolean isReplayCheck() {
-        return gameMode == GameMode.REPLAY_CHECK;
+        return getSession().gameMode == GameMode.REPLAY_CHECK;
     }
 
     /**
      * Get list of all Visual SFX in this level.
      */
     public static List<Vsfx> getVsfx() {
-        return Collections.unmodifiableList(vsfxs);
+        return Collections.unmodifiableList(getSession().vsfxs);
     }
 
     public static synchronized void addVsfx(Vsfx v) {
-        vsfxs.add(v);
+        getSession().vsfxs.add(v);
     }
 
     /**
@@ -2873,14 +2338,21 @@ public class LemGame {
      * Get foreground image of level.
      */
     public static LemImage getFgImage() {
-        return fgImage;
+        return getSession().fgImage;
+    }
+
+    /**
+     * Terrain (stencil or foreground image) inside the given rectangle was changed.
+     */
+    public static void terrainChanged(final int x, final int y, final int w, final int h) {
+        getSession().terrainChanged(x, y, w, h);
     }
 
     /**
      * Get foreground stencil of level.
      */
     public static Stencil getStencil() {
-        return stencil;
+        return getSession().stencil;
     }
 
     /**
@@ -2894,33 +2366,33 @@ public class LemGame {
      * Get number of Lemmings to rescue.
      */
     public static int getNumToRescue() {
-        return numToRescue;
+        return getSession().numToRescue;
     }
 
     /**
      * Get time left in seconds.
      */
     public static int getTime() {
-        return time;
+        return getSession().time;
     }
 
     public static boolean isTimed() {
-        return timed;
+        return getSession().timed;
     }
 
     public static void setTimed(boolean isTimed) {
-        timed = isTimed;
+        getSession().timed = isTimed;
     }
 
     public static int getScore() {
-        return numExited * 100 / numLemmingsMax * 100 + numClimbers + numFloaters + numBombers +
-                numBlockers + numBuilders + numBashers + numMiners + numDiggers;
+        return getSession().getScore();
     }
 
     public static LevelRecord getLevelRecord() {
-        if (levelPassed() && !cheatWasActivated) {
-            return new LevelRecord(true, numExited, numSkillsUsed,
-                    timed ? (timeLimit - timeElapsedTillLastExited) : time, getScore());
+        GameSession session = getSession();
+        if (levelPassed() && !session.cheatWasActivated) {
+            return new LevelRecord(true, session.numExited, session.numSkillsUsed,
+                    session.timed ? (session.timeLimit - session.timeElapsedTillLastExited) : session.time, getScore());
         } else {
             return LevelRecord.BLANK_LEVEL_RECORD;
         }
@@ -2931,11 +2403,11 @@ public class LemGame {
     }
 
     public static int getWidth() {
-        return width;
+        return getSession().width;
     }
 
     public static int getHeight() {
-        return height;
+        return getSession().height;
     }
     
     public static int getTopBoundary() {
@@ -3002,11 +2474,11 @@ public class LemGame {
 	}
 	
 	public static void setReplayResult(ReplayChecker.ReplayResult r) {
-	    replayResult = r;
+	    getSession().replayResult = r;
 	}
 
 	public static ReplayChecker.ReplayResult getReplayResult() {
-	    return replayResult;
+	    return getSession().replayResult;
 	}
 	
     /**
@@ -3106,74 +2578,3 @@ class ExternalLevelEntry {
         return hash;
     }
 }
-
-/**
- * Trapdoor/Entrance class
- * Trapdoor logic: for numbers >1, just take the next door for each lemming and wrap around to 1 when
- * the last one is reached.
- * Special rule for 3 trapdoors: the order is 1, 2, 3, 2 (loop), not 1, 2, 3 (loop)
- *
- * @author Volker Oth
- */
-class TrapDoor {
-    /** pattern for three entrances */
-    private static final int[] PATTERN3 = {0, 1, 2, 1};
-
-    /** order of entrances */
-    private static int[] entranceOrder;
-    /** entrance counter */
-    private static int counter;
-
-    /**
-     * Reset to new number of entrances.
-     */
-    static void reset(final int e, final int[] eOrder) throws LemException {
-        if (e == 0) {
-            throw new LemException("Level does not have any entrances.");
-        }
-        if (eOrder == null) {
-            if (e == 3) {
-                // special case: 3 entrances
-                entranceOrder = PATTERN3;
-            } else {
-                entranceOrder = new int[e];
-                for (int i = 0; i < entranceOrder.length; i++) {
-                    entranceOrder[i] = i;
-                }
-            }
-        } else {
-            int newSize = 0;
-            for (int en : eOrder) {
-                if (en >= 0 && en < e) {
-                    newSize++;
-                }
-            }
-            if (newSize == 0) {
-                throw new LemException("No entrances in this level are used.");
-            }
-            if (newSize == eOrder.length) {
-                entranceOrder = eOrder.clone();
-            } else {
-                entranceOrder = new int[newSize];
-                for (int i = 0, j = 0; i < eOrder.length && j < entranceOrder.length; i++) {
-                    int en = eOrder[i];
-                    if (en >= 0 && en < e) {
-                        entranceOrder[j++] = eOrder[i];
-                    }
-                }
-            }
-        }
-        counter = 0;
-    }
-
-    /**
-     * Get index of next entrance.
-     */
-    static int getNext() {
-        int retVal = entranceOrder[counter++];
-        if (counter >= entranceOrder.length) {
-            counter = 0;
-        }
-        return retVal;
-    }
-}
\ No newline at end of file
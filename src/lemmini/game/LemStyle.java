@@ -19,6 +19,7 @@ import java.awt.Color;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
@@ -379,6 +380,7 @@ public class LemStyle {
         private LemImage image = null;
         private boolean[][] mask = null;
         private boolean[][] steelMask = null;
+        private final Map<Orientation, OrientedTerrain> orientedTerrain = new EnumMap<>(Orientation.class);
 
         private Terrain(String pathPrefix, int idx, boolean stl) {
             index = idx;
@@ -450,5 +452,99 @@ public class LemStyle {
             }
             return steelMask;
         }
+
+        /**
+         * Get the pixels and masks of this piece in the given orientation.
+         * They are created on first use and cached, since levels place the same pieces many times.
+         */
+        public OrientedTerrain getOrientedTerrain(Orientation orientation) throws LemException {
+            OrientedTerrain ot = orientedTerrain.get(orientation);
+            if (ot == null) {
+                ot = new OrientedTerrain(getImage(), getMask(), getSteelMask(), orientation);
+                orientedTerrain.put(orientation, ot);
+            }
+            return ot;
+        }
+    }
+
+    /**
+     * Pixels and masks of a terrain piece in one orientation, stored row by row in the
+     * coordinates of the placed piece, so it can be painted without transforming every pixel.
+     */
+    public static class OrientedTerrain {
+
+        private final int width;
+        private final int height;
+        /** ARGB pixels, row by row */
+        private final int[] pixels;
+        /** terrain mask, bit y * width + x */
+        private final BitSet mask;
+        /** steel mask, bit y * width + x */
+        private final BitSet steelMask;
+
+        private OrientedTerrain(LemImage image, boolean[][] mask, boolean[][] steelMask, Orientation orientation) {
+            int width2 = image.getWidth();
+            int height2 = image.getHeight();
+            boolean rotate = orientation.rotate();
+            width = rotate ? height2 : width2;
+            height = rotate ? width2 : height2;
+            int maskWidth = ArrayUtils.isNotEmpty(mask) ? mask[0].length : 0;
+            int maskHeight = mask.length;
+            int steelMaskWidth = ArrayUtils.isNotEmpty(steelMask) ? steelMask[0].length : 0;
+            int steelMaskHeight = steelMask.length;
+
+            int[] source = image.getRGB(0, 0, width2, height2, null, 0, width2);
+            pixels = new int[width * height];
+            this.mask = new BitSet(width * height);
+            this.steelMask = new BitSet();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int x2 = x;
+                    int y2 = y;
+                    if (orientation.flipVert()) {
+                        y2 = height - 1 - y2;
+                    }
+                    if (orientation.flipHoriz()) {
+                        x2 = width - 1 - x2;
+                    }
+                    if (rotate) {
+                        int oldX2 = x2;
+                        x2 = y2;
+                        y2 = height2 - 1 - oldX2;
+                    }
+                    int pos = y * width + x;
+                    pixels[pos] = source[y2 * width2 + x2];
+                    if (y2 < maskHeight && x2 < maskWidth && mask[y2][x2]) {
+                        this.mask.set(pos);
+                    }
+                    if (y2 < steelMaskHeight && x2 < steelMaskWidth && steelMask[y2][x2]) {
+                        this.steelMask.set(pos);
+                    }
+                }
+            }
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Get the pixels, row by row. The array must not be modified.
+         */
+        public int[] getPixels() {
+            return pixels;
+        }
+
+        public boolean isMask(int x, int y) {
+            return mask.get(y * width + x);
+        }
+
+        public boolean isSteelMask(int x, int y) {
+            return steelMask.get(y * width + x);
+        }
     }
 }
@@ -1,6 +1,9 @@
 package lemmini.game;
 
 import java.awt.Transparency;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -224,6 +227,15 @@ public class Lemming {
     private int explodeCtr;
     /** counter used to display the select image in replay mode */
     private int selectCtr;
+    /** position in the LemmingList of the session, -1 if not in a list */
+    int listIndex = -1;
+    /** session whose LemmingList this Lemming was added to */
+    GameSession session;
+    /** cell in the LemmingGrid of the session, -1 if not in a grid */
+    int gridCell = -1;
+    /** neighbours in the same grid cell */
+    Lemming gridPrev;
+    Lemming gridNext;
 
     /** list of resources for each Lemming skill/type */
     private static List<LemmingResource> lemmings = new ArrayList<>(NUM_RESOURCES);
@@ -231,6 +243,9 @@ public class Lemming {
     private static ExplodeFont explodeFont;
     private static int templateColor;
     private static int templateColor2;
+    /** smallest and largest distance between foot and "mid" position of all resources */
+    private static int minSize;
+    private static int maxSize;
 
     /**
      * Constructor: Create Lemming
@@ -255,6 +270,110 @@ public class Lemming {
         nuke = false;
     }
 
+    /**
+     * Constructor: Create a copy of another Lemming (used for rewind snapshots).
+     */
+    public Lemming(final Lemming src) {
+        lemRes = src.lemRes;
+        frameIdx = src.frameIdx;
+        x = src.x;
+        y = src.y;
+        dir = src.dir;
+        stepDir = src.stepDir;
+        type = src.type;
+        counter = src.counter;
+        counter2 = src.counter2;
+        explodeNumCtr = src.explodeNumCtr;
+        canFloat = src.canFloat;
+        canClimb = src.canClimb;
+        canChangeSkill = src.canChangeSkill;
+        ohnoer = src.ohnoer;
+        drowner = src.drowner;
+        nuke = src.nuke;
+        hasDied = src.hasDied;
+        hasExited = src.hasExited;
+        explodeCtr = src.explodeCtr;
+        selectCtr = src.selectCtr;
+    }
+
+    /**
+     * Constructor: Read a Lemming written by write() (used for replay checkpoints).
+     */
+    public Lemming(final DataInput in) throws IOException {
+        type = Type.values()[in.readUnsignedByte()];
+        lemRes = getResource(type);
+        frameIdx = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        dir = Direction.values()[in.readUnsignedByte()];
+        int sd = in.readByte();
+        stepDir = (sd < 0) ? null : Direction.values()[sd];
+        counter = in.readInt();
+        counter2 = in.readInt();
+        explodeNumCtr = in.readInt();
+        int flags = in.readUnsignedByte();
+        canFloat = (flags & 1) != 0;
+        canClimb = (flags & 2) != 0;
+        canChangeSkill = (flags & 4) != 0;
+        ohnoer = (flags & 8) != 0;
+        drowner = (flags & 16) != 0;
+        nuke = (flags & 32) != 0;
+        hasDied = (flags & 64) != 0;
+        hasExited = (flags & 128) != 0;
+        explodeCtr = in.readInt();
+        selectCtr = in.readInt();
+    }
+
+    /**
+     * Write the state of this Lemming (used for replay checkpoints).
+     */
+    public void write(final DataOutput out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeInt(frameIdx);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeByte(dir.ordinal());
+        out.writeByte((stepDir == null) ? -1 : stepDir.ordinal());
+        out.writeInt(counter);
+        out.writeInt(counter2);
+        out.writeInt(explodeNumCtr);
+        out.writeByte((canFloat ? 1 : 0) | (canClimb ? 2 : 0) | (canChangeSkill ? 4 : 0) | (ohnoer ? 8 : 0)
+                | (drowner ? 16 : 0) | (nuke ? 32 : 0) | (hasDied ? 64 : 0) | (hasExited ? 128 : 0));
+        out.writeInt(explodeCtr);
+        out.writeInt(selectCtr);
+    }
+
+    /**
+     * Mix the simulation relevant state of this Lemming into a state hash.
+     * The selection counter is left out since it only affects the display.
+     */
+    long hashState(long h) {
+        h = GameSession.mixHash(h, ((long) x << 32) | (y & 0xffffffffL));
+        h = GameSession.mixHash(h, ((long) type.ordinal() << 40) | ((long) dir.ordinal() << 32)
+                | (long) ((stepDir == null) ? 0xff : stepDir.ordinal()) << 24
+                | (canFloat ? 1 : 0) | (canClimb ? 2 : 0) | (canChangeSkill ? 4 : 0) | (ohnoer ? 8 : 0)
+                | (drowner ? 16 : 0) | (nuke ? 32 : 0) | (hasDied ? 64 : 0) | (hasExited ? 128 : 0));
+        h = GameSession.mixHash(h, ((long) frameIdx << 32) | (counter & 0xffffffffL));
+        h = GameSession.mixHash(h, ((long) counter2 << 32) | (explodeNumCtr & 0xffffffffL));
+        return GameSession.mixHash(h, explodeCtr);
+    }
+
+    /**
+     * Check that Lemmings which only differ in their type or direction get different
+     * state hashes, otherwise a desync in them would go unnoticed.
+     */
+    static boolean checkHashState() {
+        Lemming l0 = new Lemming(0, 0, Direction.RIGHT);
+        Lemming l1 = new Lemming(l0);
+        l1.type = Type.WALKER;
+        Lemming l2 = new Lemming(l0);
+        l2.dir = Direction.LEFT;
+        long h0 = l0.hashState(0);
+        long h1 = l1.hashState(0);
+        long h2 = l2.hashState(0);
+        return h0 != h1 && h0 != h2 && h1 != h2;
+    }
+
     /**
      * Get number of Lemming type in internal resource array.
      */
@@ -328,7 +447,7 @@ public class Lemming {
                         newType = Type.FLOATER_START;
                         counter2 = 0; // used for parachute opening "jump" up
                     } else if (free == 0) { // check ground hit
-                        if (counter > LemGame.getLevel().getMaxFallDistance()) {
+                        if (counter > session.level.getMaxFallDistance()) {
                             newType = Type.SPLATTER;
                         } else {
                             newType = Type.WALKER;
@@ -570,7 +689,7 @@ public class Lemming {
                                 m = lemRes.getMask(dir);
                                 eraseMask = Stencil.MSK_BRICK;
                                 checkMask = 0;
-                                if (!LemGame.getLevel().getClassicSteel()) {
+                                if (!session.level.getClassicSteel()) {
                                     eraseMask |= Stencil.MSK_ONE_WAY;
                                     checkMask |= Stencil.MSK_STEEL;
                                     checkMask |= Stencil.MSK_ONE_WAY_UP;
@@ -596,7 +715,7 @@ public class Lemming {
                                 m = lemRes.getMask(dir);
                                 eraseMask = Stencil.MSK_BRICK;
                                 checkMask = 0;
-                                if (!LemGame.getLevel().getClassicSteel()) {
+                                if (!session.level.getClassicSteel()) {
                                     eraseMask |= Stencil.MSK_ONE_WAY;
                                     checkMask |= Stencil.MSK_STEEL;
                                     checkMask |= Stencil.MSK_ONE_WAY_UP;
@@ -670,7 +789,7 @@ public class Lemming {
                             m = lemRes.getMask(dir);
                             int eraseMask = Stencil.MSK_BRICK;
                             int checkMask = 0;
-                            if (!LemGame.getLevel().getClassicSteel()) {
+                            if (!session.level.getClassicSteel()) {
                                 eraseMask |= Stencil.MSK_ONE_WAY;
                                 checkMask |= Stencil.MSK_STEEL;
                                 checkMask |= Stencil.MSK_ONE_WAY_UP;
@@ -681,7 +800,7 @@ public class Lemming {
                         case 3 * TIME_SCALE:
                         case 15 * TIME_SCALE:
                             if (!canMine(false, true)) {
-                                if (!LemGame.getLevel().getClassicSteel()) {
+                                if (!session.level.getClassicSteel()) {
                                 	x = oldX;
                                     y = oldY - 2;
                                 }
@@ -717,7 +836,7 @@ public class Lemming {
                                 break;
                             }
                             if (!canMine(false, true)) {
-                                if (!LemGame.getLevel().getClassicSteel()) {
+                                if (!session.level.getClassicSteel()) {
                                     // needed to ensure that miners don't get stuck
                                     x = oldX;
                                     y = oldY;
@@ -845,13 +964,13 @@ public class Lemming {
                 }
                 if (!ohnoer) {
                     if (dir == Direction.RIGHT) {
-                        if (x < LemGame.getWidth() + LemGame.getRightBoundary() - 16
-                                && !BooleanUtils.toBoolean(LemGame.getStencil().getMask(x + 16, y) & Stencil.MSK_BRICK)) {
+                        if (x < session.width + LemGame.getRightBoundary() - 16
+                                && !BooleanUtils.toBoolean(session.stencil.getMask(x + 16, y) & Stencil.MSK_BRICK)) {
                             x += WALKER_STEP;
                         }
                     } else if (dir == Direction.LEFT) {
                         if (x >= LemGame.getLeftBoundary() + 16
-                                && !BooleanUtils.toBoolean(LemGame.getStencil().getMask(x - 16, y) & Stencil.MSK_BRICK)) {
+                                && !BooleanUtils.toBoolean(session.stencil.getMask(x - 16, y) & Stencil.MSK_BRICK)) {
                             x -= WALKER_STEP;
                         }
                     }
@@ -861,7 +980,7 @@ public class Lemming {
             case FRIER:
                 {
                 	// special case: bubble water is a fire object that makes lems instantly explode (without leaving a crater)
-                	if (LemGame.getLevel().getStyleName().equals("bubble")) {
+                	if (session.level.getStyleName().equals("bubble")) {
                 		playVisualSFX(Sound.Effect.EXPLODE);
                 		addExplosion();
                 		hasDied = true;
@@ -877,15 +996,15 @@ public class Lemming {
             case EXPLODER:
                 counter++;
                 if (counter == 1 * TIME_SCALE) {
-                    Stencil stencil = LemGame.getStencil();
+                    Stencil stencil = session.stencil;
                     Mask m = lemRes.getMask(Direction.RIGHT);
                     playVisualSFX(Sound.Effect.EXPLODE);
-                    if (!LemGame.getLevel().getClassicSteel()) {
+                    if (!session.level.getClassicSteel()) {
                         m.eraseMask(screenMaskX(), StrictMath.max(screenMaskY(), -8), 0,
                                 Stencil.MSK_BRICK | Stencil.MSK_ONE_WAY, Stencil.MSK_STEEL);
                     } else if (x >= LemGame.getLeftBoundary()
-                            && x < LemGame.getWidth() + LemGame.getRightBoundary()
-                            && y < LemGame.getHeight()
+                            && x < session.width + LemGame.getRightBoundary()
+                            && y < session.height
                             && !BooleanUtils.toBoolean(stencil.getMask(x, y) & Stencil.MSK_STEEL)
                             && !BooleanUtils.toBoolean(stencil.getMask(x, y) & Stencil.MSK_EXIT) && !drowner) {
                         m.eraseMask(screenMaskX(), StrictMath.max(screenMaskY(), -8), 0, Stencil.MSK_BRICK, 0);
@@ -915,7 +1034,7 @@ public class Lemming {
             switch (s & (Stencil.MSK_TRAP | Stencil.MSK_EXIT)) {
                 case Stencil.MSK_TRAP_LIQUID:
                     if (type != Type.DROWNER) {
-                        SpriteObject spr = LemGame.getLevel().getSprObject(object);
+                        SpriteObject spr = session.level.getSprObject(object);
                         if (spr != null) {
                             boolean triggered = true;
                             if (spr.canBeTriggered() && !spr.trigger(this)) {
@@ -934,7 +1053,7 @@ public class Lemming {
                     break;
                 case Stencil.MSK_TRAP_FIRE:
                     if (type != Type.FRIER) {
-                        SpriteObject spr = LemGame.getLevel().getSprObject(object);
+                        SpriteObject spr = session.level.getSprObject(object);
                         if (spr != null) {
                             boolean triggered = true;
                             if (spr.canBeTriggered() && !spr.trigger(this)) {
@@ -952,7 +1071,7 @@ public class Lemming {
                     break;
                 case Stencil.MSK_TRAP_REMOVE:
                     {
-                        SpriteObject spr = LemGame.getLevel().getSprObject(object);
+                        SpriteObject spr = session.level.getSprObject(object);
                         if (spr != null) {
                             boolean triggered = true;
                             if (spr.canBeTriggered() && !spr.trigger(this)) {
@@ -1000,7 +1119,7 @@ public class Lemming {
                         case DIGGER:
                         case DROWNER:
                         case MAX_EXIT_LEM:
-                            SpriteObject spr = LemGame.getLevel().getSprObject(object);
+                            SpriteObject spr = session.level.getSprObject(object);
                             if (spr != null) {
                                 boolean triggered = true;
                                 if (spr.canBeTriggered() && !spr.trigger(this)) {
@@ -1105,7 +1224,7 @@ public class Lemming {
 
                         int eraseMask = Stencil.MSK_BRICK;
                         int checkMask = 0;
-                        if (!LemGame.getLevel().getClassicSteel()) {
+                        if (!session.level.getClassicSteel()) {
                             eraseMask |= Stencil.MSK_ONE_WAY;
                             checkMask |= Stencil.MSK_STEEL;
                             checkMask |= Stencil.MSK_ONE_WAY_UP;
@@ -1164,7 +1283,7 @@ public class Lemming {
         if (BooleanUtils.toBoolean(s & Stencil.MSK_TURN_LEFT) && dir == Direction.RIGHT) {
             int id = objectFoot();
             if (id >= 0) {
-                SpriteObject spr = LemGame.getLevel().getSprObject(id);
+                SpriteObject spr = session.level.getSprObject(id);
                 LemGame.sound.playVisualSFX(spr);
             }
             dir = Direction.LEFT;
@@ -1173,7 +1292,7 @@ public class Lemming {
         if (BooleanUtils.toBoolean(s & Stencil.MSK_TURN_RIGHT) && dir == Direction.LEFT) {
             int id = objectFoot();
             if (id >= 0) {
-                SpriteObject spr = LemGame.getLevel().getSprObject(id);
+                SpriteObject spr = session.level.getSprObject(id);
                 LemGame.sound.playVisualSFX(spr);
             }
             dir = Direction.RIGHT;
@@ -1278,10 +1397,10 @@ public class Lemming {
         int ym = y;
         int retval;
         if (xm >= LemGame.getLeftBoundary()
-                && xm < LemGame.getWidth() + LemGame.getRightBoundary()
+                && xm < session.width + LemGame.getRightBoundary()
                 && ym >= LemGame.getTopBoundary()
-                && ym < LemGame.getHeight()) {
-            retval = LemGame.getStencil().getMask(xm, ym);
+                && ym < session.height) {
+            retval = session.stencil.getMask(xm, ym);
         } else {
             retval = Stencil.MSK_EMPTY;
         }
@@ -1296,10 +1415,10 @@ public class Lemming {
         int ym = y;
         int retval;
         if (xm >= LemGame.getLeftBoundary()
-                && xm < LemGame.getWidth() + LemGame.getRightBoundary()
+                && xm < session.width + LemGame.getRightBoundary()
                 && ym >= LemGame.getTopBoundary()
-                && ym < LemGame.getHeight()) {
-            retval = LemGame.getStencil().getMaskObjectID(xm, ym);
+                && ym < session.height) {
+            retval = session.stencil.getMaskObjectID(xm, ym);
         } else {
             retval = -1;
         }
@@ -1310,21 +1429,12 @@ public class Lemming {
      * Check if bashing is possible.
      */
     private boolean canBash() {
-        int xm = x;
         int ypos = y - BASHER_CHECK_STEP;
-        int xb;
-        int bricks = 0;
-        for (int i = 18; i < 22; i++) {
-            if (dir == Direction.RIGHT) {
-                xb = xm + i;
-            } else {
-                xb = xm - i + 1;
-            }
-            if (BooleanUtils.toBoolean(LemGame.getStencil().getMask(xb, ypos) & Stencil.MSK_BRICK)) {
-                bricks++;
-            }
+        if (dir == Direction.RIGHT) {
+            return session.stencil.anyBrickInRow(ypos, x + 18, x + 21);
+        } else {
+            return session.stencil.anyBrickInRow(ypos, x - 20, x - 17);
         }
-        return bricks > 0;
     }
 
     /**
@@ -1332,7 +1442,7 @@ public class Lemming {
      */
     private boolean canBashSteel(final boolean playSound) {
         int yMin = y - BASHER_CHECK_STEP_STEEL;
-        int yMax = y - (LemGame.getLevel().getClassicSteel()
+        int yMax = y - (session.level.getClassicSteel()
                 ? BASHER_CHECK_STEP_STEEL : BASHER_CHECK_STEP_STEEL_LOW);
         int xMin;
         int xMax;
@@ -1345,7 +1455,7 @@ public class Lemming {
         }
         for (int yb = yMin; yb <= yMax; yb++) {
             for (int xb = xMin; xb <= xMax; xb++) {
-                int sval = LemGame.getStencil().getMask(xb, yb);
+                int sval = session.stencil.getMask(xb, yb);
                 boolean hitOneWayLeft = BooleanUtils.toBoolean(sval & Stencil.MSK_ONE_WAY_LEFT) && dir == Direction.RIGHT;
                 boolean hitOneWayRight = BooleanUtils.toBoolean(sval & Stencil.MSK_ONE_WAY_RIGHT) && dir == Direction.LEFT;
                 boolean hitOneWayUp = BooleanUtils.toBoolean(sval & Stencil.MSK_ONE_WAY_UP);
@@ -1353,7 +1463,7 @@ public class Lemming {
                 boolean hitSteel = BooleanUtils.toBoolean(sval & Stencil.MSK_STEEL);
                 if (hitOneWayLeft || hitOneWayRight || hitOneWayUp || hitOneWayDown ||  hitSteel) {
                     if (playSound) {
-                        SpriteObject spr = LemGame.getLevel().getSprObject(LemGame.getStencil().getMaskObjectID(xb, yb));
+                        SpriteObject spr = session.level.getSprObject(session.stencil.getMaskObjectID(xb, yb));
                         if (spr != null
                                         && ((hitOneWayLeft && spr.getType() == SpriteObject.Type.ONE_WAY_LEFT)
                                         || (hitOneWayRight && spr.getType() == SpriteObject.Type.ONE_WAY_RIGHT)
@@ -1376,17 +1486,17 @@ public class Lemming {
      * Check if digging is possible.
      */
     private boolean canDig(final boolean playSound) {
-        boolean classicSteel = LemGame.getLevel().getClassicSteel();
+        boolean classicSteel = session.level.getClassicSteel();
         for (int i = 0; i < 2; i++) {
             for (int j = (classicSteel ? 0 : -4); j < (classicSteel ? 1 : 6); j++) {
                 int ym = y + i;
                 int xm = x + j;
-                int sval = LemGame.getStencil().getMask(xm, ym);
+                int sval = session.stencil.getMask(xm, ym);
                 boolean hitSteel = BooleanUtils.toBoolean(sval & Stencil.MSK_STEEL);
                 boolean hitOneWayUp = BooleanUtils.toBoolean(sval & Stencil.MSK_ONE_WAY_UP);
                 if (BooleanUtils.toBoolean(sval & Stencil.MSK_BRICK) && (hitSteel || hitOneWayUp)) {
                     if (playSound) {
-                        SpriteObject spr = LemGame.getLevel().getSprObject(LemGame.getStencil().getMaskObjectID(xm, ym));
+                        SpriteObject spr = session.level.getSprObject(session.stencil.getMaskObjectID(xm, ym));
                         if (spr != null && (spr.getType() == SpriteObject.Type.STEEL || spr.getType() == SpriteObject.Type.ONE_WAY_UP)) {
                             LemGame.sound.playVisualSFX(spr);
                         } else {
@@ -1404,9 +1514,12 @@ public class Lemming {
      * Check if mining is possible.
      */
     private boolean checkMineArea(int xMin, int xMax, int yMin, int yMax, boolean checkOneWay, boolean playSound) {
+        if (!checkOneWay && !session.stencil.anySteel(Math.min(xMin, xMax), Math.max(xMin, xMax), yMin, yMax)) {
+            return true;
+        }
 		for (int yb = yMin; yb <= yMax; yb++) {
 			for (int xb = Math.min(xMin, xMax); xb <= Math.max(xMin, xMax); xb++) {
-				int sval = LemGame.getStencil().getMask(xb, yb);
+				int sval = session.stencil.getMask(xb, yb);
 
 				boolean hitOneWayLeft = checkOneWay && (sval & Stencil.MSK_ONE_WAY_LEFT) != 0 && dir == Direction.RIGHT;
 				boolean hitOneWayRight = checkOneWay && (sval & Stencil.MSK_ONE_WAY_RIGHT) != 0 && dir == Direction.LEFT;
@@ -1415,7 +1528,7 @@ public class Lemming {
 
 				if (hitOneWayLeft || hitOneWayRight || hitOneWayUp || hitSteel) {
 					if (playSound) {
-						SpriteObject spr = LemGame.getLevel().getSprObject(LemGame.getStencil().getMaskObjectID(xb, yb));
+						SpriteObject spr = session.level.getSprObject(session.stencil.getMaskObjectID(xb, yb));
 
 						if (spr != null && ((hitOneWayLeft && spr.getType() == SpriteObject.Type.ONE_WAY_LEFT)
 								        || (hitOneWayRight && spr.getType() == SpriteObject.Type.ONE_WAY_RIGHT)
@@ -1435,7 +1548,7 @@ public class Lemming {
     
     private boolean canMine(final boolean start, final boolean playSound) {
         if (x < LemGame.getLeftBoundary()
-                || x >= LemGame.getWidth() + LemGame.getRightBoundary()) {
+                || x >= session.width + LemGame.getRightBoundary()) {
             if (!start && playSound) {
                 playVisualSFX(Sound.Effect.STEEL);
             }
@@ -1491,25 +1604,12 @@ public class Lemming {
      */
     private int freeBelow(final int step) {
         if (x < LemGame.getLeftBoundary()
-                || x >= LemGame.getWidth() + LemGame.getRightBoundary()) {
+                || x >= session.width + LemGame.getRightBoundary()) {
             return 0;
         }
-        int free = 0;
-        int pos;
-        Stencil stencil = LemGame.getStencil();
-        int yb = y;
-        pos = x + yb * LemGame.getWidth(); // line below the lemming
-        for (int i = 0; i < step; i++) {
-            if (yb + i >= LemGame.getHeight()) {
-                return Integer.MAX_VALUE; // convert most skills to faller
-            }
-            int s = stencil.getMask(pos);
-            if (!BooleanUtils.toBoolean(s & Stencil.MSK_BRICK)) {
-                free++;
-            } else {
-                break;
-            }
-            pos += LemGame.getWidth();
+        int free = session.stencil.freeBelow(x, y, Math.min(step, session.height - y));
+        if (free < step && y + free >= session.height) {
+            return Integer.MAX_VALUE; // convert most skills to faller
         }
         return free;
     }
@@ -1527,9 +1627,9 @@ public class Lemming {
             if (x < LemGame.getLeftBoundary() && dir == Direction.LEFT) {
                 x = LemGame.getLeftBoundary() - 1;
                 flip = true;
-            } else if (x >= LemGame.getWidth() + LemGame.getRightBoundary()
+            } else if (x >= session.width + LemGame.getRightBoundary()
                     && dir == Direction.RIGHT) {
-                x = LemGame.getWidth() + LemGame.getRightBoundary();
+                x = session.width + LemGame.getRightBoundary();
                 flip = true;
             }
         }
@@ -1544,7 +1644,7 @@ public class Lemming {
      */
     private boolean freeAboveBuilder() {
         if (dir == Direction.LEFT && x - 3 < LemGame.getLeftBoundary()
-                || dir == Direction.RIGHT && x + 4 >= LemGame.getWidth() + LemGame.getRightBoundary()) {
+                || dir == Direction.RIGHT && x + 4 >= session.width + LemGame.getRightBoundary()) {
             return false;
         }
 
@@ -1556,7 +1656,7 @@ public class Lemming {
         } else {
             xm = x - 3;
         }
-        Stencil stencil = LemGame.getStencil();
+        Stencil stencil = session.stencil;
         for (int yb = yMin; yb <= yMax; yb++) {
             if (BooleanUtils.toBoolean(stencil.getMask(xm, yb) & Stencil.MSK_BRICK)) {
                 return false;
@@ -1570,7 +1670,7 @@ public class Lemming {
      */
     private boolean freeAboveClimber() {
         if (x < LemGame.getLeftBoundary()
-                || x >= LemGame.getWidth() + LemGame.getRightBoundary()
+                || x >= session.width + LemGame.getRightBoundary()
                 || y <= LemGame.getTopBoundary()) {
             return false;
         }
@@ -1582,15 +1682,14 @@ public class Lemming {
         } else {
             xm -= 1;
         }
-        Stencil stencil = LemGame.getStencil();
-        return ym >= 0 && !BooleanUtils.toBoolean((stencil.getMask(xm, ym) & Stencil.MSK_BRICK));
+        return ym >= 0 && !session.stencil.isBrick(xm, ym);
     }
 
     /**
      * Check if Lemming has fallen to/through the bottom of the level.
      */
     private boolean crossedLowerBorder() {
-        if (y >= LemGame.getHeight() + LemGame.getBottomBoundary()) {
+        if (y >= session.height + LemGame.getBottomBoundary()) {
             hasDied = true;
             playVisualSFX(Sound.Effect.DIE);
             return true;
@@ -1603,25 +1702,19 @@ public class Lemming {
      */
     private int aboveGround() {
         if (x < LemGame.getLeftBoundary()
-                || x >= LemGame.getWidth() + LemGame.getRightBoundary()) {
-            return LemGame.getHeight() + 1;
+                || x >= session.width + LemGame.getRightBoundary()) {
+            return session.height + 1;
         }
 
         int ym = y - 1;
-        if (ym >= LemGame.getHeight()) {
+        if (ym >= session.height) {
             return 0;
         }
-        int pos = x;
-        Stencil stencil = LemGame.getStencil();
-        pos += ym * LemGame.getWidth();
-        int levitation;
-        for (levitation = 0; levitation < WALKER_OBSTACLE_HEIGHT; levitation++, pos -= LemGame.getWidth(), ym--) {
-            if (ym < LemGame.getTopBoundary() - 1) {
-                return WALKER_OBSTACLE_HEIGHT + 1; // forbid leaving level to the top
-            }
-            if (!BooleanUtils.toBoolean(stencil.getMask(pos) & Stencil.MSK_BRICK)) {
-                break;
-            }
+        // rows from the foot up to the top boundary
+        int rows = Math.max(0, Math.min(WALKER_OBSTACLE_HEIGHT, ym - LemGame.getTopBoundary() + 2));
+        int levitation = session.stencil.bricksAbove(x, ym, rows);
+        if (levitation == rows && rows < WALKER_OBSTACLE_HEIGHT) {
+            return WALKER_OBSTACLE_HEIGHT + 1; // forbid leaving level to the top
         }
         return levitation;
     }
@@ -1631,25 +1724,23 @@ public class Lemming {
      */
     private boolean reachedPlateau(final int hand) {
         if (x - 2 < LemGame.getLeftBoundary()
-                || x + 2 >= LemGame.getWidth() + LemGame.getRightBoundary()) {
+                || x + 2 >= session.width + LemGame.getRightBoundary()) {
             return false;
         }
         int ym = y - hand;
-        if (ym >= LemGame.getHeight()) {
+        if (ym >= session.height) {
             return true;
         } else if (ym < 0 || ym <= LemGame.getTopBoundary()) {
             return false;
         }
-        int pos = x;
-        pos += ym * LemGame.getWidth();
-        return !BooleanUtils.toBoolean(LemGame.getStencil().getMask(pos) & Stencil.MSK_BRICK);
+        return !session.stencil.isBrick(x, ym);
     }
     
 //    /**
 //     * Check for a solid pixel relative to the lemming
 //     */    
 //    private boolean hasPixelAt(int x, int y) {
-//        Stencil stencil = LemGame.getStencil();
+//        Stencil stencil = session.stencil;
 //        return (stencil.getMask(x, y) & Stencil.MSK_BRICK) == 0;
 //    }
 
@@ -1688,6 +1779,8 @@ public class Lemming {
             throw new ResourceException(LEMM_INI_STR);
         }
         lemmings.clear();
+        minSize = 0;
+        maxSize = 0;
         // read lemmings
         LemGame.setLemmNames(p.get("names", "Lemming"));
         LemGame.setLemmNamesPlural(p.get("names_plural", "Lemmings"));
@@ -1742,6 +1835,8 @@ public class Lemming {
                 newLemResource.footX = val[0];
                 newLemResource.footY = val[1];
                 newLemResource.size  = val[2];
+                minSize = Math.min(minSize, val[2]);
+                maxSize = Math.max(maxSize, val[2]);
             }
             val = p.getIntArray("maskPos_" + i, null);
             if (val != null && val.length == 2) {
@@ -1752,6 +1847,13 @@ public class Lemming {
         }
     }
 
+    /**
+     * Check if getLemmingInfo() returns a non-empty string, without building it.
+     */
+    public boolean hasLemmingInfo() {
+        return !type.name.isEmpty();
+    }
+
     /**
      * Get display info for this Lemming.
      */
@@ -1978,7 +2080,7 @@ public class Lemming {
     /**
      * Get static resource for a skill/type
      */
-    private static LemmingResource getResource(final Type type) {
+    static LemmingResource getResource(final Type type) {
         return lemmings.get(getOrdinal(type));
     }
 
@@ -2011,6 +2113,20 @@ public class Lemming {
         return y - lemRes.size;
     }
 
+    /**
+     * Get the smallest distance between foot and midY() of all Lemming types.
+     */
+    static int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Get the largest distance between foot and midY() of all Lemming types.
+     */
+    static int getMaxSize() {
+        return maxSize;
+    }
+
     /**
      * Get x coordinate of foot in pixels
      */
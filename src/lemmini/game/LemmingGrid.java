@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid of the Lemmings in a level, bucketed by foot position.
+ * <p>
+ * Every cell is a doubly linked list threaded through the Lemmings themselves,
+ * so moving a Lemming to another cell doesn't allocate anything. Lemmings outside
+ * the level are kept in the nearest border cell.
+ * @author Will James
+ */
+final class LemmingGrid {
+
+    /** cells are 16x16 pixels */
+    private static final int CELL_BITS = 4;
+
+    private Lemming[] cells = new Lemming[1];
+    private int cols = 1;
+    private int rows = 1;
+
+    /**
+     * Set the size of the level and sort the given Lemmings into the new cells.
+     */
+    void resize(final int width, final int height, final List<Lemming> lemmings) {
+        cols = Math.max(width >> CELL_BITS, 0) + 1;
+        rows = Math.max(height >> CELL_BITS, 0) + 1;
+        cells = new Lemming[cols * rows];
+        for (Lemming l : lemmings) {
+            l.gridCell = -1;
+            insert(l);
+        }
+    }
+
+    private int cellOf(final int x, final int y) {
+        int cx = Math.clamp(x >> CELL_BITS, 0, cols - 1);
+        int cy = Math.clamp(y >> CELL_BITS, 0, rows - 1);
+        return cy * cols + cx;
+    }
+
+    void insert(final Lemming l) {
+        link(l, cellOf(l.footX(), l.footY()));
+    }
+
+    private void link(final Lemming l, final int cell) {
+        Lemming head = cells[cell];
+        l.gridCell = cell;
+        l.gridPrev = null;
+        l.gridNext = head;
+        if (head != null) {
+            head.gridPrev = l;
+        }
+        cells[cell] = l;
+    }
+
+    void remove(final Lemming l) {
+        if (l.gridCell < 0) {
+            return;
+        }
+        if (l.gridPrev != null) {
+            l.gridPrev.gridNext = l.gridNext;
+        } else {
+            cells[l.gridCell] = l.gridNext;
+        }
+        if (l.gridNext != null) {
+            l.gridNext.gridPrev = l.gridPrev;
+        }
+        l.gridCell = -1;
+        l.gridPrev = null;
+        l.gridNext = null;
+    }
+
+    /**
+     * Move a Lemming to the cell of its current position.
+     */
+    void update(final Lemming l) {
+        int cell = cellOf(l.footX(), l.footY());
+        if (cell != l.gridCell) {
+            remove(l);
+            link(l, cell);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(cells, null);
+    }
+
+    /**
+     * Add all Lemmings with their foot inside the given box (inclusive) to a list.
+     * Only the cells overlapping the box are visited, in no particular order.
+     */
+    void collect(final int x0, final int y0, final int x1, final int y1, final List<Lemming> out) {
+        int c0 = Math.clamp(x0 >> CELL_BITS, 0, cols - 1);
+        int c1 = Math.clamp(x1 >> CELL_BITS, 0, cols - 1);
+        int r0 = Math.clamp(y0 >> CELL_BITS, 0, rows - 1);
+        int r1 = Math.clamp(y1 >> CELL_BITS, 0, rows - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                for (Lemming l = cells[r * cols + c]; l != null; l = l.gridNext) {
+                    int x = l.footX();
+                    int y = l.footY();
+                    if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                        out.add(l);
+                    }
+                }
+            }
+        }
+    }
+}
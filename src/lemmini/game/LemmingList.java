@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Array backed list of the Lemmings in a level.
+ * <p>
+ * The index of a Lemming is its position among the Lemmings still in the level,
+ * which is what replays store for skill assignments. Lemmings that died or exited
+ * stay in the list until {@link #removeFinished()} compacts it once per frame, so
+ * the indices don't change while the Lemmings are animated. Every Lemming knows its
+ * own index, which makes {@link #indexOf(Object)} O(1).
+ * <p>
+ * The list also keeps a {@link LemmingGrid} of the Lemmings, so lookups by position
+ * only have to look at the Lemmings nearby, and mirrors the foot positions in
+ * plain arrays for loops that need nothing else, like drawing the minimap.
+ * The positions are updated when a Lemming is added or {@link #moved(Lemming) moved}.
+ * @author Will James
+ */
+final class LemmingList extends AbstractList<Lemming> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Comparator<Lemming> BY_INDEX = Comparator.comparingInt(l -> l.listIndex);
+
+    private Lemming[] items = new Lemming[INITIAL_CAPACITY];
+    private int[] footX = new int[INITIAL_CAPACITY];
+    private int[] footY = new int[INITIAL_CAPACITY];
+    private int size;
+    /** all Lemmings before this index are nuked, dead or exited */
+    private int nukeStart;
+    private final LemmingGrid grid = new LemmingGrid();
+    /** session the Lemmings of this list belong to */
+    private GameSession session;
+
+    /**
+     * Set the session the Lemmings added to this list belong to.
+     */
+    void setSession(final GameSession s) {
+        session = s;
+    }
+
+    @Override
+    public Lemming get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return items[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(final Lemming l) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+            footX = Arrays.copyOf(footX, size * 2);
+            footY = Arrays.copyOf(footY, size * 2);
+        }
+        l.listIndex = size;
+        l.session = session;
+        footX[size] = l.footX();
+        footY[size] = l.footY();
+        items[size++] = l;
+        grid.insert(l);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Lemming remove(final int index) {
+        Lemming l = get(index);
+        System.arraycopy(items, index + 1, items, index, size - index - 1);
+        System.arraycopy(footX, index + 1, footX, index, size - index - 1);
+        System.arraycopy(footY, index + 1, footY, index, size - index - 1);
+        items[--size] = null;
+        for (int i = index; i < size; i++) {
+            items[i].listIndex = i;
+        }
+        if (nukeStart > index) {
+            nukeStart--;
+        }
+        l.listIndex = -1;
+        grid.remove(l);
+        modCount++;
+        return l;
+    }
+
+    @Override
+    public int indexOf(final Object o) {
+        if (o instanceof Lemming) {
+            int idx = ((Lemming) o).listIndex;
+            if (idx >= 0 && idx < size && items[idx] == o) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            items[i].listIndex = -1;
+            items[i].gridCell = -1;
+            items[i].gridPrev = null;
+            items[i].gridNext = null;
+            items[i] = null;
+        }
+        grid.clear();
+        size = 0;
+        nukeStart = 0;
+        modCount++;
+    }
+
+    /**
+     * Remove all Lemmings that died or exited, keeping the order of the others.
+     * @return number of removed Lemmings
+     */
+    int removeFinished() {
+        int j = 0;
+        int newNukeStart = 0;
+        for (int i = 0; i < size; i++) {
+            Lemming l = items[i];
+            if (l.hasDied() || l.hasExited()) {
+                l.listIndex = -1;
+                grid.remove(l);
+            } else {
+                if (i < nukeStart) {
+                    newNukeStart++;
+                }
+                l.listIndex = j;
+                footX[j] = footX[i];
+                footY[j] = footY[i];
+                items[j++] = l;
+            }
+        }
+        int removed = size - j;
+        if (removed > 0) {
+            Arrays.fill(items, j, size, null);
+            size = j;
+            modCount++;
+        }
+        nukeStart = newNukeStart;
+        return removed;
+    }
+
+    /**
+     * Get the first Lemming that can still be nuked.
+     * Lemmings before it are skipped by later calls since they can't be nuked anymore.
+     * @return Lemming or null if there is none
+     */
+    Lemming nextToNuke() {
+        while (nukeStart < size) {
+            Lemming l = items[nukeStart];
+            if (!l.nuke() && !l.hasDied() && !l.hasExited()) {
+                return l;
+            }
+            nukeStart++;
+        }
+        return null;
+    }
+
+    /**
+     * Set the level size used for the grid.
+     */
+    void setArea(final int width, final int height) {
+        grid.resize(width, height, this);
+    }
+
+    /**
+     * Update the stored position and grid cell of a Lemming after it moved.
+     */
+    void moved(final Lemming l) {
+        int idx = indexOf(l);
+        if (idx >= 0) {
+            footX[idx] = l.footX();
+            footY[idx] = l.footY();
+            grid.update(l);
+        }
+    }
+
+    /**
+     * Get the foot x coordinates of all Lemmings, by list index.
+     * Only the first {@link #size()} entries are valid and the array must not be changed.
+     */
+    int[] getFootX() {
+        return footX;
+    }
+
+    /**
+     * Get the foot y coordinates of all Lemmings, by list index.
+     * Only the first {@link #size()} entries are valid and the array must not be changed.
+     */
+    int[] getFootY() {
+        return footY;
+    }
+
+    /**
+     * Add all Lemmings with their foot inside the given box (inclusive) to a list,
+     * in the order of this list.
+     */
+    void findNear(final int x0, final int y0, final int x1, final int y1, final List<Lemming> out) {
+        int start = out.size();
+        grid.collect(x0, y0, x1, y1, out);
+        out.subList(start, out.size()).sort(BY_INDEX);
+    }
+}
@@ -12,11 +12,13 @@ import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import lemmini.gameutil.ActiveSprites;
 import lemmini.gameutil.Sprite;
 import lemmini.graphics.GraphicsBuffer;
 import lemmini.graphics.GraphicsContext;
@@ -71,6 +73,8 @@ public class Level {
     private static final int BG_BUFFER_PADDING = 4;
     private static final int BG_BUFFER_UNSCALED_INDEX = 0;
     private static final int BG_BUFFER_SCALED_INDEX = 1;
+    /** rows per band of paintTerrain - a multiple of 64, so bands never share a word of the stencil's column planes */
+    private static final int TERRAIN_BAND_HEIGHT = 64;
 
     /** default maximum release rate */
     private static final int DEFAULT_MAX_RELEASE_RATE = 99;
@@ -111,6 +115,8 @@ public class Level {
     private SpriteObject[] sprObjFront;
     /** array of all sprite objects (in front and behind) */
     private SpriteObject[] sprObjects;
+    /** sprite objects that are animating or triggered */
+    private ActiveSprites activeSprObjects;
     /** lists of combined level components, grouped by the desired layer */
     private List<SpriteObject> oCombined;
     private List<SpriteObject> oBehind;
@@ -121,7 +127,7 @@ public class Level {
     private final int releaseRate;
     private final int maxReleaseRate;
     private final boolean lockReleaseRate;
-    /** number of Lemmings in this level (maximum 0x0072 in original LVL format) */
+    /** number of Lemmings in this level (maximum 0x0072 in original LVL format, no limit in INI levels) */
     private final int numLemmings;
     /** number of Lemmings to rescue: should be less than or equal to number of Lemmings */
     private final int numToRescue;
@@ -181,12 +187,19 @@ public class Level {
      * Load a level and all level resources.
      */
     public Level(final Resource resource, final Level level2) throws ResourceException, LemException {
+        this(resource, level2, LemGame.getCurLevelPack());
+    }
+
+    /**
+     * Load a level of the given level pack and all level resources.
+     */
+    public Level(final Resource resource, final Level level2, final LevelPack levelPack) throws ResourceException, LemException {
         levelProps = new ArrayList<>(4);
         hints = new ArrayList<>(4);
         // read level properties from file
         Props p = new Props();
         if (!p.load(resource)) {
-        	System.out.println("Level listed in the levelpack.ini for " + LemGame.getCurLevelPack().getName() + " could not be loaded.");
+        	System.out.println("Level listed in the levelpack.ini for " + levelPack.getName() + " could not be loaded.");
         }
         levelProps.add(p);
 
@@ -206,7 +219,7 @@ public class Level {
         if (modsStr != null && modsStr.length > 0)
             levelMods = Arrays.stream(modsStr).map(mod -> "mods/" + mod).collect(Collectors.toList());
         else
-        	levelMods = LemGame.getCurLevelPack().getModPaths(); // fallback to level pack mods
+        	levelMods = levelPack.getModPaths(); // fallback to level pack mods
 
         // read name and author
         lvlName = Props.get(levelProps, "name", StringUtils.EMPTY);
@@ -221,7 +234,7 @@ public class Level {
                 break;
             }
         }
-        maxFallDistance = Props.getInt(levelProps, "maxFallDistance", LemGame.getCurLevelPack().getMaxFallDistance());
+        maxFallDistance = Props.getInt(levelProps, "maxFallDistance", levelPack.getMaxFallDistance());
         classicSteel = Props.getBoolean(levelProps, "classicSteel", false);
         switch (p.getInt("autosteelMode", 0)) {
             case 0:
@@ -464,6 +477,8 @@ public class Level {
     }
 
     void paintTerrain() throws ResourceException, LemException {
+        // load all styles and pieces first, the bands below only read them
+        List<TerrainPiece> pieces = new ArrayList<>(terrain.size());
         for (Terrain t : terrain) {
             if (t.id < 0) {
                 continue;
@@ -473,161 +488,153 @@ public class Level {
                 styles.put(styleLowerCase, new LemStyle(t.style));
             }
             LemStyle terrainStyle = styles.get(styleLowerCase);
-
-            LemImage i;
-            boolean[][] mask;
-            boolean[][] steelMask;
-            int width;
-            int height;
-            int maskWidth;
-            int maskHeight;
-            int steelMaskWidth;
-            int steelMaskHeight;
-            boolean isSteel;
-            
-            LemStyle.Terrain t2 = terrainStyle.getTerrain(t.id);
-            i = t2.getImage();
-            mask = t2.getMask();
-            steelMask = t2.getSteelMask();
-            width = i.getWidth();
-            height = i.getHeight();
-            maskWidth = ArrayUtils.isNotEmpty(mask) ? mask[0].length : 0;
-            maskHeight = mask.length;
-            steelMaskWidth = ArrayUtils.isNotEmpty(steelMask) ? steelMask[0].length : 0;
-            steelMaskHeight = steelMask.length;
-            isSteel = t2.isSteel();
-            if (autosteelMode == AutosteelMode.NONE) {
-                isSteel = false;
+            TerrainPiece piece = new TerrainPiece(t, terrainStyle.getTerrain(t.id));
+            if (piece.xMin < piece.xMax) {
+                pieces.add(piece);
             }
+        }
 
-            int tx = t.xPos;
-            int ty = t.yPos;
-            boolean rotate = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_ROTATE);
-            boolean noOneWay = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_NO_ONE_WAY);
-            boolean flipHorizontally = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_FLIP_HORIZONTALLY);
-            boolean fake = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_FAKE);
-            boolean upsideDown = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_UPSIDE_DOWN);
-            boolean noOverwrite = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_NO_OVERWRITE);
-            boolean remove = !noOverwrite && BooleanUtils.toBoolean(t.modifier & Terrain.MODE_REMOVE);
-            boolean invisible = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_INVISIBLE);
-            int width2 = width;
-            int height2 = height;
-            if (rotate) {
-                width = height2;
-                height = width2;
+        // a pixel only depends on the pieces drawn before it at the same position,
+        // so bands of rows can be composed independently
+        int numBands = (levelHeight + TERRAIN_BAND_HEIGHT - 1) / TERRAIN_BAND_HEIGHT;
+        IntStream bands = IntStream.range(0, numBands);
+        if (numBands > 1 && !LemGame.getSession().isDetached()) {
+            // detached sessions already run on a pool of their own
+            bands = bands.parallel();
+        }
+        bands.forEach(band -> {
+            int yStart = band * TERRAIN_BAND_HEIGHT;
+            int yEnd = Math.min(yStart + TERRAIN_BAND_HEIGHT, levelHeight);
+            for (TerrainPiece piece : pieces) {
+                paintTerrainPiece(piece, yStart, yEnd);
             }
+        });
+    }
 
-            for (int y = 0; y < height; y++) {
-                if (y + ty < 0 || y + ty >= levelHeight) {
-                    continue;
-                }
-                for (int x = 0; x < width; x++) {
-                    if (x + tx < 0 || x + tx >= levelWidth) {
-                        continue;
-                    }
-                    int x2 = x;
-                    int y2 = y;
-                    if (upsideDown) {
-                        y2 = height - 1 - y2;
-                    }
-                    if (flipHorizontally) {
-                        x2 = width - 1 - x2;
-                    }
-                    if (rotate) {
-                        int oldX2 = x2;
-                        x2 = y2;
-                        y2 = height2 - 1 - oldX2;
-                    }
-                    int col = i.getRGB(x2, y2);
-                    int alpha = (col >>> 24) & 0xff;
-                    boolean isPixelOpaque = alpha >= 0x80;
-                    boolean wasEmpty = !fgImage.isPixelOpaque(x + tx, y + ty);
-                    // ignore transparent pixels
-                    if (!invisible && (col & 0xff000000) != 0) {
-                    	if (noOverwrite) {
-                    	    if (noOneWay && isPixelOpaque && wasEmpty) {
-                    	        stencil.orMask(x + tx, y + ty, Stencil.MSK_NO_ONE_WAY_DRAW);
-                    	    }
-                    	    fgImage.addRGBBehind(x + tx, y + ty, col);
-                        } else if (remove) {
-                            if (noOneWay && isPixelOpaque) {
+    /**
+     * Paint the rows of a terrain piece that lie between yStart (inclusive) and yEnd (exclusive).
+     */
+    private void paintTerrainPiece(final TerrainPiece piece, final int yStart, final int yEnd) {
+        int tx = piece.tx;
+        int ty = piece.ty;
+        int yFrom = Math.max(0, yStart - ty);
+        int yTo = Math.min(piece.height, yEnd - ty);
+        if (yFrom >= yTo) {
+            return;
+        }
+        LemStyle.OrientedTerrain ot = piece.orientedTerrain;
+        int[] pixels = ot.getPixels();
+        int width = piece.width;
+        boolean isSteel = piece.isSteel;
+        boolean noOneWay = piece.noOneWay;
+        boolean fake = piece.fake;
+        boolean noOverwrite = piece.noOverwrite;
+        boolean remove = piece.remove;
+        boolean invisible = piece.invisible;
+        int xMin = piece.xMin;
+        int xMax = piece.xMax;
+
+        // colors of the current row, drawn to the foreground image after the stencil is done
+        int[] row = new int[xMax - xMin];
+        for (int y = yFrom; y < yTo; y++) {
+            System.arraycopy(pixels, y * width + xMin, row, 0, row.length);
+            for (int x = xMin; x < xMax; x++) {
+                int col = row[x - xMin];
+                int alpha = (col >>> 24) & 0xff;
+                boolean isPixelOpaque = alpha >= 0x80;
+                boolean wasEmpty = !fgImage.isPixelOpaque(x + tx, y + ty);
+                // ignore transparent pixels
+                if (!invisible && (col & 0xff000000) != 0) {
+                	if (noOverwrite) {
+                	    if (noOneWay && isPixelOpaque && wasEmpty) {
+                	        stencil.orMask(x + tx, y + ty, Stencil.MSK_NO_ONE_WAY_DRAW);
+                	    }
+                    } else if (remove) {
+                        if (noOneWay && isPixelOpaque) {
+                            stencil.andMask(x + tx, y + ty, ~Stencil.MSK_NO_ONE_WAY_DRAW);
+                        }
+                    } else {
+                        if (isPixelOpaque) {
+                            if (noOneWay) {
+                                stencil.orMask(x + tx, y + ty, Stencil.MSK_NO_ONE_WAY_DRAW);
+                            } else {
                                 stencil.andMask(x + tx, y + ty, ~Stencil.MSK_NO_ONE_WAY_DRAW);
                             }
-                            fgImage.removeAlpha(x + tx, y + ty, alpha);
-                        } else {
-                            if (isPixelOpaque) {
-                                if (noOneWay) {
-                                    stencil.orMask(x + tx, y + ty, Stencil.MSK_NO_ONE_WAY_DRAW);
-                                } else {
-                                    stencil.andMask(x + tx, y + ty, ~Stencil.MSK_NO_ONE_WAY_DRAW);
-                                }
-                            }
-                            fgImage.addRGB(x + tx, y + ty, col);
                         }
                     }
-                    if (!fake && y2 < maskHeight && x2 < maskWidth && mask[y2][x2]) {
-                        int newMask;
-                        if (remove) {
-                            newMask = stencil.getMask(x + tx, y + ty) & Stencil.MSK_NO_ONE_WAY_DRAW;
-                        } else if (noOverwrite) {
-                        	if (wasEmpty) {
-                                newMask = stencil.getMask(x + tx, y + ty) | Stencil.MSK_BRICK;
-                                if (noOneWay) {
-                                    newMask |= Stencil.MSK_NO_ONE_WAY;
-                                }
-                            } else {
-                                newMask = stencil.getMask(x + tx, y + ty);
-                            }
-                        } else {
+                }
+                if (!fake && ot.isMask(x, y)) {
+                    int newMask;
+                    if (remove) {
+                        newMask = stencil.getMask(x + tx, y + ty) & Stencil.MSK_NO_ONE_WAY_DRAW;
+                    } else if (noOverwrite) {
+                    	if (wasEmpty) {
                             newMask = stencil.getMask(x + tx, y + ty) | Stencil.MSK_BRICK;
                             if (noOneWay) {
                                 newMask |= Stencil.MSK_NO_ONE_WAY;
-                            } else {
-                                newMask &= ~Stencil.MSK_NO_ONE_WAY;
                             }
+                        } else {
+                            newMask = stencil.getMask(x + tx, y + ty);
                         }
-                        stencil.setMask(x + tx, y + ty, newMask);
-                    }
-                    if (!fake && y2 < steelMaskHeight && x2 < steelMaskWidth && steelMask[y2][x2]) {
-                        int newMask = stencil.getMask(x + tx, y + ty);
-                        if (remove) {
-                        } else if (noOverwrite) {
-                            switch (autosteelMode) {
-                                case NONE:
-                                default:
-                                    break;
-                                case SIMPLE:
-                                    if (isSteel) {
-                                        newMask |= Stencil.MSK_STEEL_BRICK;
-                                    }
-                                    break;
-                                case ADVANCED:
-                                    if (isSteel && !BooleanUtils.toBoolean(stencil.getMask(x + tx, y + ty) & Stencil.MSK_BRICK)) {
-                                        newMask |= Stencil.MSK_STEEL_BRICK;
-                                    }
-                                    break;
-                            }
+                    } else {
+                        newMask = stencil.getMask(x + tx, y + ty) | Stencil.MSK_BRICK;
+                        if (noOneWay) {
+                            newMask |= Stencil.MSK_NO_ONE_WAY;
                         } else {
-                            switch (autosteelMode) {
-                                case NONE:
-                                default:
-                                    break;
-                                case SIMPLE:
-                                    if (isSteel) {
-                                        newMask |= Stencil.MSK_STEEL_BRICK;
-                                    }
-                                    break;
-                                case ADVANCED:
-                                    if (isSteel) {
-                                        newMask |= Stencil.MSK_STEEL_BRICK;
-                                    } else {
-                                        newMask &= ~Stencil.MSK_STEEL_BRICK;
-                                    }
-                                    break;
-                            }
+                            newMask &= ~Stencil.MSK_NO_ONE_WAY;
+                        }
+                    }
+                    stencil.setMask(x + tx, y + ty, newMask);
+                }
+                if (!fake && ot.isSteelMask(x, y)) {
+                    int newMask = stencil.getMask(x + tx, y + ty);
+                    if (remove) {
+                    } else if (noOverwrite) {
+                        switch (autosteelMode) {
+                            case NONE:
+                            default:
+                                break;
+                            case SIMPLE:
+                                if (isSteel) {
+                                    newMask |= Stencil.MSK_STEEL_BRICK;
+                                }
+                                break;
+                            case ADVANCED:
+                                if (isSteel && !BooleanUtils.toBoolean(stencil.getMask(x + tx, y + ty) & Stencil.MSK_BRICK)) {
+                                    newMask |= Stencil.MSK_STEEL_BRICK;
+                                }
+                                break;
+                        }
+                    } else {
+                        switch (autosteelMode) {
+                            case NONE:
+                            default:
+                                break;
+                            case SIMPLE:
+                                if (isSteel) {
+                                    newMask |= Stencil.MSK_STEEL_BRICK;
+                                }
+                                break;
+                            case ADVANCED:
+                                if (isSteel) {
+                                    newMask |= Stencil.MSK_STEEL_BRICK;
+                                } else {
+                                    newMask &= ~Stencil.MSK_STEEL_BRICK;
+                                }
+                                break;
                         }
-                        stencil.setMask(x + tx, y + ty, newMask);
                     }
+                    stencil.setMask(x + tx, y + ty, newMask);
+                }
+            }
+            // every pixel only depends on itself, so the whole row can be drawn at once
+            if (!invisible) {
+                if (noOverwrite) {
+                    fgImage.addRGBBehind(xMin + tx, y + ty, row.length, row, 0);
+                } else if (remove) {
+                    fgImage.removeAlpha(xMin + tx, y + ty, row.length, row, 0);
+                } else {
+                    fgImage.addRGB(xMin + tx, y + ty, row.length, row, 0);
                 }
             }
         }
@@ -797,6 +804,7 @@ public class Level {
             List<SpriteObject> bgOBehind = new ArrayList<>(32);
             for (int m = 0; m < backgrounds.length; m++) {
                 Background bg = backgrounds[m];
+                bg.drawnImages = null;
                 LemImage targetBg = bgImages[m];
                 LemImage unpaddedBg = ToolBox.createLemImage(
                         targetBg.getWidth() - BG_BUFFER_PADDING * 2,
@@ -815,10 +823,6 @@ public class Level {
                     }
                     LemStyle terrainStyle = styles.get(styleLowerCase);
 
-                    LemImage i = terrainStyle.getTerrain(t.id).getImage();
-                    int width = i.getWidth();
-                    int height = i.getHeight();
-
                     int tx = t.xPos;
                     int ty = t.yPos;
                     boolean rotate = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_ROTATE);
@@ -826,45 +830,29 @@ public class Level {
                     boolean upsideDown = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_UPSIDE_DOWN);
                     boolean overwrite = !BooleanUtils.toBoolean(t.modifier & Terrain.MODE_NO_OVERWRITE);
                     boolean remove = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_REMOVE);
-                    int width2 = width;
-                    int height2 = height;
-                    if (rotate) {
-                        width = height2;
-                        height = width2;
+                    LemStyle.OrientedTerrain ot = terrainStyle.getTerrain(t.id).getOrientedTerrain(
+                            LemStyle.Orientation.getOrientation(flipHorizontally, upsideDown, rotate));
+                    int[] pixels = ot.getPixels();
+                    int width = ot.getWidth();
+                    int height = ot.getHeight();
+
+                    int xMin = Math.max(0, -tx);
+                    int xMax = Math.min(width, unpaddedBg.getWidth() - tx);
+                    if (xMin >= xMax) {
+                        continue;
                     }
-
                     for (int y = 0; y < height; y++) {
                         if (y + ty < 0 || y + ty >= unpaddedBg.getHeight()) {
                             continue;
                         }
-                        for (int x = 0; x < width; x++) {
-                            if (x + tx < 0 || x + tx >= unpaddedBg.getWidth()) {
-                                continue;
-                            }
-                            int x2 = x;
-                            int y2 = y;
-                            if (upsideDown) {
-                                y2 = height - 1 - y2;
-                            }
-                            if (flipHorizontally) {
-                                x2 = width - 1 - x2;
-                            }
-                            if (rotate) {
-                                int oldX2 = x2;
-                                x2 = y2;
-                                y2 = height2 - 1 - oldX2;
-                            }
-                            int col = i.getRGB(x2, y2);
-                            // ignore transparent pixels
-                            if ((col & 0xff000000) != 0) {
-                                if (!overwrite) {
-                                    unpaddedBg.addRGBBehind(x + tx, y + ty, col);
-                                } else if (remove) {
-                                    unpaddedBg.removeAlpha(x + tx, y + ty, (col >>> 24) & 0xff);
-                                } else {
-                                    unpaddedBg.addRGB(x + tx, y + ty, col);
-                                }
-                            }
+                        // transparent pixels leave the background as it is
+                        int offset = y * width + xMin;
+                        if (!overwrite) {
+                            unpaddedBg.addRGBBehind(xMin + tx, y + ty, xMax - xMin, pixels, offset);
+                        } else if (remove) {
+                            unpaddedBg.removeAlpha(xMin + tx, y + ty, xMax - xMin, pixels, offset);
+                        } else {
+                            unpaddedBg.addRGB(xMin + tx, y + ty, xMax - xMin, pixels, offset);
                         }
                     }
                 }
@@ -944,6 +932,7 @@ public class Level {
                 }
 
                 bg.sprObjects = bgOCombined.toArray(new SpriteObject[bgOCombined.size()]);
+                bg.activeSprObjects = new ActiveSprites(bg.sprObjects);
                 bg.sprObjFront = bgOFront.toArray(new SpriteObject[bgOFront.size()]);
                 bg.sprObjBehind = bgOBehind.toArray(new SpriteObject[bgOBehind.size()]);
             }
@@ -958,8 +947,13 @@ public class Level {
         sprObjFront = null;
         sprObjBehind = null;
         sprObjects = null;
+        activeSprObjects = null;
         entrances = null;
-        System.gc();
+        // skip explicit collection for background sessions, it would stall every worker
+        boolean collect = !LemGame.getSession().isDetached();
+        if (collect) {
+            System.gc();
+        }
 
         createLevelImage();
         createStencil();
@@ -976,9 +970,12 @@ public class Level {
         paintBackground();
 
         sprObjects = oCombined.toArray(new SpriteObject[oCombined.size()]);
+        activeSprObjects = new ActiveSprites(sprObjects);
         sprObjFront = oFront.toArray(new SpriteObject[oFront.size()]);
         sprObjBehind = oBehind.toArray(new SpriteObject[oBehind.size()]);
-        System.gc();
+        if (collect) {
+            System.gc();
+        }
     }
 
     public LemImage getFgImage() {
@@ -989,16 +986,42 @@ public class Level {
         return stencil;
     }
 
+    /**
+     * Get the current frames of the objects of the level and of its background layers.
+     * They can be drawn while the objects go on animating.
+     */
+    public ObjectImages captureObjectImages() {
+        LemImage[][] bgBehind = new LemImage[(backgrounds != null) ? backgrounds.length : 0][];
+        LemImage[][] bgFront = new LemImage[bgBehind.length][];
+        for (int i = 0; i < bgBehind.length; i++) {
+            bgBehind[i] = getImages(backgrounds[i].sprObjBehind);
+            bgFront[i] = getImages(backgrounds[i].sprObjFront);
+        }
+        return new ObjectImages(getImages(sprObjBehind), getImages(sprObjFront), bgBehind, bgFront);
+    }
+
+    private static LemImage[] getImages(final SpriteObject[] sprites) {
+        if (sprites == null) {
+            return null;
+        }
+        LemImage[] images = new LemImage[sprites.length];
+        for (int n = 0; n < sprites.length; n++) {
+            images[n] = sprites[n].getImage();
+        }
+        return images;
+    }
+
     /**
      * Draw opaque objects behind foreground image.
+     * @param images frames captured by {@link #captureObjectImages()}
      */
     public void drawBehindObjects(final GraphicsContext g, final int width, final int height,
-            final int xOfs, final int yOfs) {
+            final int xOfs, final int yOfs, final ObjectImages images) {
         // draw "behind" objects
         if (sprObjBehind != null) {
             for (int n = sprObjBehind.length - 1; n >= 0; n--) {
                 SpriteObject spr = sprObjBehind[n];
-                LemImage img = spr.getImage();
+                LemImage img = images.behind[n];
                 if (spr.getX() + spr.getWidth() > xOfs && spr.getX() < xOfs + width
                         && spr.getY() + spr.getHeight() > yOfs && spr.getY() < yOfs + height) {
                     g.drawImage(img, spr.getX() - xOfs, spr.getY() - yOfs);
@@ -1009,13 +1032,15 @@ public class Level {
 
     /**
      * Draw transparent objects in front of foreground image.
+     * @param images frames captured by {@link #captureObjectImages()}
      */
     public void drawInFrontObjects(final GraphicsContext g, final int width, final int height,
-            final int xOfs, final int yOfs) {
+            final int xOfs, final int yOfs, final ObjectImages images) {
         // draw "in front" objects
         if (sprObjFront != null) {
-            for (SpriteObject spr : sprObjFront) {
-                LemImage img = spr.getImage();
+            for (int n = 0; n < sprObjFront.length; n++) {
+                SpriteObject spr = sprObjFront[n];
+                LemImage img = images.front[n];
                 if (spr.getX() + spr.getWidth() > xOfs && spr.getX() < xOfs + width
                         && spr.getY() + spr.getHeight() > yOfs && spr.getY() < yOfs + height) {
                     g.drawImage(img, spr.getX() - xOfs, spr.getY() - yOfs);
@@ -1026,9 +1051,10 @@ public class Level {
 
     /**
      * Draw the background layers behind the foreground image.
+     * @param images frames captured by {@link #captureObjectImages()}
      */
     public void drawBackground(final GraphicsContext g, final int width, final int height,
-            final int xOfs, final int yOfs) {
+            final int xOfs, final int yOfs, final ObjectImages images) {
         if (ArrayUtils.isEmpty(bgImages)) {
             return;
         }
@@ -1048,47 +1074,51 @@ public class Level {
                 continue;
             }
 
-            LemImage unscaledBufferImg = buffers[BG_BUFFER_UNSCALED_INDEX].getImage();
-            GraphicsContext unscaledBufferGfx = buffers[BG_BUFFER_UNSCALED_INDEX].getGraphicsContext();
-            unscaledBufferGfx.clearRect(0, 0, unscaledBufferImg.getWidth(), unscaledBufferImg.getHeight());
-
-            for (int y = BG_BUFFER_PADDING - (bg.tiled ? bgImageHeight : 0), j = 0; j < (bg.tiled ? 3 : 1); y += bgImageHeight, j++) {
-                for (int x = BG_BUFFER_PADDING - (bg.tiled ? bgImageWidth : 0), k = 0; k < (bg.tiled ? 3 : 1);  x += bgImageWidth, k++) {
-                    // draw "behind" objects
-                    if (bg.sprObjBehind != null) {
-                        for (int n = bg.sprObjBehind.length - 1; n >= 0; n--) {
-                            SpriteObject spr = bg.sprObjBehind[n];
-                            LemImage img = spr.getImage();
-                            unscaledBufferGfx.drawImage(img, x + spr.getX(), y + spr.getY());
+            LemImage scaledBufferImg = buffers[BG_BUFFER_SCALED_INDEX].getImage();
+            // only compose and scale the layer again if something in it changed
+            LemImage[] behindImages = images.bgBehind[i];
+            LemImage[] frontImages = images.bgFront[i];
+            if (bg.needsRedraw(bgImage, Core.isBilinear(), behindImages, frontImages)) {
+                LemImage unscaledBufferImg = buffers[BG_BUFFER_UNSCALED_INDEX].getImage();
+                GraphicsContext unscaledBufferGfx = buffers[BG_BUFFER_UNSCALED_INDEX].getGraphicsContext();
+                unscaledBufferGfx.clearRect(0, 0, unscaledBufferImg.getWidth(), unscaledBufferImg.getHeight());
+
+                for (int y = BG_BUFFER_PADDING - (bg.tiled ? bgImageHeight : 0), j = 0; j < (bg.tiled ? 3 : 1); y += bgImageHeight, j++) {
+                    for (int x = BG_BUFFER_PADDING - (bg.tiled ? bgImageWidth : 0), k = 0; k < (bg.tiled ? 3 : 1);  x += bgImageWidth, k++) {
+                        // draw "behind" objects
+                        if (bg.sprObjBehind != null) {
+                            for (int n = bg.sprObjBehind.length - 1; n >= 0; n--) {
+                                SpriteObject spr = bg.sprObjBehind[n];
+                                unscaledBufferGfx.drawImage(behindImages[n], x + spr.getX(), y + spr.getY());
+                            }
                         }
                     }
                 }
-            }
 
-            unscaledBufferGfx.drawImage(bgImage, 0, 0);
+                unscaledBufferGfx.drawImage(bgImage, 0, 0);
 
-            for (int y = BG_BUFFER_PADDING - (bg.tiled ? bgImageHeight : 0), j = 0; j < (bg.tiled ? 3 : 1); y += bgImageHeight, j++) {
-                for (int x = BG_BUFFER_PADDING - (bg.tiled ? bgImageWidth : 0), k = 0; k < (bg.tiled ? 3 : 1);  x += bgImageWidth, k++) {
-                    // draw "in front" objects
-                    if (bg.sprObjFront != null) {
-                        for (SpriteObject spr : bg.sprObjFront) {
-                            LemImage img = spr.getImage();
-                            unscaledBufferGfx.drawImage(img, x + spr.getX(), y + spr.getY());
+                for (int y = BG_BUFFER_PADDING - (bg.tiled ? bgImageHeight : 0), j = 0; j < (bg.tiled ? 3 : 1); y += bgImageHeight, j++) {
+                    for (int x = BG_BUFFER_PADDING - (bg.tiled ? bgImageWidth : 0), k = 0; k < (bg.tiled ? 3 : 1);  x += bgImageWidth, k++) {
+                        // draw "in front" objects
+                        if (bg.sprObjFront != null) {
+                            for (int n = 0; n < bg.sprObjFront.length; n++) {
+                                SpriteObject spr = bg.sprObjFront[n];
+                                unscaledBufferGfx.drawImage(frontImages[n], x + spr.getX(), y + spr.getY());
+                            }
                         }
                     }
                 }
-            }
 
-            LemImage scaledBufferImg = buffers[BG_BUFFER_SCALED_INDEX].getImage();
-            GraphicsContext scaledBufferGfx = buffers[BG_BUFFER_SCALED_INDEX].getGraphicsContext();
-            scaledBufferGfx.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                    Core.isBilinear()
-                            ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
-                            : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-            scaledBufferGfx.clearRect(0, 0, scaledBufferImg.getWidth(), scaledBufferImg.getHeight());
-            scaledBufferGfx.drawImage(unscaledBufferImg,
-                    -bgBufferPaddingScaled, -bgBufferPaddingScaled,
-                    bgImageWidthScaled + bgBufferPaddingScaled * 2, bgImageHeightScaled + bgBufferPaddingScaled * 2);
+                GraphicsContext scaledBufferGfx = buffers[BG_BUFFER_SCALED_INDEX].getGraphicsContext();
+                scaledBufferGfx.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        Core.isBilinear()
+                                ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                                : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                scaledBufferGfx.clearRect(0, 0, scaledBufferImg.getWidth(), scaledBufferImg.getHeight());
+                scaledBufferGfx.drawImage(unscaledBufferImg,
+                        -bgBufferPaddingScaled, -bgBufferPaddingScaled,
+                        bgImageWidthScaled + bgBufferPaddingScaled * 2, bgImageHeightScaled + bgBufferPaddingScaled * 2);
+            }
 
             int xOfsNew = (int) (-xOfs * bg.scrollSpeedX) + bg.offsetX;
             int yOfsNew = (int) (-yOfs * bg.scrollSpeedY) + bg.offsetY;
@@ -1115,10 +1145,8 @@ public class Level {
 
     public void advanceBackgroundFrame() {
         for (Background bg : backgrounds) {
-            for (SpriteObject spr : bg.sprObjects) {
-                if (spr != null) {
-                    spr.getImageAnim(); // just to animate
-                }
+            if (bg.activeSprObjects != null) {
+                bg.activeSprObjects.animate();
             }
         }
     }
@@ -1153,7 +1181,7 @@ public class Level {
             gx.clearRect(0, 0, img.getWidth(), img.getHeight());
             // draw background image
             if (drawBackground) {
-                drawBackground(gx, fgImage.getWidth(), fgImage.getHeight(), 0, 0);
+                drawBackground(gx, fgImage.getWidth(), fgImage.getHeight(), 0, 0, captureObjectImages());
             }
             // draw "behind" objects
             if (level != null && level.sprObjBehind != null) {
@@ -1202,6 +1230,38 @@ public class Level {
         return img;
     }
 
+    /**
+     * Redraw a single pixel of a minimap created by {@link #createMinimap} without a background
+     * image: the level pixel at (x, y) with all objects is drawn to (minimapX, minimapY).
+     */
+    void redrawMinimapPixel(final LemImage minimap, final int minimapX, final int minimapY,
+            final LemImage fgImage, final int x, final int y, final boolean tint) {
+        minimap.setRGB(minimapX, minimapY, tint ? 0 : getBgColor().getRGB());
+        if (sprObjBehind != null) {
+            for (int n = sprObjBehind.length - 1; n >= 0; n--) {
+                addObjectPixel(minimap, minimapX, minimapY, sprObjBehind[n], x, y);
+            }
+        }
+        minimap.addRGB(minimapX, minimapY, fgImage.getRGB(x, y));
+        if (sprObjFront != null) {
+            for (SpriteObject spr : sprObjFront) {
+                addObjectPixel(minimap, minimapX, minimapY, spr, x, y);
+            }
+        }
+        if (tint) {
+            minimap.setRGB(minimapX, minimapY, Minimap.tintColor(minimap.getRGB(minimapX, minimapY)));
+        }
+    }
+
+    private static void addObjectPixel(final LemImage minimap, final int minimapX, final int minimapY,
+            final SpriteObject spr, final int x, final int y) {
+        int sx = x - spr.getX();
+        int sy = y - spr.getY();
+        if (sx >= 0 && sx < spr.getWidth() && sy >= 0 && sy < spr.getHeight()) {
+            minimap.addRGB(minimapX, minimapY, spr.getImage().getRGB(sx, sy));
+        }
+    }
+
     /**
      * Get level sprite object via index.
      */
@@ -1213,6 +1273,31 @@ public class Level {
         }
     }
 
+    /**
+     * Animate all level sprite objects whose animation still changes something.
+     */
+    public void animateSprObjects() {
+        if (activeSprObjects != null) {
+            activeSprObjects.animate();
+        }
+    }
+
+    /**
+     * Check if any level sprite object is triggered.
+     */
+    public boolean isAnySprObjectTriggered() {
+        return activeSprObjects != null && activeSprObjects.isAnyTriggered();
+    }
+
+    /**
+     * Get the index of the next triggered level sprite object.
+     * @param from index to start searching at
+     * @return index of the object or -1 if there is none
+     */
+    public int nextTriggeredSprObject(final int from) {
+        return (activeSprObjects != null) ? activeSprObjects.nextTriggered(from) : -1;
+    }
+
     /**
      * Get number of level sprite objects.
      */
@@ -1544,6 +1629,48 @@ public class Level {
         }
     }
 
+    /**
+     * Terrain tile with its oriented graphics and its modifiers resolved, as used by paintTerrain.
+     */
+    private class TerrainPiece {
+
+        final LemStyle.OrientedTerrain orientedTerrain;
+        final int width;
+        final int height;
+        final boolean isSteel;
+        final int tx;
+        final int ty;
+        final boolean noOneWay;
+        final boolean fake;
+        final boolean noOverwrite;
+        final boolean remove;
+        final boolean invisible;
+        /** columns of the tile inside the level, xMin >= xMax if there are none */
+        final int xMin;
+        final int xMax;
+
+        TerrainPiece(final Terrain t, final LemStyle.Terrain t2) throws LemException {
+            boolean rotate = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_ROTATE);
+            boolean flipHorizontally = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_FLIP_HORIZONTALLY);
+            boolean upsideDown = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_UPSIDE_DOWN);
+            orientedTerrain = t2.getOrientedTerrain(LemStyle.Orientation.getOrientation(flipHorizontally, upsideDown, rotate));
+            width = orientedTerrain.getWidth();
+            height = orientedTerrain.getHeight();
+            isSteel = t2.isSteel() && autosteelMode != AutosteelMode.NONE;
+
+            tx = t.xPos;
+            ty = t.yPos;
+            noOneWay = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_NO_ONE_WAY);
+            fake = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_FAKE);
+            noOverwrite = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_NO_OVERWRITE);
+            remove = !noOverwrite && BooleanUtils.toBoolean(t.modifier & Terrain.MODE_REMOVE);
+            invisible = BooleanUtils.toBoolean(t.modifier & Terrain.MODE_INVISIBLE);
+
+            xMin = Math.max(0, -tx);
+            xMax = Math.min(width, levelWidth - tx);
+        }
+    }
+
     /**
      * Storage class for steel tiles.
      * @author Volker Oth
@@ -1603,6 +1730,7 @@ public class Level {
         List<LvlObject> objects;
         List<Terrain> terrain;
         SpriteObject[] sprObjects;
+        ActiveSprites activeSprObjects;
         SpriteObject[] sprObjFront;
         SpriteObject[] sprObjBehind;
         boolean tiled;
@@ -1612,6 +1740,11 @@ public class Level {
         double scrollSpeedX;
         double scrollSpeedY;
         double scale;
+        /** sprite images (behind, then in front) the buffers were composed from, null if they must be composed again */
+        LemImage[] drawnImages;
+        LemImage drawnBgImage;
+        boolean drawnBilinear;
+        double drawnScale;
 
         Background(int width, int height, List<LvlObject> objects, List<Terrain> terrain,
                 boolean tiled, int tint, int offsetX, int offsetY,
@@ -1628,6 +1761,56 @@ public class Level {
             this.scrollSpeedY = scrollSpeedY;
             this.scale = scale;
         }
+
+        /**
+         * Check if the buffers of this background have to be composed again, since a sprite
+         * shows another frame or the image, scale or interpolation changed. The current state
+         * is remembered as the one the buffers are composed from.
+         * @param behindImages current frames of the objects behind the image
+         * @param frontImages current frames of the objects in front of the image
+         */
+        boolean needsRedraw(final LemImage bgImage, final boolean bilinear,
+                final LemImage[] behindImages, final LemImage[] frontImages) {
+            int numBehind = (sprObjBehind != null) ? sprObjBehind.length : 0;
+            int numFront = (sprObjFront != null) ? sprObjFront.length : 0;
+            boolean changed = drawnImages == null || drawnImages.length != numBehind + numFront
+                    || drawnBgImage != bgImage || drawnBilinear != bilinear || drawnScale != scale;
+            if (changed) {
+                drawnImages = new LemImage[numBehind + numFront];
+            }
+            for (int n = 0; n < numBehind + numFront; n++) {
+                LemImage img = (n < numBehind) ? behindImages[n] : frontImages[n - numBehind];
+                if (drawnImages[n] != img) {
+                    drawnImages[n] = img;
+                    changed = true;
+                }
+            }
+            drawnBgImage = bgImage;
+            drawnBilinear = bilinear;
+            drawnScale = scale;
+            return changed;
+        }
+    }
+
+    /**
+     * Frames of the sprite objects of a level, see {@link Level#captureObjectImages()}.
+     */
+    public static final class ObjectImages {
+
+        /** frames of the objects behind and in front of the foreground image */
+        private final LemImage[] behind;
+        private final LemImage[] front;
+        /** frames of the objects of every background layer */
+        private final LemImage[][] bgBehind;
+        private final LemImage[][] bgFront;
+
+        private ObjectImages(final LemImage[] behind, final LemImage[] front,
+                final LemImage[][] bgBehind, final LemImage[][] bgFront) {
+            this.behind = behind;
+            this.front = front;
+            this.bgBehind = bgBehind;
+            this.bgFront = bgFront;
+        }
     }
 
 	public List<String> getMods() {
@@ -43,7 +43,7 @@ public class LevelInfo {
     private Resource levelResource;
     /** release rate: 0 is slowest, 99 is fastest */
     private int releaseRate;
-    /** number of Lemmings in this level (maximum 0x0072 in original LVL format) */
+    /** number of Lemmings in this level (maximum 0x0072 in original LVL format, no limit in INI levels) */
     private int numLemmings;
     /** number of Lemmings to rescue: should be less than or equal to number of Lemmings */
     private int numToRescue;
@@ -55,17 +55,13 @@ public class Mask {
     }
 
     /**
-     * Apply erase mask (to foreground image, minimap and stencil).
+     * Apply erase mask (to foreground image and stencil).
      */
     public void eraseMask(final int x0, final int y0, final int maskNum, final int eraseMask, final int checkMask) {
+        LemGame.terrainChanged(x0, y0, width, height);
         LemImage fgImage = LemGame.getFgImage();
-        LemImage fgImageSmall = Minimap.getImage();
         Stencil stencil = LemGame.getStencil();
         LemImage m = mask.get(maskNum);
-        double scaleX = (double) fgImageSmall.getWidth() / (double) fgImage.getWidth();
-        double scaleY = (double) fgImageSmall.getHeight() / (double) fgImage.getHeight();
-        double scaleXHalf = scaleX / 2.0;
-        double scaleYHalf = scaleY / 2.0;
         int yMax = y0 + height;
         if (yMax >= fgImage.getHeight()) {
             yMax = fgImage.getHeight();
@@ -75,35 +71,26 @@ public class Mask {
             xMax = fgImage.getWidth();
         }
 
-        int bgCol = Minimap.isTinted() ? 0 : LemGame.getLevel().getBgColor().getRGB();
-
-        for (int y = y0; y < yMax; y++) {
-            if (y < 0) {
-                continue;
-            }
-            double scaledY = (y + 0.5) * scaleY % 1.0;
-            boolean drawSmallY = (scaledY >= (0.5 - scaleYHalf) % 1.0 && scaledY < (0.5 + scaleYHalf) % 1.0)
-                    || Math.abs(scaleY) >= 1.0;
-            for (int x = x0; x < xMax; x++) {
-                if (x < 0) {
-                    continue;
+        int xMin = Math.max(x0, 0);
+        if (xMin >= xMax) {
+            return;
+        }
+        int[] row = new int[xMax - xMin];
+        for (int y = Math.max(y0, 0); y < yMax; y++) {
+            // the alpha of the mask is removed from the foreground image in one go,
+            // except where the stencil protects the terrain
+            m.getRGB(xMin - x0, y - y0, row.length, 1, row, 0, row.length);
+            for (int x = xMin; x < xMax; x++) {
+                if (BooleanUtils.toBoolean(stencil.getMask(x, y) & checkMask)) {
+                    row[x - xMin] = 0;
                 }
-                double scaledX = (x + 0.5) * scaleX % 1.0;
-                boolean drawSmallX = (scaledX >= (0.5 - scaleXHalf) % 1.0 && scaledX < (0.5 + scaleXHalf) % 1.0)
-                        || Math.abs(scaleX) >= 1.0;
-                int maskAlpha = m.getRGB(x - x0, y - y0) >>> 24;
+            }
+            fgImage.removeAlpha(xMin, y, row.length, row, 0);
+            for (int x = xMin; x < xMax; x++) {
                 int s = stencil.getMask(x, y);
                 if (!BooleanUtils.toBoolean(s & checkMask)) {
-                    int[] objects = stencil.getIDs(x, y);
-                    // erase pixel
-                    fgImage.removeAlpha(x, y, maskAlpha); // erase pixel in fgImage
-                    if (drawSmallX && drawSmallY) {
-                        // erase pixel in fgImageSmall
-                        fgImageSmall.removeAlpha(ToolBox.scale(x, scaleX), ToolBox.scale(y, scaleY), maskAlpha);
-                        fgImageSmall.addRGBBehind(ToolBox.scale(x, scaleX), ToolBox.scale(y, scaleY), bgCol);
-                    }
                     if (!fgImage.isPixelOpaque(x, y)) {
-                        for (int obj : objects) {
+                        for (int obj : stencil.getIDs(x, y)) {
                             SpriteObject spr = LemGame.getLevel().getSprObject(obj);
                             // remove pixel from all object images that are visible only on terrain
                             if (spr != null && spr.getVisOnTerrain()) {
@@ -124,14 +111,10 @@ public class Mask {
      * Paint one step (of a stair created by a Builder)
      */
     public void paintStep(final int x0, final int y0, final int maskNum) {
+        LemGame.terrainChanged(x0, y0, width, height);
         LemImage fgImage = LemGame.getFgImage();
-        LemImage fgImageSmall = Minimap.getImage();
         Stencil stencil = LemGame.getStencil();
         LemImage m = mask.get(maskNum);
-        double scaleX = (double) fgImageSmall.getWidth() / (double) fgImage.getWidth();
-        double scaleY = (double) fgImageSmall.getHeight() / (double) fgImage.getHeight();
-        double scaleXHalf = scaleX / 2.0;
-        double scaleYHalf = scaleY / 2.0;
         int yMax = y0 + height;
         if (yMax >= fgImage.getHeight()) {
             yMax = fgImage.getHeight();
@@ -145,34 +128,15 @@ public class Mask {
             if (y < 0) {
                 continue;
             }
-            double scaledY = (y + 0.5) * scaleY % 1.0;
-            boolean drawSmallY = (scaledY >= (0.5 - scaleYHalf) % 1.0
-                    && scaledY < (0.5 + scaleYHalf) % 1.0)
-                    || Math.abs(scaleY) >= 1.0;
             for (int x = x0; x < xMax; x++) {
                 if (x < 0) {
                     continue;
                 }
-                double scaledX = (x + 0.5) * scaleX % 1.0;
-                boolean drawSmallX = (scaledX >= (0.5 - scaleXHalf) % 1.0
-                        && scaledX < (0.5 + scaleXHalf) % 1.0)
-                        || Math.abs(scaleX) >= 1.0;
                 int color = m.getRGB(x - x0, y - y0);
-                int[] objects = stencil.getIDs(x, y);
                 fgImage.addRGB(x, y, color);
-                if (drawSmallX && drawSmallY) {
-                    int stepCol;
-                    if (Minimap.isTinted()) {
-                        stepCol = Minimap.tintColor(color);
-                    } else {
-                        stepCol = color;
-                    }
-                    // green pixel in fgImageSmall
-                    fgImageSmall.addRGB(ToolBox.scale(x, scaleX), ToolBox.scale(y, scaleY), stepCol);
-                }
                 if (fgImage.isPixelOpaque(x, y)) {
                     // get object
-                    for (int obj : objects) {
+                    for (int obj : stencil.getIDs(x, y)) {
                         SpriteObject spr = LemGame.getLevel().getSprObject(obj);
                         // add pixel to all object images that are visible only on terrain
                         if (spr != null && spr.getVisOnTerrain()
@@ -195,6 +159,7 @@ public class Mask {
      * Create blocker mask in the Stencil only (Lemming is assigned a Blocker)
      */
     public void setBlockerMask(final int x0, final int y0) {
+        LemGame.terrainChanged(x0, y0, width, height);
         LemImage fgImage = LemGame.getFgImage();
         Stencil stencil = LemGame.getStencil();
         int yMax = y0 + height;
@@ -279,6 +244,7 @@ public class Mask {
      * Erase certain properties from Stencil bitmask.
      */
     public void clearType(final int x0, final int y0, final int maskNum, final int type) {
+        LemGame.terrainChanged(x0, y0, width, height);
         LemImage fgImage = LemGame.getFgImage();
         Stencil stencil = LemGame.getStencil();
         LemImage m = mask.get(maskNum);
@@ -1,6 +1,8 @@
 package lemmini.game;
 
 import java.awt.Color;
+import java.util.Arrays;
+import java.util.BitSet;
 
 import lemmini.graphics.GraphicsContext;
 import lemmini.graphics.LemImage;
@@ -39,6 +41,8 @@ public class Minimap {
 
     /** image used for minimap */
     private static LemImage img;
+    /** copy of img handed to the renderer, null if img changed since */
+    private static LemImage capturedImg;
     /** X scale */
     private static double scaleX;
     /** Y scale */
@@ -49,6 +53,17 @@ public class Minimap {
     private static int visibleHeight;
     private static int xPos;
     private static boolean tinted;
+    /** dots drawn by the current drawLemmings() call are marked with dotStamp */
+    private static int[] dotStamps = new int[0];
+    private static int dotStamp;
+    /** level column/row sampled by every minimap column/row */
+    private static int[] sampleX = new int[0];
+    private static int[] sampleY = new int[0];
+    /** first minimap column/row that samples a level column/row at or after the index */
+    private static int[] firstX = new int[1];
+    private static int[] firstY = new int[1];
+    /** minimap pixels that have to be redrawn by the next update() */
+    private static final BitSet dirty = new BitSet();
 
     /**
      * init
@@ -60,6 +75,12 @@ public class Minimap {
         Level level = LemGame.getLevel();
         LemImage fgImage = LemGame.getFgImage();
         img = level.createMinimap(fgImage, scaleX, scaleY, false, tint, false);
+        capturedImg = null;
+        sampleX = createSampleTable(img.getWidth(), fgImage.getWidth());
+        sampleY = createSampleTable(img.getHeight(), fgImage.getHeight());
+        firstX = createFirstTable(sampleX, fgImage.getWidth());
+        firstY = createFirstTable(sampleY, fgImage.getHeight());
+        dirty.clear();
         visibleWidth = Math.min(img.getWidth(), MAX_VISIBLE_WIDTH);
         visibleHeight = Math.min(img.getHeight(), MAX_VISIBLE_HEIGHT);
         MiscGfx.setMinimapWidth(visibleWidth);
@@ -71,37 +92,140 @@ public class Minimap {
         }
     }
 
+    /**
+     * Get the source pixel of every pixel of a nearest neighbor scaled line,
+     * i.e. the one that contains the center of the scaled pixel.
+     */
+    private static int[] createSampleTable(final int scaledLength, final int length) {
+        int[] table = new int[scaledLength];
+        for (int i = 0; i < scaledLength; i++) {
+            table[i] = (int) ((2L * i + 1) * length / (2L * scaledLength));
+        }
+        return table;
+    }
+
+    private static int[] createFirstTable(final int[] samples, final int length) {
+        int[] table = new int[length + 1];
+        int i = 0;
+        for (int n = 0; n <= length; n++) {
+            while (i < samples.length && samples[i] < n) {
+                i++;
+            }
+            table[n] = i;
+        }
+        return table;
+    }
+
+    /**
+     * Mark the minimap pixels that sample the given rectangle of the level.
+     */
+    private static void markDirty(final int x, final int y, final int w, final int h) {
+        int levelWidth = firstX.length - 1;
+        int levelHeight = firstY.length - 1;
+        int mx0 = firstX[ToolBox.cap(0, x, levelWidth)];
+        int mx1 = firstX[ToolBox.cap(0, x + w, levelWidth)];
+        int my0 = firstY[ToolBox.cap(0, y, levelHeight)];
+        int my1 = firstY[ToolBox.cap(0, y + h, levelHeight)];
+        if (mx0 < mx1) {
+            for (int my = my0; my < my1; my++) {
+                dirty.set(my * sampleX.length + mx0, my * sampleX.length + mx1);
+            }
+        }
+    }
+
+    /**
+     * Redraw all minimap pixels whose terrain changed since the last update.
+     * Every pixel is only redrawn once per update, no matter how often it was changed.
+     */
+    static void update(final TerrainJournal journal) {
+        journal.drain(Minimap::markDirty);
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Level level = LemGame.getLevel();
+        LemImage fgImage = LemGame.getFgImage();
+        int w = sampleX.length;
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            int mx = i % w;
+            int my = i / w;
+            level.redrawMinimapPixel(img, mx, my, fgImage, sampleX[mx], sampleY[my], tinted);
+        }
+        dirty.clear();
+        capturedImg = null;
+    }
+
+    /**
+     * Get a copy of the minimap image that isn't changed by later updates.
+     * The copy is only made again after the minimap changed.
+     * @return copy of the image, null if there is no minimap
+     */
+    static LemImage captureImage() {
+        if (capturedImg == null && img != null) {
+            capturedImg = new LemImage(img);
+        }
+        return capturedImg;
+    }
+
     /**
      * Draw minimap.
+     * @param image image returned by {@link #captureImage()}
+     * @param minimapXPos x position of the minimap, see {@link #getXPos()}
+     * @param levelYPos y position of the camera in the level
      */
-    public static void draw(final GraphicsContext g, final int x, final int y) {
-        g.drawImage(img, x - xPos, y - ToolBox.scale(LemGame.getYPos(), scaleY));
+    public static void draw(final GraphicsContext g, final LemImage image, final int x, final int y,
+            final int minimapXPos, final int levelYPos) {
+        g.drawImage(image, x - minimapXPos, y - ToolBox.scale(levelYPos, scaleY));
     }
 
     /**
-     * Draw Lemming in minimap.
+     * Draw Lemmings in minimap.
+     * @param lx foot x coordinates of the Lemmings
+     * @param ly foot y coordinates of the Lemmings
+     * @param count number of Lemmings
+     * @param minimapXPos x position of the minimap, see {@link #getXPos()}
+     * @param levelYPos y position of the camera in the level
      */
-    public static void drawLemming(final GraphicsContext g, final int x, final int y, final int lx, final int ly) {
-        int sx = x + ToolBox.scale(lx, scaleX) - xPos - LEMM_DOT_SCALE / 2;
-        int sy = y + ToolBox.scale(ly - LemGame.getYPos(), scaleY) - LEMM_DOT_SCALE;
-        if (sx + LEMM_DOT_SCALE > x && sx < x + visibleWidth
-                && sy + LEMM_DOT_SCALE > y && sy < y + visibleHeight) {
-            g.setColor(LEMM_COLOR);
-            g.fillRect(sx, sy, LEMM_DOT_SCALE, LEMM_DOT_SCALE);
+    public static void drawLemmings(final GraphicsContext g, final int x, final int y,
+            final int[] lx, final int[] ly, final int count, final int minimapXPos, final int levelYPos) {
+        // crowds map to the same dots a lot, so every dot is only drawn once
+        int w = visibleWidth + LEMM_DOT_SCALE;
+        int h = visibleHeight + LEMM_DOT_SCALE;
+        if (dotStamps.length < w * h) {
+            dotStamps = new int[w * h];
+        }
+        if (++dotStamp == 0) {
+            Arrays.fill(dotStamps, 0);
+            dotStamp = 1;
+        }
+        g.setColor(LEMM_COLOR);
+        for (int i = 0; i < count; i++) {
+            int sx = x + ToolBox.scale(lx[i], scaleX) - minimapXPos - LEMM_DOT_SCALE / 2;
+            int sy = y + ToolBox.scale(ly[i] - levelYPos, scaleY) - LEMM_DOT_SCALE;
+            if (sx + LEMM_DOT_SCALE > x && sx < x + visibleWidth
+                    && sy + LEMM_DOT_SCALE > y && sy < y + visibleHeight) {
+                int idx = (sy + LEMM_DOT_SCALE - y) * w + sx + LEMM_DOT_SCALE - x;
+                if (dotStamps[idx] != dotStamp) {
+                    dotStamps[idx] = dotStamp;
+                    g.fillRect(sx, sy, LEMM_DOT_SCALE, LEMM_DOT_SCALE);
+                }
+            }
         }
     }
 
     /**
      * Draw minimap frame.
+     * @param minimapXPos x position of the minimap, see {@link #getXPos()}
+     * @param levelXPos x position of the camera in the level
      */
-    public static void drawFrame(final GraphicsContext g, final int x, final int y) {
+    public static void drawFrame(final GraphicsContext g, final int x, final int y,
+            final int minimapXPos, final int levelXPos) {
         int wWidth = ToolBox.scale(Core.getDrawWidth(), scaleX);
-        int scaledXPos = ToolBox.scale(LemGame.getXPos(), scaleX);
+        int scaledXPos = ToolBox.scale(levelXPos, scaleX);
         g.setColor(FRAME_COLOR);
         if (LemGame.getWidth() < Core.getDrawWidth()) {
             g.drawRect(x, y, ToolBox.scale(LemGame.getWidth(), scaleX) - 1, visibleHeight - 1);
         } else {
-            g.drawRect(x + scaledXPos - xPos, y, wWidth - 1, visibleHeight - 1);
+            g.drawRect(x + scaledXPos - minimapXPos, y, wWidth - 1, visibleHeight - 1);
         }
     }
 
@@ -16,6 +16,14 @@
 package lemmini.game;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
 
 import lemmini.tools.ToolBox;
 
@@ -37,13 +45,20 @@ public final class ReplayChecker {
         private final int lemsSaved;
         private final int saveRequirement;
         private final int timeElapsed;
+        private final int desyncFrame;
 
         public ReplayCheckResult(Path replayPath, ReplayResult result, int lemsSaved, int saveRequirement, int timeElapsed) {
+            this(replayPath, result, lemsSaved, saveRequirement, timeElapsed, -1);
+        }
+
+        public ReplayCheckResult(Path replayPath, ReplayResult result, int lemsSaved, int saveRequirement, int timeElapsed,
+                int desyncFrame) {
             this.replayPath = replayPath;
             this.result = result;
             this.lemsSaved = lemsSaved;
             this.saveRequirement = saveRequirement;
             this.timeElapsed = timeElapsed;
+            this.desyncFrame = desyncFrame;
         }
 
         public Path getReplayPath() {
@@ -65,6 +80,14 @@ public final class ReplayChecker {
         public int getTimeElapsed() {
         	return timeElapsed;
         }
+
+        /**
+         * Get the first frame whose state hash didn't match the one stored in the replay.
+         * @return frame number or -1 if no desync was detected
+         */
+        public int getDesyncFrame() {
+            return desyncFrame;
+        }
     }
 
     public static final int MAX_FRAMES = 200_000;
@@ -91,6 +114,221 @@ public final class ReplayChecker {
         }
     }
 
+    /**
+     * Check a batch of replays on a pool of worker threads. Every replay is simulated
+     * in its own detached {@link GameSession}, so the workers don't share any state.
+     * Replays that can't be loaded or matched to a level are skipped.
+     * @param replays replay files to check
+     * @param threads number of worker threads
+     * @param progress called with the number of finished replays and the replay that just finished
+     * @return check results in the order of the given replays
+     */
+    public static List<ReplayCheckResult> checkAll(final List<Path> replays, final int threads,
+            final ObjIntConsumer<Path> progress) {
+        final int poolSize = Math.max(1, threads);
+        final AtomicInteger done = new AtomicInteger();
+        final List<Future<ReplayCheckResult>> futures = new ArrayList<>(replays.size());
+        final ExecutorService pool = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "ReplayChecker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            for (Path replayPath : replays) {
+                // don't let too many loaded levels pile up in memory
+                if (futures.size() >= 2 * poolSize) {
+                    waitFor(futures.get(futures.size() - 2 * poolSize));
+                }
+                try {
+                    GameSession session = GameSession.create(true);
+                    ReplayLevelInfo rli = session.replay.load(replayPath);
+                    int[] lvl = (rli == null) ? null : findReplayLevel(rli);
+                    if (lvl == null) {
+                        progress.accept(replayPath, done.incrementAndGet());
+                        continue;
+                    }
+                    LevelPack pack = LemGame.getLevelPack(lvl[0]);
+                    Level level = new Level(pack.getInfo(lvl[1], lvl[2]).getLevelResource(), null, pack);
+                    if (!level.getMods().equals(LemGame.getModPaths())) {
+                        // mod resources are shared by all sessions: drain the pool before swapping them
+                        futures.forEach(ReplayChecker::waitFor);
+                        LemGame.applyLevelMods(level);
+                    }
+                    futures.add(pool.submit(() -> {
+                        try {
+                            return check(session, level, replayPath);
+                        } finally {
+                            progress.accept(replayPath, done.incrementAndGet());
+                        }
+                    }));
+                } catch (Exception ex) {
+                    System.out.println(replayPath.getFileName() + " -> ERROR: " + ex.getMessage());
+                    progress.accept(replayPath, done.incrementAndGet());
+                }
+            }
+
+            List<ReplayCheckResult> results = new ArrayList<>(futures.size());
+            for (Future<ReplayCheckResult> f : futures) {
+                ReplayCheckResult r = waitFor(f);
+                if (r != null) {
+                    results.add(r);
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Simulate a replay in the given detached session on the calling thread.
+     */
+    private static ReplayCheckResult check(final GameSession session, final Level level, final Path replayPath) {
+        LemGame.bindSession(session);
+        try {
+            session.initLevel(level);
+            session.replayMode = true;
+            session.replay.rewind();
+            session.gameMode = LemGame.GameMode.REPLAY_CHECK;
+            session.replayResult = ReplayResult.UNDETERMINED;
+
+            ReplayResult result = ReplayResult.UNDETERMINED;
+            for (int frame = 0; frame < MAX_FRAMES && result == ReplayResult.UNDETERMINED; frame++) {
+                session.update();
+                result = session.getReplayResult();
+            }
+            return new ReplayCheckResult(replayPath, result, session.getNumExited(),
+                    session.getNumToRescue(), session.getLevelRecord().getTimeElapsed(), session.desyncFrame);
+        } catch (Exception ex) {
+            System.out.println(replayPath.getFileName() + " -> ERROR: " + ex.getMessage());
+            // the stack trace is what's needed to find out why the simulation crashed
+            ex.printStackTrace(System.out);
+            return null;
+        } finally {
+            LemGame.bindSession(null);
+        }
+    }
+
+    private static ReplayCheckResult waitFor(final Future<ReplayCheckResult> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            // errors thrown by the simulation end up here, exceptions are logged by check()
+            System.out.println("ERROR: " + ex.getCause());
+            ex.getCause().printStackTrace(System.out);
+            return null;
+        }
+    }
+
+    /**
+     * This interprets the DMA Remastered level packs as simply "Lemmings" or "Oh No! More Lemmings"
+     */
+    private static boolean checkForDMARemasters(String replayPackName, String actualPackName) {
+        if (replayPackName.equals("DMA Lemmings [Remastered]")) {
+            return ToolBox.looselyEquals(actualPackName, "Lemmings") ||
+                   ToolBox.looselyEquals(actualPackName, "DMA Lemmings [Remastered]");
+        }
+        if (replayPackName.equals("DMA Oh No! More Lemmings [Remastered]")) {
+            return ToolBox.looselyEquals(actualPackName, "Oh No! More Lemmings") ||
+                   ToolBox.looselyEquals(actualPackName, "DMA Oh No! More Lemmings [Remastered]");
+        }
+        return false;
+    }
+    
+    /**
+     * Find the level a replay was recorded on.
+     * @return level pack, rating and level index or null if no matching level was found
+     */
+    public static int[] findReplayLevel(ReplayLevelInfo rli) {
+        int lpn = -1;
+        int rn = -1;
+        int ln = -1;
+        LevelPack lp = null;
+        for (int i = 0; i < LemGame.getLevelPackCount(); i++) {
+            LevelPack lpTemp = LemGame.getLevelPack(i);
+            if (ToolBox.looselyEquals(lpTemp.getName(), rli.getLevelPack()) ||
+                    // Handle replays created with the DMA Remastered packs
+                    checkForDMARemasters(rli.getLevelPack(), lpTemp.getName())) {
+                lpn = i;
+                lp = lpTemp;
+            }
+        }
+        
+        // check external levels if no match is found
+        if (lpn < 0) { 
+        	lp = LemGame.getLevelPack(0);
+        	lpn = 0;
+        }
+        
+        if (lp != null && lpn >= 0) {
+            List<String> ratings = lp.getRatings();
+            int rnTemp = rli.getRatingNumber();
+            if (rnTemp < ratings.size()) {
+                rn = rnTemp;
+            }
+            if (rn < 0 || ToolBox.looselyEquals(ratings.get(rn), rli.getRatingName())) {
+                for (int i = 0; i < ratings.size(); i++) {
+                    if (ToolBox.looselyEquals(ratings.get(i), rli.getRatingName())) {
+                        rn = i;
+                    }
+                }
+            }
+            
+            // check external levels if no match is found
+            if (rn < 0) { 
+            	rn = 0;
+            }
+            
+            if (rn >= 0) {
+                List<String> levels = lp.getLevels(rn);
+                int lnTemp = rli.getLvlNumber();
+                if (lnTemp < levels.size()) {
+                    ln = lnTemp;
+                }
+                if (ln < 0 || ToolBox.looselyEquals(levels.get(ln), rli.getLvlName())) {
+                    for (int i = 0; i < levels.size(); i++) {
+                        if (ToolBox.looselyEquals(levels.get(i), rli.getLvlName())) {
+                            ln = i;
+                        }
+                    }
+                }
+            }
+        }
+        
+        // fallback - search by level name only
+        if (lpn < 0 || rn < 0 || ln < 0) {
+        	LemGame.replayCaption = "RetroLemmini - Closest match for '" + rli.getLvlName() + "' (" + rli.getLevelPack() + ")";
+            outer:
+            for (int p = 0; p < LemGame.getLevelPackCount(); p++) {
+                LevelPack pack = LemGame.getLevelPack(p);
+                List<String> ratings = pack.getRatings();
+
+                for (int r = 0; r < ratings.size(); r++) {
+                    List<String> levels = pack.getLevels(r);
+
+                    for (int l = 0; l < levels.size(); l++) {
+                        if (ToolBox.looselyEquals(levels.get(l), rli.getLvlName())) {
+                            lpn = p;
+                            rn = r;
+                            ln = l;
+                            break outer; // first match wins
+                        }
+                    }
+                }
+            }
+        }
+        
+        if (lpn >= 0 && rn >= 0 && ln >= 0) {
+            return new int[] { lpn, rn, ln };
+        }
+
+        return null;
+    }
+
     private static void prepareSimulation() {
     	LemGame.setGameMode(LemGame.GameMode.REPLAY_CHECK);
         LemGame.setReplayResult(ReplayResult.UNDETERMINED);
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lemmini.game;
+
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Compressed simulation state stored in a replay to allow seeking without
+ * simulating all earlier frames.
+ * @author Will James
+ */
+class ReplayCheckpoint {
+
+    /** frame counter */
+    final int frame;
+    /** CRC32 of the uncompressed state */
+    final long crc;
+    /** compressed state as written by RewindBuffer */
+    final byte[] data;
+
+    /**
+     * Constructor
+     */
+    ReplayCheckpoint(final int frame, final long crc, final byte[] data) {
+        this.frame = frame;
+        this.crc = crc;
+        this.data = data;
+    }
+
+    /**
+     * Parse a checkpoint line (without tag). Returns null if the line is malformed.
+     */
+    static ReplayCheckpoint parse(final String line) {
+        String[] e = line.split(",");
+        if (e.length < 3) {
+            return null;
+        }
+        try {
+            return new ReplayCheckpoint(Integer.parseInt(e[0].trim()),
+                    Long.parseLong(e[1].trim(), 16),
+                    Base64.getDecoder().decode(e[2].trim()));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d, %08x, %s", frame, crc, Base64.getEncoder().encodeToString(data));
+    }
+}
@@ -3,9 +3,11 @@ package lemmini.game;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -43,20 +45,32 @@ public class ReplayStream {
     static final int END = 5;
 
     static final int CURRENT_FORMAT = 1;
+    /** format of replays containing checkpoints or state hashes (older versions refuse to load them) */
+    static final int EXTENDED_FORMAT = 2;
+    private static final String CHECKPOINT_TAG = "#CHECKPOINT ";
+    private static final String STATE_HASH_TAG = "#STATEHASH ";
     static final String CURRENT_REVISION = Core.REVISION;
 
     private List<ReplayEvent> events;
+    /** optional state checkpoints, ordered by frame */
+    private List<ReplayCheckpoint> checkpoints;
+    /** number of frames between two stored state hashes, 0 if none are stored */
+    private int stateHashInterval;
+    /** state hash after every stateHashInterval frames */
+    private List<Integer> stateHashes;
     private int replayIndex;
     private int format;
     private static String revision;
     private String replayPlayerName = "Default";
-    private static boolean directDropActive = false;
+    private boolean directDropActive = false;
 
     /**
      * Constructor.
      */
     public ReplayStream() {
         events = new ArrayList<>(256);
+        checkpoints = new ArrayList<>();
+        stateHashes = new ArrayList<>();
         replayIndex = 0;
         format = 0;
     }
@@ -68,6 +82,102 @@ public class ReplayStream {
         replayIndex = 0;
     }
 
+    /**
+     * Get the index of the next replay event to be played back.
+     */
+    int getPosition() {
+        return replayIndex;
+    }
+
+    /**
+     * Set the index of the next replay event to be played back.
+     */
+    void setPosition(final int idx) {
+        replayIndex = idx;
+    }
+
+    /**
+     * Get the number of stored replay events.
+     */
+    int size() {
+        return events.size();
+    }
+
+    /**
+     * Get the index of the first replay event stored for the given frame or a later one.
+     */
+    int indexOf(final int ctr) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).frameCtr >= ctr) {
+                return i;
+            }
+        }
+        return events.size();
+    }
+
+    /**
+     * Add a checkpoint. A checkpoint for the same frame replaces the old one.
+     */
+    void addCheckpoint(final ReplayCheckpoint cp) {
+        int i = checkpoints.size();
+        while (i > 0 && checkpoints.get(i - 1).frame >= cp.frame) {
+            i--;
+        }
+        if (i < checkpoints.size() && checkpoints.get(i).frame == cp.frame) {
+            checkpoints.set(i, cp);
+        } else {
+            checkpoints.add(i, cp);
+        }
+    }
+
+    /**
+     * Check whether a checkpoint exists for the given frame.
+     */
+    boolean hasCheckpoint(final int ctr) {
+        ReplayCheckpoint cp = getCheckpoint(ctr);
+        return cp != null && cp.frame == ctr;
+    }
+
+    /**
+     * Get the latest checkpoint at or before the given frame or null if there is none.
+     */
+    ReplayCheckpoint getCheckpoint(final int ctr) {
+        for (int i = checkpoints.size() - 1; i >= 0; i--) {
+            if (checkpoints.get(i).frame <= ctr) {
+                return checkpoints.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compare the state hash of a frame with the stored one or store it if the replay
+     * has none for this frame yet.
+     * @param ctr frame counter
+     * @param hash state hash after the frame
+     * @param defaultInterval interval to use if the replay contains no state hashes (0: don't store any)
+     * @return false if a different hash is stored for this frame
+     */
+    boolean putStateHash(final int ctr, final int hash, final int defaultInterval) {
+        if (stateHashInterval <= 0) {
+            if (defaultInterval <= 0) {
+                return true;
+            }
+            stateHashInterval = defaultInterval;
+        }
+        if (ctr <= 0 || ctr % stateHashInterval != 0) {
+            return true;
+        }
+        int idx = ctr / stateHashInterval - 1;
+        if (idx < stateHashes.size()) {
+            return stateHashes.get(idx) == hash;
+        }
+        if (idx == stateHashes.size()) {
+            stateHashes.add(hash);
+        }
+        return true;
+    }
+
     /**
      * Get next replay event
      */
@@ -92,6 +202,9 @@ public class ReplayStream {
      */
     public void clear() {
         events.clear();
+        checkpoints.clear();
+        stateHashes.clear();
+        stateHashInterval = 0;
     }
 
     /**
@@ -108,6 +221,13 @@ public class ReplayStream {
                 break;
             }
         }
+        checkpoints.removeIf(cp -> cp.frame > ctr);
+        if (stateHashInterval > 0) {
+            int keep = Math.max(0, ctr / stateHashInterval);
+            while (stateHashes.size() > keep) {
+                stateHashes.remove(stateHashes.size() - 1);
+            }
+        }
         replayIndex = 0;
     }
 
@@ -117,6 +237,10 @@ public class ReplayStream {
     public ReplayLevelInfo load(final Path fname) throws LemException {
         try (BufferedReader br = ToolBox.getBufferedReader(fname)) {
             List<ReplayEvent> ev = new ArrayList<>(256);
+            List<ReplayCheckpoint> cps = new ArrayList<>();
+            List<Integer> hashes = new ArrayList<>();
+            int hashInterval = 0;
+            String replayRevision;
             String line = br.readLine();
             if (!line.equals("#REPLAY NEW")) {
                 throw new LemException("First line of replay does not equal \"#REPLAY NEW\".");
@@ -124,7 +248,7 @@ public class ReplayStream {
             line = br.readLine();
             if (line.startsWith("#FORMAT ")) {
                 format = Integer.parseInt(line.substring(8).trim());
-                if (format > CURRENT_FORMAT) {
+                if (format > EXTENDED_FORMAT) {
                     throw new LemException(String.format("Unsupported replay format: %d", format));
                 }
             } else {
@@ -132,7 +256,8 @@ public class ReplayStream {
             }
             line = br.readLine();
             if (line.startsWith("#REVISION ")) {
-                revision = line.substring(10).trim();
+                replayRevision = line.substring(10).trim();
+                revision = replayRevision;
             } else {
                 throw new LemException("Replay file does not specify a revision.");
             }
@@ -179,6 +304,27 @@ public class ReplayStream {
             }
             // read events
             while (line  != null) {
+                if (line.startsWith(CHECKPOINT_TAG)) {
+                    ReplayCheckpoint cp = ReplayCheckpoint.parse(line.substring(CHECKPOINT_TAG.length()));
+                    if (cp != null) {
+                        cps.add(cp);
+                    }
+                    line = br.readLine();
+                    continue;
+                }
+                if (line.startsWith(STATE_HASH_TAG)) {
+                    e = line.substring(STATE_HASH_TAG.length()).split(",");
+                    if (e.length < 2) {
+                        throw new LemException("Not enough values in state hash line.");
+                    }
+                    hashInterval = Integer.parseInt(e[0].trim());
+                    ByteBuffer buf = ByteBuffer.wrap(Base64.getDecoder().decode(e[1].trim()));
+                    while (buf.remaining() >= Integer.BYTES) {
+                        hashes.add(buf.getInt());
+                    }
+                    line = br.readLine();
+                    continue;
+                }
                 e = line.split(",");
                 for (int i = 0; i < e.length; i++) {
                     e[i] = e[i].trim();
@@ -194,7 +340,7 @@ public class ReplayStream {
                         // If 5th value (Timed/Untimed Bomber) is missing, use the current user setting
                         boolean isTimedBomber = (e.length >= 5)
                             ? Boolean.parseBoolean(e[4])
-                            : getIsTimedBomber(revision);
+                            : getIsTimedBomber(replayRevision);
 
                         ev.add(new ReplayAssignSkillEvent(
                             Integer.parseInt(e[0]),
@@ -239,8 +385,11 @@ public class ReplayStream {
                 line = br.readLine(); // move to next line
             }
             events = ev;
+            checkpoints = cps;
+            stateHashes = hashes;
+            stateHashInterval = hashes.isEmpty() ? 0 : hashInterval;
             return rli;
-        } catch (IOException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+        } catch (IOException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
             throw new LemException("Error reading replay file.");
         }
     }
@@ -277,7 +426,7 @@ public class ReplayStream {
         try {
             w.write("#REPLAY NEW");
             w.newLine();
-            w.write("#FORMAT " + CURRENT_FORMAT);
+            w.write("#FORMAT " + ((checkpoints.isEmpty() && stateHashes.isEmpty()) ? CURRENT_FORMAT : EXTENDED_FORMAT));
             w.newLine();
             w.write("#REVISION " + CURRENT_REVISION);
             w.newLine();
@@ -294,6 +443,17 @@ public class ReplayStream {
                 w.write(r.toString()); // will use toString of the correct child object
                 w.newLine();
             }
+            if (!stateHashes.isEmpty()) {
+                ByteBuffer buf = ByteBuffer.allocate(stateHashes.size() * Integer.BYTES);
+                stateHashes.forEach(buf::putInt);
+                w.write(String.format(Locale.ROOT, "%s%d, %s", STATE_HASH_TAG, stateHashInterval,
+                        Base64.getEncoder().encodeToString(buf.array())));
+                w.newLine();
+            }
+            for (ReplayCheckpoint cp : checkpoints) {
+                w.write(CHECKPOINT_TAG + cp);
+                w.newLine();
+            }
 
             return true;
         } catch (IOException e) {
@@ -387,7 +547,7 @@ public class ReplayStream {
 	}
 
 	public void setDirectDropActive(boolean dd) {
-		ReplayStream.directDropActive = dd;
+		directDropActive = dd;
 	}
 }
 
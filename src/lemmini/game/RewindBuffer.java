@@ -0,0 +1,636 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lemmini.game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import lemmini.gameutil.Sprite;
+
+/**
+ * Ring buffer of simulation snapshots used to rewind a level without restarting it.
+ * Terrain (stencil and foreground image) is stored as copy-on-write tiles: a snapshot
+ * only copies the tiles that changed since the previous snapshot and shares the rest.
+ * @author Will James
+ */
+class RewindBuffer {
+
+    /** width and height of a terrain tile in pixels */
+    static final int TILE_SIZE = 64;
+    /** rough estimate of the memory used by one Lemming or explosion copy in bytes */
+    private static final int OBJECT_BYTES = 128;
+    /** version of the serialized checkpoint state */
+    private static final int CHECKPOINT_VERSION = 2;
+
+    /** take a snapshot every interval frames */
+    private final int interval;
+    /** maximum memory used by all snapshots in bytes */
+    private final long budget;
+    /** snapshots, oldest first */
+    private final Deque<Snapshot> snapshots = new ArrayDeque<>();
+    /** tiles changed since the latest snapshot */
+    private final BitSet dirty = new BitSet();
+    /** terrain at the start of the level, checkpoints only store tiles that differ from it */
+    private Tile[] baseTiles;
+    private int width;
+    private int height;
+    private int tilesX;
+    private int tilesY;
+    /** memory used by all snapshots in bytes */
+    private long usedBytes;
+
+    /**
+     * Constructor.
+     * @param interval number of frames between two snapshots
+     * @param budget maximum memory used by all snapshots in bytes
+     */
+    RewindBuffer(final int interval, final long budget) {
+        this.interval = Math.max(1, interval);
+        this.budget = budget;
+    }
+
+    /**
+     * Remove all snapshots and mark the whole terrain as changed.
+     */
+    void reset(final int w, final int h) {
+        snapshots.clear();
+        baseTiles = null;
+        usedBytes = 0;
+        width = w;
+        height = h;
+        tilesX = (w + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (h + TILE_SIZE - 1) / TILE_SIZE;
+        dirty.clear();
+        dirty.set(0, tilesX * tilesY);
+    }
+
+    /**
+     * Mark the terrain tiles covering the given rectangle as changed.
+     */
+    void markDirty(final int x0, final int y0, final int w, final int h) {
+        int tx0 = Math.max(0, x0) / TILE_SIZE;
+        int ty0 = Math.max(0, y0) / TILE_SIZE;
+        int tx1 = Math.min(width - 1, x0 + w - 1) / TILE_SIZE;
+        int ty1 = Math.min(height - 1, y0 + h - 1) / TILE_SIZE;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            if (tx0 <= tx1) {
+                dirty.set(ty * tilesX + tx0, ty * tilesX + tx1 + 1);
+            }
+        }
+    }
+
+    /**
+     * Check whether a snapshot is due at the given frame.
+     */
+    boolean isDue(final int frame) {
+        return frame % interval == 0;
+    }
+
+    /**
+     * Take a snapshot of the given session.
+     */
+    void capture(final GameSession s) {
+        Snapshot last = snapshots.peekLast();
+        if (last != null && last.replayFrame == s.replayFrame) {
+            return;
+        }
+        Snapshot snap = new Snapshot(s);
+        snap.tiles = (last == null) ? new Tile[tilesX * tilesY] : last.tiles.clone();
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            Tile t = readTile(s, i);
+            snap.tiles[i] = t;
+            snap.ownedBytes += t.bytes();
+        }
+        dirty.clear();
+        if (baseTiles == null) {
+            baseTiles = snap.tiles.clone();
+        }
+        snapshots.addLast(snap);
+        usedBytes += snap.ownedBytes;
+
+        // evict the oldest snapshots, the next one takes over the tiles it shared with them
+        while (usedBytes > budget && snapshots.size() > 1) {
+            Snapshot oldest = snapshots.removeFirst();
+            Snapshot next = snapshots.peekFirst();
+            usedBytes -= oldest.ownedBytes;
+            for (int i = 0; i < oldest.tiles.length; i++) {
+                if (oldest.tiles[i] == next.tiles[i]) {
+                    next.ownedBytes += oldest.tiles[i].bytes();
+                    usedBytes += oldest.tiles[i].bytes();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the frame of the latest snapshot taken at or before the given frame.
+     * @return frame or -1 if there is none
+     */
+    int findSnapshot(final int frame) {
+        for (Iterator<Snapshot> it = snapshots.descendingIterator(); it.hasNext(); ) {
+            Snapshot sn = it.next();
+            if (sn.replayFrame <= frame) {
+                return sn.replayFrame;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Create a replay checkpoint of the current state of the given session.
+     * The state is deflated, terrain is stored as the tiles that differ from the start of the level.
+     * Only the tiles changed since the latest snapshot are read from the session.
+     */
+    ReplayCheckpoint createCheckpoint(final GameSession s) {
+        Snapshot latest = snapshots.peekLast();
+        if (baseTiles == null || latest == null) {
+            return null;
+        }
+        Snapshot snap = new Snapshot(s);
+        CRC32 crc = new CRC32();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new DeflaterOutputStream(bos)), crc))) {
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(snap.spriteStates.length);
+            snap.write(out);
+            List<Integer> changed = new ArrayList<>();
+            List<Tile> changedTiles = new ArrayList<>();
+            for (int i = 0; i < baseTiles.length; i++) {
+                Tile t = dirty.get(i) ? readTile(s, i) : latest.tiles[i];
+                // tiles shared with the start of the level are unchanged
+                if (t != baseTiles[i] && !t.equals(baseTiles[i])) {
+                    changed.add(i);
+                    changedTiles.add(t);
+                }
+            }
+            out.writeInt(changed.size());
+            for (int i = 0; i < changed.size(); i++) {
+                out.writeInt(changed.get(i));
+                changedTiles.get(i).write(out);
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        return new ReplayCheckpoint(snap.replayFrame, crc.getValue(), bos.toByteArray());
+    }
+
+    /**
+     * Restore a replay checkpoint. All snapshots are replaced by the restored state.
+     * Nothing is changed if the checkpoint is damaged or does not belong to this level.
+     * @return the frame of the checkpoint or -1 if it could not be restored
+     */
+    int restoreCheckpoint(final GameSession s, final ReplayCheckpoint cp) {
+        if (baseTiles == null) {
+            return -1;
+        }
+        Snapshot snap;
+        Tile[] tiles = baseTiles.clone();
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(cp.data))), crc))) {
+            int numSprites = s.level.getNumSprObjects();
+            if (in.readInt() != CHECKPOINT_VERSION || in.readInt() != width || in.readInt() != height
+                    || in.readInt() != numSprites) {
+                return -1;
+            }
+            snap = new Snapshot(in, numSprites);
+            int numTiles = in.readInt();
+            for (int i = 0; i < numTiles; i++) {
+                int idx = in.readInt();
+                tiles[idx] = Tile.read(in, baseTiles[idx].width, baseTiles[idx].height);
+                snap.ownedBytes += tiles[idx].bytes();
+            }
+        } catch (IOException | RuntimeException ex) {
+            return -1;
+        }
+        if (crc.getValue() != cp.crc || snap.replayFrame != cp.frame) {
+            return -1;
+        }
+
+        for (int i = 0; i < tiles.length; i++) {
+            writeTile(s, i, tiles[i]);
+        }
+        dirty.clear();
+        snap.tiles = tiles;
+        snapshots.clear();
+        snapshots.addLast(snap);
+        usedBytes = snap.ownedBytes;
+        snap.restore(s);
+        return snap.replayFrame;
+    }
+
+    /**
+     * Restore the latest snapshot taken at or before the given frame.
+     * Newer snapshots are dropped.
+     * @return the frame of the restored snapshot or -1 if there is none
+     */
+    int restore(final GameSession s, final int frame) {
+        Snapshot latest = snapshots.peekLast();
+        Snapshot snap = null;
+        for (Iterator<Snapshot> it = snapshots.descendingIterator(); it.hasNext(); ) {
+            Snapshot sn = it.next();
+            if (sn.replayFrame <= frame) {
+                snap = sn;
+                break;
+            }
+        }
+        if (snap == null) {
+            return -1;
+        }
+
+        // write back tiles which differ from the snapshot
+        for (int i = 0; i < snap.tiles.length; i++) {
+            if (dirty.get(i) || latest.tiles[i] != snap.tiles[i]) {
+                writeTile(s, i, snap.tiles[i]);
+            }
+        }
+        dirty.clear();
+        while (snapshots.peekLast() != snap) {
+            usedBytes -= snapshots.removeLast().ownedBytes;
+        }
+        snap.restore(s);
+        return snap.replayFrame;
+    }
+
+    private Tile readTile(final GameSession s, final int idx) {
+        int x0 = (idx % tilesX) * TILE_SIZE;
+        int y0 = (idx / tilesX) * TILE_SIZE;
+        int w = Math.min(TILE_SIZE, width - x0);
+        int h = Math.min(TILE_SIZE, height - y0);
+        Tile t = new Tile(w, h);
+        s.stencil.getMaskRect(x0, y0, w, h, t.mask);
+        s.fgImage.getRGB(x0, y0, w, h, t.argb, 0, w);
+        return t;
+    }
+
+    private void writeTile(final GameSession s, final int idx, final Tile t) {
+        int x0 = (idx % tilesX) * TILE_SIZE;
+        int y0 = (idx / tilesX) * TILE_SIZE;
+        s.stencil.setMaskRect(x0, y0, t.width, t.height, t.mask);
+        s.fgImage.setRGB(x0, y0, t.width, t.height, t.argb, 0, t.width);
+    }
+
+    /**
+     * Stencil mask and foreground pixels of one terrain tile.
+     */
+    private static class Tile {
+        final int width;
+        final int height;
+        final int[] mask;
+        final int[] argb;
+
+        Tile(final int w, final int h) {
+            width = w;
+            height = h;
+            mask = new int[w * h];
+            argb = new int[w * h];
+        }
+
+        long bytes() {
+            return (long) width * height * 2 * Integer.BYTES;
+        }
+
+        static Tile read(final DataInput in, final int w, final int h) throws IOException {
+            Tile t = new Tile(w, h);
+            for (int i = 0; i < t.mask.length; i++) {
+                t.mask[i] = in.readInt();
+            }
+            for (int i = 0; i < t.argb.length; i++) {
+                t.argb[i] = in.readInt();
+            }
+            return t;
+        }
+
+        void write(final DataOutput out) throws IOException {
+            for (int m : mask) {
+                out.writeInt(m);
+            }
+            for (int c : argb) {
+                out.writeInt(c);
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Tile)) {
+                return false;
+            }
+            Tile t = (Tile) o;
+            return Arrays.equals(mask, t.mask) && Arrays.equals(argb, t.argb);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(mask) + Arrays.hashCode(argb);
+        }
+    }
+
+    /**
+     * Simulation state of one frame.
+     */
+    private static class Snapshot {
+        final int replayFrame;
+        final int updateCtr;
+        final long stateHash;
+        final long terrainHash;
+        /** number of replay events stored for replayFrame which were already applied */
+        final int eventsApplied;
+        final int releaseRate;
+        final int releaseRateOld;
+        final int releaseBase;
+        final int releaseCtr;
+        final int secondCtr;
+        final int time;
+        final int timeElapsedTillLastExited;
+        final int numExited;
+        final int numLemmingsOut;
+        final int numClimbers;
+        final int numFloaters;
+        final int numBombers;
+        final int numBlockers;
+        final int numBuilders;
+        final int numBashers;
+        final int numMiners;
+        final int numDiggers;
+        final int numSkillsUsed;
+        final boolean nuke;
+        final boolean nukeOld;
+        final boolean entranceOpened;
+        final int entranceOpenCtr;
+        final int startSoundCtr;
+        final boolean startSoundPlayed;
+        final Lemming.Type lemmSkill;
+        final Lemming.Type lemmSkillOld;
+        final int trapDoorCounter;
+        final List<Lemming> lemmings;
+        final List<Explosion> explosions;
+        final Sprite.AnimState[] spriteStates;
+        /** index of the Lemming that triggered each sprite or -1 */
+        final int[] spriteLemmings;
+        Tile[] tiles;
+        long ownedBytes;
+
+        Snapshot(final GameSession s) {
+            replayFrame = s.replayFrame;
+            updateCtr = s.updateCtr;
+            stateHash = s.stateHash;
+            terrainHash = s.terrainHash;
+            if (s.replayFrame == 0) {
+                // nothing was played back yet
+                eventsApplied = 0;
+            } else {
+                // while recording, all stored events were already applied
+                int pos = s.replayMode ? s.replay.getPosition() : s.replay.size();
+                eventsApplied = Math.max(0, pos - s.replay.indexOf(s.replayFrame));
+            }
+            releaseRate = s.releaseRate;
+            releaseRateOld = s.releaseRateOld;
+            releaseBase = s.releaseBase;
+            releaseCtr = s.releaseCtr;
+            secondCtr = s.secondCtr;
+            time = s.time;
+            timeElapsedTillLastExited = s.timeElapsedTillLastExited;
+            numExited = s.numExited;
+            numLemmingsOut = s.numLemmingsOut;
+            numClimbers = s.numClimbers;
+            numFloaters = s.numFloaters;
+            numBombers = s.numBombers;
+            numBlockers = s.numBlockers;
+            numBuilders = s.numBuilders;
+            numBashers = s.numBashers;
+            numMiners = s.numMiners;
+            numDiggers = s.numDiggers;
+            numSkillsUsed = s.numSkillsUsed;
+            nuke = s.nuke;
+            nukeOld = s.nukeOld;
+            entranceOpened = s.entranceOpened;
+            entranceOpenCtr = s.entranceOpenCtr;
+            startSoundCtr = s.startSoundCtr;
+            startSoundPlayed = s.startSoundPlayed;
+            lemmSkill = s.lemmSkill;
+            lemmSkillOld = s.lemmSkillOld;
+            trapDoorCounter = s.trapDoor.getCounter();
+
+            lemmings = new ArrayList<>(s.lemmings.size());
+            for (Lemming l : s.lemmings) {
+                lemmings.add(new Lemming(l));
+            }
+            explosions = new ArrayList<>(s.explosions.size());
+            for (Explosion e : s.explosions) {
+                explosions.add(new Explosion(e));
+            }
+            int numSprites = s.level.getNumSprObjects();
+            spriteStates = new Sprite.AnimState[numSprites];
+            spriteLemmings = new int[numSprites];
+            for (int i = 0; i < numSprites; i++) {
+                SpriteObject spr = s.level.getSprObject(i);
+                if (spr != null) {
+                    spriteStates[i] = spr.getAnimState();
+                    spriteLemmings[i] = s.lemmings.indexOf(spr.getTriggerLemming());
+                }
+            }
+            ownedBytes = (long) (lemmings.size() + explosions.size() + numSprites) * OBJECT_BYTES;
+        }
+
+        /**
+         * Read a snapshot written by write(). Explosions are not stored.
+         */
+        Snapshot(final DataInput in, final int numSprites) throws IOException {
+            replayFrame = in.readInt();
+            updateCtr = in.readInt();
+            stateHash = in.readLong();
+            terrainHash = in.readLong();
+            eventsApplied = in.readInt();
+            releaseRate = in.readInt();
+            releaseRateOld = in.readInt();
+            releaseBase = in.readInt();
+            releaseCtr = in.readInt();
+            secondCtr = in.readInt();
+            time = in.readInt();
+            timeElapsedTillLastExited = in.readInt();
+            numExited = in.readInt();
+            numLemmingsOut = in.readInt();
+            numClimbers = in.readInt();
+            numFloaters = in.readInt();
+            numBombers = in.readInt();
+            numBlockers = in.readInt();
+            numBuilders = in.readInt();
+            numBashers = in.readInt();
+            numMiners = in.readInt();
+            numDiggers = in.readInt();
+            numSkillsUsed = in.readInt();
+            nuke = in.readBoolean();
+            nukeOld = in.readBoolean();
+            entranceOpened = in.readBoolean();
+            entranceOpenCtr = in.readInt();
+            startSoundCtr = in.readInt();
+            startSoundPlayed = in.readBoolean();
+            lemmSkill = readType(in);
+            lemmSkillOld = readType(in);
+            trapDoorCounter = in.readInt();
+
+            int numLemmings = in.readInt();
+            lemmings = new ArrayList<>(numLemmings);
+            for (int i = 0; i < numLemmings; i++) {
+                lemmings.add(new Lemming(in));
+            }
+            explosions = new ArrayList<>();
+            spriteStates = new Sprite.AnimState[numSprites];
+            spriteLemmings = new int[numSprites];
+            for (int i = 0; i < numSprites; i++) {
+                if (in.readBoolean()) {
+                    spriteStates[i] = Sprite.AnimState.read(in);
+                    spriteLemmings[i] = in.readInt();
+                    if (spriteLemmings[i] >= numLemmings) {
+                        throw new IOException("Invalid Lemming index.");
+                    }
+                }
+            }
+            ownedBytes = (long) (lemmings.size() + numSprites) * OBJECT_BYTES;
+        }
+
+        /**
+         * Write this snapshot without terrain and explosions (which are only visual).
+         */
+        void write(final DataOutput out) throws IOException {
+            out.writeInt(replayFrame);
+            out.writeInt(updateCtr);
+            out.writeLong(stateHash);
+            out.writeLong(terrainHash);
+            out.writeInt(eventsApplied);
+            out.writeInt(releaseRate);
+            out.writeInt(releaseRateOld);
+            out.writeInt(releaseBase);
+            out.writeInt(releaseCtr);
+            out.writeInt(secondCtr);
+            out.writeInt(time);
+            out.writeInt(timeElapsedTillLastExited);
+            out.writeInt(numExited);
+            out.writeInt(numLemmingsOut);
+            out.writeInt(numClimbers);
+            out.writeInt(numFloaters);
+            out.writeInt(numBombers);
+            out.writeInt(numBlockers);
+            out.writeInt(numBuilders);
+            out.writeInt(numBashers);
+            out.writeInt(numMiners);
+            out.writeInt(numDiggers);
+            out.writeInt(numSkillsUsed);
+            out.writeBoolean(nuke);
+            out.writeBoolean(nukeOld);
+            out.writeBoolean(entranceOpened);
+            out.writeInt(entranceOpenCtr);
+            out.writeInt(startSoundCtr);
+            out.writeBoolean(startSoundPlayed);
+            out.writeByte((lemmSkill == null) ? -1 : lemmSkill.ordinal());
+            out.writeByte((lemmSkillOld == null) ? -1 : lemmSkillOld.ordinal());
+            out.writeInt(trapDoorCounter);
+
+            out.writeInt(lemmings.size());
+            for (Lemming l : lemmings) {
+                l.write(out);
+            }
+            for (int i = 0; i < spriteStates.length; i++) {
+                out.writeBoolean(spriteStates[i] != null);
+                if (spriteStates[i] != null) {
+                    spriteStates[i].write(out);
+                    out.writeInt(spriteLemmings[i]);
+                }
+            }
+        }
+
+        private static Lemming.Type readType(final DataInput in) throws IOException {
+            int t = in.readByte();
+            return (t < 0) ? null : Lemming.Type.values()[t];
+        }
+
+        void restore(final GameSession s) {
+            s.replayFrame = replayFrame;
+            s.updateCtr = updateCtr;
+            s.stateHash = stateHash;
+            s.terrainHash = terrainHash;
+            s.replay.setPosition(s.replay.indexOf(replayFrame) + eventsApplied);
+            s.releaseRate = releaseRate;
+            s.releaseRateOld = releaseRateOld;
+            s.releaseBase = releaseBase;
+            s.releaseCtr = releaseCtr;
+            s.secondCtr = secondCtr;
+            s.time = time;
+            s.timeElapsedTillLastExited = timeElapsedTillLastExited;
+            s.numExited = numExited;
+            s.numLemmingsOut = numLemmingsOut;
+            s.numClimbers = numClimbers;
+            s.numFloaters = numFloaters;
+            s.numBombers = numBombers;
+            s.numBlockers = numBlockers;
+            s.numBuilders = numBuilders;
+            s.numBashers = numBashers;
+            s.numMiners = numMiners;
+            s.numDiggers = numDiggers;
+            s.numSkillsUsed = numSkillsUsed;
+            s.nuke = nuke;
+            s.nukeOld = nukeOld;
+            s.entranceOpened = entranceOpened;
+            s.entranceOpenCtr = entranceOpenCtr;
+            s.startSoundCtr = startSoundCtr;
+            s.startSoundPlayed = startSoundPlayed;
+            s.lemmSkill = lemmSkill;
+            s.lemmSkillOld = lemmSkillOld;
+            s.trapDoor.setCounter(trapDoorCounter);
+
+            // restore copies, the snapshot must stay untouched for later rewinds
+            s.lemmings.clear();
+            for (Lemming l : lemmings) {
+                s.lemmings.add(new Lemming(l));
+            }
+            s.explosions.clear();
+            for (Explosion e : explosions) {
+                s.explosions.add(new Explosion(e));
+            }
+            s.vsfxs.clear();
+            s.lemmSkillRequest = null;
+            for (int i = 0; i < spriteStates.length; i++) {
+                SpriteObject spr = s.level.getSprObject(i);
+                if (spr != null && spriteStates[i] != null) {
+                    Lemming l = (spriteLemmings[i] >= 0) ? s.lemmings.get(spriteLemmings[i]) : null;
+                    spr.setAnimState(spriteStates[i], l);
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package lemmini.game;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.commons.lang3.ArrayUtils;
 
 /*
@@ -68,8 +72,39 @@ public class Stencil {
     /** the level exit */
     public static final int MSK_EXIT = 1 << 17;
 
-    /** array which represents the stencil buffer */
-    private final StencilPixel[] stencil;
+    private static final int TERRAIN_MASK =
+            MSK_BRICK
+          | MSK_STEEL_BRICK
+          | MSK_NO_ONE_WAY
+          | MSK_NO_ONE_WAY_DRAW;
+
+    private static final int PRIORITY_GADGET_MASK =
+            MSK_EXIT
+          | MSK_BLOCKER
+          | MSK_TURN
+          | MSK_TRAP_FIRE
+          | MSK_TRAP_REMOVE
+          | MSK_TRAP_LIQUID
+          | MSK_ONE_WAY;
+
+    /** mask of each pixel - stores at most one gadget (exit / water / fire etc) but any number of terrain, steel, OWW */
+    private final int[] mask;
+    /** ID of the gadget which owns the mask of each pixel (-1 if none) */
+    private final int[] maskObjectID;
+    /** first object ID of each pixel (-1 if none) */
+    private final int[] objectID;
+    /** all object IDs of the few pixels which are covered by more than one object */
+    private final Map<Integer, int[]> multiObjectIDs;
+    /** {id} for each object ID in objectID, returned by getIDs() for pixels covered by one object */
+    private int[][] singleObjectIDs = new int[0][];
+    /** MSK_BRICK bit planes, one bit per pixel - row by row and column by column */
+    private final long[] brickRows;
+    private final long[] brickCols;
+    /** MSK_STEEL bit plane, one bit per pixel - row by row */
+    private final long[] steelRows;
+    /** number of longs per row (row planes) and per column (column planes) */
+    private final int wordsPerRow;
+    private final int wordsPerCol;
     /** width of stencil (=width of level) */
     private final int width;
     /** height of stencil (=height of level) */
@@ -82,20 +117,30 @@ public class Stencil {
     public Stencil(final int w, final int h) {
         width = w;
         height = h;
-        stencil = new StencilPixel[width * height];
-        for (int i = 0; i < stencil.length; i++) {
-            stencil[i] = new StencilPixel();
-        }
+        mask = new int[width * height];
+        maskObjectID = new int[width * height];
+        objectID = new int[width * height];
+        multiObjectIDs = new HashMap<>();
+        Arrays.fill(maskObjectID, -1);
+        Arrays.fill(objectID, -1);
+        wordsPerRow = (width + 63) >>> 6;
+        wordsPerCol = (height + 63) >>> 6;
+        brickRows = new long[wordsPerRow * height];
+        steelRows = new long[wordsPerRow * height];
+        brickCols = new long[wordsPerCol * width];
     }
 
     /**
      * Clear stencil (fill with MSK_EMPTY).
      */
     public void clear() {
-        int size = width * height;
-        for (int idx = 0; idx < size; idx++) {
-            stencil[idx].clear();
-        }
+        Arrays.fill(mask, MSK_EMPTY);
+        Arrays.fill(maskObjectID, -1);
+        Arrays.fill(objectID, -1);
+        multiObjectIDs.clear();
+        Arrays.fill(brickRows, 0L);
+        Arrays.fill(steelRows, 0L);
+        Arrays.fill(brickCols, 0L);
     }
 
      /**
@@ -105,8 +150,8 @@ public class Stencil {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return;
         }
-        int pos = x + y * width;
-        stencil[pos].setMask(val);
+        mask[x + y * width] = val;
+        updatePlanes(x, y, val);
     }
 
     /**
@@ -128,9 +173,9 @@ public class Stencil {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return;
         }
-
         int pos = x + y * width;
-        stencil[pos].andMask(val);
+        mask[pos] &= val;
+        updatePlanes(x, y, mask[pos]);
     }
 
     /**
@@ -149,9 +194,9 @@ public class Stencil {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return;
         }
-
         int pos = x + y * width;
-        stencil[pos].orMask(val);
+        mask[pos] |= val;
+        updatePlanes(x, y, mask[pos]);
     }
 
     /**
@@ -170,9 +215,7 @@ public class Stencil {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return;
         }
-
-        int pos = x + y * width;
-        stencil[pos].setMaskObjectID(id);
+        maskObjectID[x + y * width] = id;
     }
 
     /**
@@ -194,8 +237,7 @@ public class Stencil {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return 0;
         }
-        int pos = x + y * width;
-        return stencil[pos].getMask();
+        return mask[x + y * width];
     }
 
     /**
@@ -215,7 +257,17 @@ public class Stencil {
             return;
         }
         int pos = x + y * width;
-        stencil[pos].addGadget(aMask, aID);
+
+        // Add gadget masks according to priority
+        int existingGadget = mask[pos] & PRIORITY_GADGET_MASK;
+        if (getPriority(existingGadget) > getPriority(aMask)) {
+            return;
+        }
+
+        // Keep terrain pixels, let the incoming gadget override whatever is already there
+        mask[pos] = (mask[pos] & TERRAIN_MASK) | aMask;
+        maskObjectID[pos] = aID;
+        updatePlanes(x, y, mask[pos]);
     }
 
     /**
@@ -227,7 +279,21 @@ public class Stencil {
         }
 
         int pos = x + y * width;
-        stencil[pos].addObjectID(id);
+        if (objectID[pos] < 0) {
+            objectID[pos] = id;
+            if (id >= singleObjectIDs.length) {
+                singleObjectIDs = Arrays.copyOf(singleObjectIDs, id + 1);
+            }
+            if (singleObjectIDs[id] == null) {
+                singleObjectIDs[id] = new int[] {id};
+            }
+        } else {
+            int[] ids = multiObjectIDs.get(pos);
+            if (ids == null) {
+                ids = new int[] {objectID[pos]};
+            }
+            multiObjectIDs.put(pos, ArrayUtils.add(ids, id));
+        }
     }
 
     /**
@@ -241,6 +307,7 @@ public class Stencil {
 
     /**
      * Gets all object IDs from the stencil.
+     * The returned array is shared and must not be modified.
      */
     public int[] getIDs(final int x, final int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
@@ -248,7 +315,11 @@ public class Stencil {
         }
 
         int pos = x + y * width;
-        return stencil[pos].getObjectIDs();
+        if (objectID[pos] < 0) {
+            return ArrayUtils.EMPTY_INT_ARRAY;
+        }
+        int[] ids = multiObjectIDs.get(pos);
+        return (ids != null) ? ids : singleObjectIDs[objectID[pos]];
     }
 
     /**
@@ -264,9 +335,7 @@ public class Stencil {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return -1;
         }
-
-        int pos = x + y * width;
-        return stencil[pos].getMaskObjectID();
+        return maskObjectID[x + y * width];
     }
 
     public int getMaskObjectID(final int pos) {
@@ -275,109 +344,181 @@ public class Stencil {
         return getMaskObjectID(x, y);
     }
 
-    /** Get width of stencil.
+    /**
+     * Check if the pixel at the given position is brick.
      */
-    public int getWidth() {
-        return width;
+    public boolean isBrick(final int x, final int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        return (brickRows[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
     }
 
     /**
-     * Get height of stencil.
+     * Check if there is any brick in the given row between x0 and x1 (inclusive).
      */
-    public int getHeight() {
-        return height;
+    public boolean anyBrickInRow(final int y, final int x0, final int x1) {
+        return anyInRow(brickRows, y, x0, x1);
     }
-}
 
-class StencilPixel {
-   /** this stores at most one gadget (exit / water / fire etc) but any number of terrain, steel, OWW */
-    private int mask;
-    /** this stores the ID of each individual object */
-    private int maskObjectID;
-    /** this stores an array of all available object IDs */
-    private int[] objectIDs;
-
-    public StencilPixel() {
-        mask = 0;
-        maskObjectID = -1;
-        objectIDs = ArrayUtils.EMPTY_INT_ARRAY;
+    /**
+     * Check if there is any steel in the given rectangle (inclusive).
+     */
+    public boolean anySteel(final int x0, final int x1, final int y0, final int y1) {
+        for (int y = y0; y <= y1; y++) {
+            if (anyInRow(steelRows, y, x0, x1)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public void clear() {
-        mask = 0;
-        maskObjectID = -1;
-        objectIDs = ArrayUtils.EMPTY_INT_ARRAY;
+    /**
+     * Get the number of consecutive non-brick pixels in column x, starting at y and going down.
+     * Pixels above the stencil count as free. At most max pixels are counted.
+     */
+    public int freeBelow(final int x, final int y, final int max) {
+        if (max <= 0) {
+            return 0;
+        }
+        if (x < 0 || x >= width) {
+            return max;
+        }
+        int free = 0;
+        int yb = y;
+        if (yb < 0) {
+            free = Math.min(-yb, max);
+            yb = 0;
+        }
+        int base = x * wordsPerCol;
+        while (free < max) {
+            if (yb >= height) {
+                return max; // pixels below the stencil count as free
+            }
+            long bits = brickCols[base + (yb >>> 6)] >>> (yb & 63);
+            int run = (bits == 0) ? 64 - (yb & 63) : Long.numberOfTrailingZeros(bits);
+            free += run;
+            yb += run;
+            if (bits != 0) {
+                break; // hit brick
+            }
+        }
+        return Math.min(free, max);
     }
 
-    public void setMask(int newMask) {
-        mask = newMask;
+    /**
+     * Get the number of consecutive brick pixels in column x, starting at y and going up.
+     * At most max pixels are counted.
+     */
+    public int bricksAbove(final int x, final int y, final int max) {
+        if (max <= 0 || x < 0 || x >= width || y < 0 || y >= height) {
+            return 0;
+        }
+        int count = 0;
+        int yb = y;
+        int base = x * wordsPerCol;
+        while (count < max && yb >= 0) {
+            int s = yb & 63;
+            long inv = ~brickCols[base + (yb >>> 6)] << (63 - s);
+            int run = Math.min(Long.numberOfLeadingZeros(inv), s + 1);
+            count += run;
+            yb -= run;
+            if (run <= s) {
+                break; // hit a free pixel
+            }
+        }
+        return Math.min(count, max);
     }
 
-    public void andMask(int newMask) {
-        mask &= newMask;
+    private boolean anyInRow(final long[] plane, final int y, final int x0, final int x1) {
+        if (y < 0 || y >= height) {
+            return false;
+        }
+        int xa = Math.max(x0, 0);
+        int xb = Math.min(x1, width - 1);
+        if (xa > xb) {
+            return false;
+        }
+        int base = y * wordsPerRow;
+        int wa = xa >>> 6;
+        int wb = xb >>> 6;
+        long first = -1L << xa;
+        long last = -1L >>> (63 - (xb & 63));
+        if (wa == wb) {
+            return (plane[base + wa] & first & last) != 0;
+        }
+        if ((plane[base + wa] & first) != 0 || (plane[base + wb] & last) != 0) {
+            return true;
+        }
+        for (int w = wa + 1; w < wb; w++) {
+            if (plane[base + w] != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public void orMask(int newMask) {
-        mask |= newMask;
+    /**
+     * Copy the mask values of a rectangle into an array (row by row, w values per row).
+     */
+    public void getMaskRect(final int x0, final int y0, final int w, final int h, final int[] dst) {
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(mask, (y0 + y) * width + x0, dst, y * w, w);
+        }
     }
 
-    public void setMaskObjectID(int mo) {
-        maskObjectID = mo;
+    /**
+     * Overwrite the mask values of a rectangle from an array filled by getMaskRect.
+     */
+    public void setMaskRect(final int x0, final int y0, final int w, final int h, final int[] src) {
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(src, y * w, mask, (y0 + y) * width + x0, w);
+            for (int x = 0; x < w; x++) {
+                updatePlanes(x0 + x, y0 + y, src[y * w + x]);
+            }
+        }
     }
 
-    public void addObjectID(int newID) {
-        objectIDs = ArrayUtils.add(objectIDs, newID);
+    private void updatePlanes(final int x, final int y, final int val) {
+        int r = y * wordsPerRow + (x >>> 6);
+        int c = x * wordsPerCol + (y >>> 6);
+        long rb = 1L << x;
+        long cb = 1L << y;
+        if ((val & MSK_BRICK) != 0) {
+            brickRows[r] |= rb;
+            brickCols[c] |= cb;
+        } else {
+            brickRows[r] &= ~rb;
+            brickCols[c] &= ~cb;
+        }
+        if ((val & MSK_STEEL) != 0) {
+            steelRows[r] |= rb;
+        } else {
+            steelRows[r] &= ~rb;
+        }
     }
 
-    public int getMask() {
-        return mask;
+    /** Get width of stencil.
+     */
+    public int getWidth() {
+        return width;
     }
 
-    public int getMaskObjectID() {
-        return maskObjectID;
+    /**
+     * Get height of stencil.
+     */
+    public int getHeight() {
+        return height;
     }
 
-    public int[] getObjectIDs() {
-        return objectIDs;
-    }
-    
-    static final int TERRAIN_MASK =
-    		Stencil.MSK_BRICK
-          | Stencil.MSK_STEEL_BRICK
-          | Stencil.MSK_NO_ONE_WAY
-          | Stencil.MSK_NO_ONE_WAY_DRAW;
-    
-    static final int PRIORITY_GADGET_MASK =
-    		Stencil.MSK_EXIT
-          | Stencil.MSK_BLOCKER
-          | Stencil.MSK_TURN
-          | Stencil.MSK_TRAP_FIRE
-          | Stencil.MSK_TRAP_REMOVE
-          | Stencil.MSK_TRAP_LIQUID
-          | Stencil.MSK_ONE_WAY;
-    
     private static int getPriority(int mask) {
-        if ((mask & Stencil.MSK_EXIT) != 0) return 7;
-        if ((mask & Stencil.MSK_BLOCKER) != 0) return 6;
-        if ((mask & Stencil.MSK_TURN) != 0) return 5;
-        if ((mask & Stencil.MSK_TRAP_FIRE) != 0) return 4;
-        if ((mask & Stencil.MSK_TRAP_REMOVE) != 0) return 3;
-        if ((mask & Stencil.MSK_TRAP_LIQUID) != 0) return 2;
-        if ((mask & Stencil.MSK_ONE_WAY) != 0) return 1;
+        if ((mask & MSK_EXIT) != 0) return 7;
+        if ((mask & MSK_BLOCKER) != 0) return 6;
+        if ((mask & MSK_TURN) != 0) return 5;
+        if ((mask & MSK_TRAP_FIRE) != 0) return 4;
+        if ((mask & MSK_TRAP_REMOVE) != 0) return 3;
+        if ((mask & MSK_TRAP_LIQUID) != 0) return 2;
+        if ((mask & MSK_ONE_WAY) != 0) return 1;
         return 0;
     }
-
-    public void addGadget(final int aMask, final int aID) {
-    	// Add gadget masks according to priority
-        int existingGadget = mask & PRIORITY_GADGET_MASK;
-        if (getPriority(existingGadget) > getPriority(aMask))
-            return;
-
-        // Keep terrain pixels
-    	mask &= TERRAIN_MASK;
-
-    	// Let the incoming gadget override whatever is already there
-    	mask |= aMask;
-    	maskObjectID = aID;
-    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.util.Arrays;
+
+/**
+ * Rectangles of the terrain that were changed since the journal was last drained.
+ * <p>
+ * Terrain edits only write the foreground image and the stencil. Everything derived
+ * from them (e.g. the minimap) is brought up to date once per frame by draining the
+ * journal, so the cost doesn't grow with the number of edits in a frame.
+ * <p>
+ * The debug brush adds rectangles from the event thread, so the journal is synchronized.
+ * @author Will James
+ */
+final class TerrainJournal {
+
+    /** receives the rectangles of a journal */
+    @FunctionalInterface
+    interface Consumer {
+        void changed(int x, int y, int w, int h);
+    }
+
+    /** x, y, width and height of every rectangle */
+    private int[] rects = new int[4 * 16];
+    private int count;
+
+    /**
+     * Record a changed rectangle.
+     */
+    synchronized void add(final int x, final int y, final int w, final int h) {
+        int i = count * 4;
+        if (i == rects.length) {
+            rects = Arrays.copyOf(rects, i * 2);
+        }
+        rects[i] = x;
+        rects[i + 1] = y;
+        rects[i + 2] = w;
+        rects[i + 3] = h;
+        count++;
+    }
+
+    /**
+     * Pass all recorded rectangles to the consumer in the order they were added, then forget them.
+     */
+    synchronized void drain(final Consumer c) {
+        for (int i = 0; i < count * 4; i += 4) {
+            c.changed(rects[i], rects[i + 1], rects[i + 2], rects[i + 3]);
+        }
+        count = 0;
+    }
+
+    /**
+     * Forget all recorded rectangles.
+     */
+    synchronized void clear() {
+        count = 0;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2009 Volker Oth.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lemmini.game;
+
+/**
+ * Trapdoor/Entrance class
+ * Trapdoor logic: for numbers >1, just take the next door for each lemming and wrap around to 1 when
+ * the last one is reached.
+ * Special rule for 3 trapdoors: the order is 1, 2, 3, 2 (loop), not 1, 2, 3 (loop)
+ *
+ * @author Volker Oth
+ */
+class TrapDoor {
+    /** pattern for three entrances */
+    private static final int[] PATTERN3 = {0, 1, 2, 1};
+
+    /** order of entrances */
+    private int[] entranceOrder;
+    /** entrance counter */
+    private int counter;
+
+    /**
+     * Reset to new number of entrances.
+     */
+    void reset(final int e, final int[] eOrder) throws LemException {
+        if (e == 0) {
+            throw new LemException("Level does not have any entrances.");
+        }
+        if (eOrder == null) {
+            if (e == 3) {
+                // special case: 3 entrances
+                entranceOrder = PATTERN3;
+            } else {
+                entranceOrder = new int[e];
+                for (int i = 0; i < entranceOrder.length; i++) {
+                    entranceOrder[i] = i;
+                }
+            }
+        } else {
+            int newSize = 0;
+            for (int en : eOrder) {
+                if (en >= 0 && en < e) {
+                    newSize++;
+                }
+            }
+            if (newSize == 0) {
+                throw new LemException("No entrances in this level are used.");
+            }
+            if (newSize == eOrder.length) {
+                entranceOrder = eOrder.clone();
+            } else {
+                entranceOrder = new int[newSize];
+                for (int i = 0, j = 0; i < eOrder.length && j < entranceOrder.length; i++) {
+                    int en = eOrder[i];
+                    if (en >= 0 && en < e) {
+                        entranceOrder[j++] = eOrder[i];
+                    }
+                }
+            }
+        }
+        counter = 0;
+    }
+
+    /**
+     * Get index of next entrance.
+     */
+    int getNext() {
+        int retVal = entranceOrder[counter++];
+        if (counter >= entranceOrder.length) {
+            counter = 0;
+        }
+        return retVal;
+    }
+
+    /**
+     * Get entrance counter.
+     */
+    int getCounter() {
+        return counter;
+    }
+
+    /**
+     * Set entrance counter.
+     */
+    void setCounter(final int c) {
+        counter = c;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.game;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Time histograms for the phases of {@link GameSession#update()}.
+ * <p>
+ * A session only has a profiler while profiling is switched on, otherwise the phases
+ * aren't timed at all. Recording, the overlay and the export all run on the game thread.
+ * @author Will James
+ */
+public final class UpdateProfiler {
+
+    /** Phases of one simulation frame, in the order they are run. */
+    public static enum Phase {
+        /** release rate keys, replay recording and playback */
+        REPLAY,
+        /** level timer */
+        TIMER,
+        /** lemming release */
+        RELEASE,
+        /** nuke */
+        NUKE,
+        /** start sound and entrance opening */
+        ENTRANCE,
+        /** end of level check */
+        END_CHECK,
+        /** Lemming.animate() for every lemming */
+        LEMMINGS,
+        EXPLOSIONS,
+        /** visual sound effects */
+        VSFX,
+        /** sprite object animation */
+        SPRITES,
+        /** advanceBackgroundFrame() */
+        BACKGROUND,
+        /** second skill assignment, state hash, rewind snapshots and checkpoints */
+        STATE,
+        /** the whole frame */
+        TOTAL
+    }
+
+    /** sub buckets per power of two, so a bucket is at most 25% wide */
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    /** number of frames between two updates of the overlay text */
+    private static final int SUMMARY_FRAMES = 32;
+
+    private final long[][] histograms = new long[Phase.values().length][NUM_BUCKETS];
+    private final long[] totalNanos = new long[Phase.values().length];
+    private final long[] maxNanos = new long[Phase.values().length];
+    private long frames;
+    private long frameStart;
+    private long lapStart;
+    /** overlay text, null if it has to be recalculated */
+    private String[] summary;
+    private volatile boolean exportRequested;
+
+    /**
+     * Start timing a frame.
+     */
+    void begin() {
+        frameStart = System.nanoTime();
+        lapStart = frameStart;
+    }
+
+    /**
+     * End the given phase and start the next one.
+     */
+    void lap(final Phase phase) {
+        long now = System.nanoTime();
+        record(phase, now - lapStart);
+        lapStart = now;
+    }
+
+    /**
+     * End the frame.
+     */
+    void end() {
+        lap(Phase.STATE);
+        record(Phase.TOTAL, lapStart - frameStart);
+        if (++frames % SUMMARY_FRAMES == 0) {
+            summary = null;
+        }
+    }
+
+    private void record(final Phase phase, final long nanos) {
+        int p = phase.ordinal();
+        histograms[p][bucket(nanos)]++;
+        totalNanos[p] += nanos;
+        if (nanos > maxNanos[p]) {
+            maxNanos[p] = nanos;
+        }
+    }
+
+    /**
+     * Get the histogram bucket of a duration: the power of two and the next bits below it.
+     */
+    private static int bucket(final long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Get the upper bound (exclusive) of a histogram bucket in nanoseconds.
+     */
+    private static long bucketLimit(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift;
+    }
+
+    /**
+     * Get the given percentile of a phase in nanoseconds (upper bound of its bucket).
+     */
+    private long percentile(final Phase phase, final double pct) {
+        long[] h = histograms[phase.ordinal()];
+        long count = 0;
+        for (long c : h) {
+            count += c;
+        }
+        long rank = (long) Math.ceil(count * pct / 100.0);
+        long sum = 0;
+        for (int i = 0; i < h.length; i++) {
+            sum += h[i];
+            if (sum >= rank && sum > 0) {
+                return Math.min(bucketLimit(i), maxNanos[phase.ordinal()]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forget all recorded frames.
+     */
+    void reset() {
+        for (long[] h : histograms) {
+            Arrays.fill(h, 0);
+        }
+        Arrays.fill(totalNanos, 0);
+        Arrays.fill(maxNanos, 0);
+        frames = 0;
+        summary = null;
+    }
+
+    /**
+     * Get the lines of the debug overlay: mean, 99th percentile and maximum per phase in microseconds.
+     */
+    public String[] getSummary() {
+        if (summary == null) {
+            Phase[] phases = Phase.values();
+            String[] lines = new String[phases.length + 1];
+            lines[0] = String.format(Locale.ROOT, "%-10s %8s %8s %8s  %d FRAMES", "PHASE US", "MEAN", "P99", "MAX", frames);
+            for (Phase p : phases) {
+                lines[p.ordinal() + 1] = String.format(Locale.ROOT, "%-10s %8.1f %8.1f %8.1f", p.name(),
+                        (frames == 0) ? 0.0 : totalNanos[p.ordinal()] / 1000.0 / frames,
+                        percentile(p, 99) / 1000.0, maxNanos[p.ordinal()] / 1000.0);
+            }
+            summary = lines;
+        }
+        return summary;
+    }
+
+    /**
+     * Request an export of the histograms by the next update.
+     */
+    public void requestExport() {
+        exportRequested = true;
+    }
+
+    boolean isExportRequested() {
+        return exportRequested;
+    }
+
+    /**
+     * Write all histograms as CSV: one line per phase with the summary values
+     * followed by the count of every non-empty bucket as "upper bound in ns:count".
+     */
+    void export(final Path file) throws IOException {
+        exportRequested = false;
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("phase,frames,total_ns,mean_ns,p50_ns,p90_ns,p99_ns,max_ns,buckets");
+            w.newLine();
+            for (Phase p : Phase.values()) {
+                int i = p.ordinal();
+                StringBuilder sb = new StringBuilder();
+                for (int b = 0; b < NUM_BUCKETS; b++) {
+                    if (histograms[i][b] > 0) {
+                        sb.append(sb.length() == 0 ? "" : " ").append(bucketLimit(b)).append(':').append(histograms[i][b]);
+                    }
+                }
+                w.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%d,%s", p.name(), frames, totalNanos[i],
+                        (frames == 0) ? 0 : totalNanos[i] / frames, percentile(p, 50), percentile(p, 90), percentile(p, 99),
+                        maxNanos[i], sb));
+                w.newLine();
+            }
+        }
+    }
+}
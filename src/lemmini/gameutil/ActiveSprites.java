@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.gameutil;
+
+import java.util.BitSet;
+
+/**
+ * The sprites of a group (e.g. the objects of a level) that have to be animated
+ * every tick, and the ones that are currently triggered.
+ * <p>
+ * Every sprite reports its own changes, so a static or finished sprite costs nothing
+ * per tick. LOOP and ONCE animations don't need to be stepped either: they derive their
+ * frame from the tick count of the group when it is read. Only the remaining sprites
+ * (e.g. triggered traps) are stepped, in the order of the group.
+ * @author Will James
+ */
+public final class ActiveSprites {
+
+    private final Sprite[] sprites;
+    private final BitSet animating;
+    private final BitSet triggered;
+    /** number of calls of animate(), volatile since sprites may be drawn by another thread */
+    private volatile long tick;
+
+    /**
+     * Constructor.
+     * @param sprites sprites of the group, may contain null entries
+     */
+    public ActiveSprites(final Sprite[] sprites) {
+        this.sprites = sprites;
+        animating = new BitSet(sprites.length);
+        triggered = new BitSet(sprites.length);
+        for (int i = 0; i < sprites.length; i++) {
+            if (sprites[i] != null) {
+                sprites[i].setActiveSprites(this, i);
+            }
+        }
+    }
+
+    /**
+     * Update the state of a sprite after its animation state changed.
+     */
+    void update(final Sprite spr, final int idx) {
+        animating.set(idx, spr.isAnimating());
+        triggered.set(idx, spr.isTriggered());
+    }
+
+    /**
+     * Advance all animations of the group by one tick.
+     */
+    public void animate() {
+        tick++;
+        for (int i = animating.nextSetBit(0); i >= 0; i = animating.nextSetBit(i + 1)) {
+            sprites[i].getImageAnim();
+        }
+    }
+
+    long getTick() {
+        return tick;
+    }
+
+    /**
+     * Check if any sprite of the group is triggered.
+     */
+    public boolean isAnyTriggered() {
+        return !triggered.isEmpty();
+    }
+
+    /**
+     * Get the index of the next triggered sprite of the group.
+     * @param from index to start searching at
+     * @return index of the sprite or -1 if there is none
+     */
+    public int nextTriggered(final int from) {
+        return triggered.nextSetBit(from);
+    }
+}
@@ -51,6 +51,8 @@ public class LemHotkeys {
 		HotkeyToggleSound("(In-Game) Mute/unmute sound", HotkeyScope.IN_GAME),
 	    HotkeyPause("(In-Game) Pause the game", HotkeyScope.IN_GAME),
 	    HotkeyRestart("(In-Game) Restart the game", HotkeyScope.IN_GAME),
+	    HotkeyRewind("(In-Game) Rewind a few seconds", HotkeyScope.IN_GAME),
+	    HotkeySkipForward("(In-Game) Skip forward a few seconds (replay only)", HotkeyScope.IN_GAME),
 	    HotkeyNuke("(In-Game) Nuke the level", HotkeyScope.IN_GAME),
 	    HotkeyDecreaseRR("(In-Game) Decrease release rate", HotkeyScope.IN_GAME),
 	    HotkeyIncreaseRR("(In-Game) Increase release rate", HotkeyScope.IN_GAME),
@@ -66,6 +68,7 @@ public class LemHotkeys {
 	    HotkeyToggleFallDistanceRuler("(In-Game) Toggle Fall Distance Ruler", HotkeyScope.IN_GAME),
 	    HotkeyFastForward("(In-Game) Fast-Forward", HotkeyScope.IN_GAME),
 	    HotkeyTurboForward("(In-Game) Turbo Fast-Forward", HotkeyScope.IN_GAME),
+	    HotkeyMaxSpeedForward("(In-Game) Max speed Fast-Forward", HotkeyScope.IN_GAME),
 	    HotkeySaveAsImage("(In-Game + Preview) Save level as image", HotkeyScope.IN_GAME, HotkeyScope.PREVIEW),
 	    HotkeySelectLeft("(In-Game) Select left-facing lemming", HotkeyScope.IN_GAME),
 	    HotkeySelectRight("(In-Game) Select right-facing lemming", HotkeyScope.IN_GAME),
@@ -93,6 +96,8 @@ public class LemHotkeys {
 	    HotkeyDebugDrawBrushSizeDown("(Debug) Decrease draw brush size", HotkeyScope.DEBUG),
 	    HotkeyDebugToggleCursorInfo("(Debug) Toggle debug cursor info", HotkeyScope.DEBUG),
 	    HotkeyDebugAddLemAtCursor("(Debug) Add lemming at cursor", HotkeyScope.DEBUG),
+	    HotkeyDebugToggleProfiler("(Debug) Toggle update profiler", HotkeyScope.DEBUG),
+	    HotkeyDebugExportProfile("(Debug) Export update profile", HotkeyScope.DEBUG),
 	    HotkeyToggleMenuBar("(Anywhere) Toggle menu bar", HotkeyScope.ANYWHERE),
 		HotkeyManagePlayers("(Anywhere) Manage players", HotkeyScope.ANYWHERE),
 		HotkeyLevelSelect("(Anywhere) Select level", HotkeyScope.ANYWHERE),
@@ -136,6 +141,8 @@ public class LemHotkeys {
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyToggleSound, KeyEvent.VK_Z));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyPause, KeyEvent.VK_P));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyRestart, KeyEvent.VK_R, "Ctrl"));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyRewind, KeyEvent.VK_BACK_SPACE));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySkipForward, KeyEvent.VK_BACK_SPACE, "Shift"));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyNuke, KeyEvent.VK_N));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDecreaseRR, KeyEvent.VK_MINUS));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyIncreaseRR, KeyEvent.VK_EQUALS));
@@ -151,6 +158,7 @@ public class LemHotkeys {
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyToggleFallDistanceRuler, KeyEvent.VK_I));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyFastForward, KeyEvent.VK_F));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyTurboForward, KeyEvent.VK_T));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyMaxSpeedForward, KeyEvent.VK_T, "Shift"));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySelectLeft, KeyEvent.VK_LEFT));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySelectRight, KeyEvent.VK_RIGHT));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySelectWalker, KeyEvent.VK_W));
@@ -178,6 +186,8 @@ public class LemHotkeys {
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugDrawBrushSizeDown, KeyEvent.VK_9));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugToggleCursorInfo, KeyEvent.VK_NUMPAD5));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugAddLemAtCursor, KeyEvent.VK_L));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugToggleProfiler, KeyEvent.VK_NUMPAD6));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugExportProfile, KeyEvent.VK_NUMPAD7));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyToggleMenuBar, KeyEvent.VK_F1));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyManagePlayers, KeyEvent.VK_F2));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyLevelSelect, KeyEvent.VK_F3));
@@ -193,6 +203,8 @@ public class LemHotkeys {
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyToggleSound, KeyEvent.VK_UNDEFINED));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyPause, KeyEvent.VK_P));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyRestart, KeyEvent.VK_R, "Ctrl"));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyRewind, KeyEvent.VK_UNDEFINED));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySkipForward, KeyEvent.VK_UNDEFINED));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyNuke, KeyEvent.VK_F12));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDecreaseRR, KeyEvent.VK_F1));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyIncreaseRR, KeyEvent.VK_F2));
@@ -208,6 +220,7 @@ public class LemHotkeys {
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyToggleFallDistanceRuler, KeyEvent.VK_UNDEFINED));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyFastForward, KeyEvent.VK_F));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyTurboForward, KeyEvent.VK_UNDEFINED));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyMaxSpeedForward, KeyEvent.VK_UNDEFINED));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySelectLeft, KeyEvent.VK_LEFT));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySelectRight, KeyEvent.VK_RIGHT));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeySelectWalker, KeyEvent.VK_UP));
@@ -235,6 +248,8 @@ public class LemHotkeys {
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugDrawBrushSizeDown, KeyEvent.VK_UNDEFINED));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugToggleCursorInfo, KeyEvent.VK_I));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugAddLemAtCursor, KeyEvent.VK_N));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugToggleProfiler, KeyEvent.VK_UNDEFINED));
+	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyDebugExportProfile, KeyEvent.VK_UNDEFINED));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyToggleMenuBar, KeyEvent.VK_UNDEFINED));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyManagePlayers, KeyEvent.VK_F4, "Ctrl"));
 	    	    hotkeys.add(new Hotkey(HotkeyAction.HotkeyLevelSelect, KeyEvent.VK_F9, "Ctrl"));
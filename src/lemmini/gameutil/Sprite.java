@@ -1,7 +1,11 @@
 package lemmini.gameutil;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -71,7 +75,16 @@ public class Sprite {
     protected List<LemImage> frames;
     protected boolean modifiable;
     protected int[][] origColors;
+    /** pixels hidden by setPixelVisibility (y * width + x), null if none */
+    private BitSet hidden;
     private Lemming lemming;
+    /** group that tracks whether this sprite is animating or triggered, may be null */
+    private ActiveSprites activeSprites;
+    private int activeIdx;
+    /** frame and counter are derived from the tick of the group instead of being stepped */
+    private boolean tickDerived;
+    /** tick of the group at which the animation was at frame 0 with counter 0 */
+    private long tickBase;
 
     /**
      * Get Animation depending on integer value from INI.
@@ -156,9 +169,9 @@ public class Sprite {
         numFrames = src.numFrames;
         width = src.width;
         height = src.height;
-        counter = src.counter;
+        counter = src.currentCounter();
         speed = src.speed;
-        frameIdx = src.frameIdx;
+        frameIdx = src.currentFrameIdx();
         animMode = src.animMode;
         sound = src.sound.clone();
         triggered = src.triggered;
@@ -174,6 +187,7 @@ public class Sprite {
                 origColors[i] = origColors[i].clone();
             }
         }
+        hidden = (src.hidden != null) ? (BitSet) src.hidden.clone() : null;
         lemming = src.lemming;
     }
 
@@ -188,7 +202,7 @@ public class Sprite {
      * Get current animation frame.
      */
     public LemImage getImage() {
-        return getImage(frameIdx);
+        return getImage(currentFrameIdx());
     }
 
     /**
@@ -203,6 +217,9 @@ public class Sprite {
      * Get current animation frame and animate.
      */
     public LemImage getImageAnim() {
+        if (tickDerived) {
+            return getImage();
+        }
         switch (animMode) {
             case LOOP:
                 if (++counter >= speed) {
@@ -246,9 +263,91 @@ public class Sprite {
             default:
                 break;
         }
+        stateChanged();
         return getImage(frameIdx);
     }
 
+    /**
+     * Add this sprite to a group of sprites that tracks its animation state.
+     */
+    void setActiveSprites(final ActiveSprites group, final int idx) {
+        activeSprites = group;
+        activeIdx = idx;
+        stateChanged();
+    }
+
+    /**
+     * Update the group after the animation state changed.
+     * LOOP and ONCE animations are switched to (or stay in) tick derived mode here.
+     */
+    private void stateChanged() {
+        if (activeSprites != null) {
+            tickDerived = (animMode == Animation.LOOP || animMode == Animation.ONCE)
+                    && speed >= 1 && counter >= 0 && counter < speed && frameIdx >= 0 && frameIdx < numFrames;
+            if (tickDerived) {
+                tickBase = activeSprites.getTick() - ((long) frameIdx * speed + counter);
+            }
+            activeSprites.update(this, activeIdx);
+        }
+    }
+
+    /**
+     * Get the counter that stepping getImageAnim() once per tick of the group would have reached.
+     * Doesn't change the sprite, so it may also be called by a thread that only draws it.
+     */
+    private int currentCounter() {
+        if (tickDerived) {
+            return (int) ((activeSprites.getTick() - tickBase) % speed);
+        }
+        return counter;
+    }
+
+    /**
+     * Get the frame that stepping getImageAnim() once per tick of the group would have reached.
+     * Doesn't change the sprite, so it may also be called by a thread that only draws it.
+     */
+    private int currentFrameIdx() {
+        if (tickDerived) {
+            long step = (activeSprites.getTick() - tickBase) / speed;
+            if (animMode == Animation.LOOP) {
+                return (int) (step % numFrames);
+            }
+            return (int) Math.min(step, numFrames - 1);
+        }
+        return frameIdx;
+    }
+
+    /**
+     * Store the current frame and counter of a tick derived animation before a setter changes it.
+     */
+    private void syncFromTick() {
+        if (tickDerived) {
+            counter = currentCounter();
+            frameIdx = currentFrameIdx();
+        }
+    }
+
+    /**
+     * Check if getImageAnim() has to be called every tick, i.e. it still changes the current
+     * frame or the triggered state and the animation isn't derived from the tick of the group.
+     */
+    public boolean isAnimating() {
+        if (tickDerived) {
+            return false;
+        }
+        switch (animMode) {
+            case LOOP:
+                return numFrames > 1;
+            case ONCE:
+                return frameIdx < numFrames - 1;
+            case TRIGGERED:
+                // an idle trap is reset to frame 0 and counter 0 once more
+                return triggered || frameIdx != 0 || counter != 0;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Set visibility of pixel in all animation frames.
      */
@@ -261,6 +360,14 @@ public class Sprite {
                 int i = lit.nextIndex();
                 lit.next().setRGB(x, y, visible ? origColors[i][y * width + x] : 0);
             }
+            if (!visible) {
+                if (hidden == null) {
+                    hidden = new BitSet(width * height);
+                }
+                hidden.set(y * width + x);
+            } else if (hidden != null) {
+                hidden.clear(y * width + x);
+            }
         }
     }
 
@@ -309,7 +416,9 @@ public class Sprite {
      * Set animation mode.
      */
     public void setAnimMode(final Animation mode) {
+        syncFromTick();
         animMode = mode;
+        stateChanged();
     }
 
     /**
@@ -330,6 +439,7 @@ public class Sprite {
         if (triggered == true) {
             return false;
         }
+        syncFromTick();
         lemming = l;
         if (sound.length == 1) {
             LemGame.sound.playVisualSFX(sound[0], l.midX(), l.midY()); //NOTE: footX() was midX()
@@ -339,6 +449,7 @@ public class Sprite {
         triggered = true;
         frameIdx = 0;
         counter = speed - 1;
+        stateChanged();
         return true;
     }
 
@@ -346,13 +457,53 @@ public class Sprite {
      * Get current animation frame index.
      */
     public int getFrameIdx() {
-        return frameIdx;
+        return currentFrameIdx();
     }
 
     /** Set current animation frame index.
      */
     public void setFrameIdx(final int frameIdx) {
+        syncFromTick();
         this.frameIdx = frameIdx;
+        stateChanged();
+    }
+
+    /**
+     * Get the current animation state (used for rewind snapshots).
+     */
+    public AnimState getAnimState() {
+        return new AnimState(currentCounter(), currentFrameIdx(), triggered, animMode,
+                (hidden != null) ? (BitSet) hidden.clone() : null);
+    }
+
+    /**
+     * Get the Lemming that triggered the animation (may be null).
+     */
+    public Lemming getTriggerLemming() {
+        return lemming;
+    }
+
+    /**
+     * Restore an animation state returned by getAnimState.
+     * @param state animation state
+     * @param l Lemming that triggered the animation (may be null)
+     */
+    public void setAnimState(final AnimState state, final Lemming l) {
+        counter = state.counter;
+        frameIdx = state.frameIdx;
+        triggered = state.triggered;
+        animMode = state.animMode;
+        lemming = l;
+        stateChanged();
+        // only touch the pixels whose visibility differs
+        BitSet diff = (hidden != null) ? (BitSet) hidden.clone() : new BitSet();
+        if (state.hidden != null) {
+            diff.xor(state.hidden);
+        }
+        for (int i = diff.nextSetBit(0); i >= 0; i = diff.nextSetBit(i + 1)) {
+            boolean visible = state.hidden == null || !state.hidden.get(i);
+            setPixelVisibility(i % width, i / width, visible);
+        }
     }
 
     /**
@@ -435,4 +586,59 @@ public class Sprite {
     public int getHeight() {
         return height;
     }
+
+    /**
+     * Immutable copy of the mutable animation state of a sprite.
+     */
+    public static final class AnimState {
+        private final int counter;
+        private final int frameIdx;
+        private final boolean triggered;
+        private final Animation animMode;
+        private final BitSet hidden;
+
+        private AnimState(final int counter, final int frameIdx, final boolean triggered,
+                final Animation animMode, final BitSet hidden) {
+            this.counter = counter;
+            this.frameIdx = frameIdx;
+            this.triggered = triggered;
+            this.animMode = animMode;
+            this.hidden = hidden;
+        }
+
+        /**
+         * Read an animation state written by write().
+         */
+        public static AnimState read(final DataInput in) throws IOException {
+            int counter = in.readInt();
+            int frameIdx = in.readInt();
+            boolean triggered = in.readBoolean();
+            Animation animMode = Animation.values()[in.readUnsignedByte()];
+            BitSet hidden = null;
+            int len = in.readInt();
+            if (len >= 0) {
+                byte[] bytes = new byte[len];
+                in.readFully(bytes);
+                hidden = BitSet.valueOf(bytes);
+            }
+            return new AnimState(counter, frameIdx, triggered, animMode, hidden);
+        }
+
+        /**
+         * Write this animation state (used for replay checkpoints).
+         */
+        public void write(final DataOutput out) throws IOException {
+            out.writeInt(counter);
+            out.writeInt(frameIdx);
+            out.writeBoolean(triggered);
+            out.writeByte(animMode.ordinal());
+            if (hidden == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = hidden.toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
 }
@@ -3,6 +3,9 @@ package lemmini.graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
@@ -29,22 +32,74 @@ import lemmini.tools.ToolBox;
  * limitations under the License.
  */
 
+/**
+ * Image with pixel operations for terrain, masks and sprites.
+ * <p>
+ * For TYPE_INT_ARGB images (which is what ToolBox creates) the pixel operations work
+ * directly on the int array backing the image instead of going through the ColorModel,
+ * and rows of pixels are handed to {@link PixelRows}, which uses the Vector API if it
+ * is available. Blending is done with integer arithmetic that gives bit-for-bit the same
+ * results as the floating point formulas used before. The array is only fetched on
+ * the first pixel operation, since Java2D stops caching (accelerating) an image whose
+ * array was handed out.
+ */
 public class LemImage {
 
     private final BufferedImage image;
+    private final int width;
+    private final int height;
+    /** data buffer of a TYPE_INT_ARGB image, null for other image types */
+    private final DataBufferInt dataBuffer;
+    /** index of pixel (0, 0) in the data buffer */
+    private final int pixelOffset;
+    private final int scanlineStride;
+    /** pixels of the data buffer, null if not fetched yet */
+    private int[] pixels;
 
     public LemImage(BufferedImage image) {
         this.image = image;
+        width = image.getWidth();
+        height = image.getHeight();
+        WritableRaster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB
+                && raster.getDataBuffer() instanceof DataBufferInt
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            dataBuffer = (DataBufferInt) raster.getDataBuffer();
+            scanlineStride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            pixelOffset = dataBuffer.getOffset() - raster.getSampleModelTranslateY() * scanlineStride
+                    - raster.getSampleModelTranslateX();
+        } else {
+            dataBuffer = null;
+            scanlineStride = 0;
+            pixelOffset = 0;
+        }
     }
 
     public LemImage(LemImage image) {
+        this(copyImage(image));
+    }
+
+    private static BufferedImage copyImage(LemImage image) {
         BufferedImage oldBufferedImage = image.getImage();
-        this.image = new BufferedImage(oldBufferedImage.getColorModel(),
+        return new BufferedImage(oldBufferedImage.getColorModel(),
                 oldBufferedImage.copyData(null),
                 oldBufferedImage.isAlphaPremultiplied(),
                 image.getProperties());
     }
 
+    /**
+     * Get the int array backing a TYPE_INT_ARGB image.
+     * @return pixels or null if the pixels have to be accessed through the BufferedImage
+     */
+    private int[] pixels() {
+        int[] p = pixels;
+        if (p == null && dataBuffer != null) {
+            p = dataBuffer.getData();
+            pixels = p;
+        }
+        return p;
+    }
+
     public BufferedImage getImage() {
         return image;
     }
@@ -154,98 +209,136 @@ public class LemImage {
     }
 
     public int getWidth() {
-        return image.getWidth();
+        return width;
     }
 
     public int getHeight() {
-        return image.getHeight();
+        return height;
     }
 
     public int getRGB(int x, int y) {
-        if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight()) {
-            return image.getRGB(x, y);
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            return rawRGB(x, y);
         } else {
             return 0;
         }
     }
 
+    /**
+     * Get a pixel without bounds check.
+     */
+    private int rawRGB(int x, int y) {
+        int[] p = pixels();
+        return (p != null) ? p[pixelOffset + y * scanlineStride + x] : image.getRGB(x, y);
+    }
+
+    /**
+     * Set a pixel without bounds check.
+     */
+    private void rawSetRGB(int x, int y, int rgb) {
+        int[] p = pixels();
+        if (p != null) {
+            p[pixelOffset + y * scanlineStride + x] = rgb;
+        } else {
+            image.setRGB(x, y, rgb);
+        }
+    }
+
     public int[] getRGB(int startX, int startY, int w, int h, int[] rgbArray, int offset, int scansize) {
-        return image.getRGB(startX, startY, w, h, rgbArray, offset, scansize);
+        int[] p = pixels();
+        if (p == null || startX < 0 || startY < 0 || startX + w > width || startY + h > height) {
+            return image.getRGB(startX, startY, w, h, rgbArray, offset, scansize);
+        }
+        int[] rgb = (rgbArray != null) ? rgbArray : new int[offset + h * scansize];
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(p, pixelOffset + (startY + y) * scanlineStride + startX, rgb, offset + y * scansize, w);
+        }
+        return rgb;
+    }
+
+    public void setRGB(int startX, int startY, int w, int h, int[] rgbArray, int offset, int scansize) {
+        int[] p = pixels();
+        if (p == null || startX < 0 || startY < 0 || startX + w > width || startY + h > height) {
+            image.setRGB(startX, startY, w, h, rgbArray, offset, scansize);
+            return;
+        }
+        for (int y = 0; y < h; y++) {
+            System.arraycopy(rgbArray, offset + y * scansize, p, pixelOffset + (startY + y) * scanlineStride + startX, w);
+        }
     }
 
     public void setRGB(int x, int y, int rgb) {
-        if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight()) {
-            image.setRGB(x, y, rgb);
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            rawSetRGB(x, y, rgb);
         }
     }
 
     public void addRGB(int x, int y, int rgb) {
-        if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
-            return;
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            rawSetRGB(x, y, PixelRows.add(rawRGB(x, y), rgb));
         }
+    }
 
-        final double alphaA = intToDouble((image.getRGB(x, y) >>> 24) & 0xff);
-        final double alphaB = intToDouble((rgb >>> 24) & 0xff);
-        if (alphaB <= 0.0) {
-            return;
-        } else if (alphaA <= 0.0 || alphaB >= 1.0) {
-            image.setRGB(x, y, rgb);
+    /**
+     * Draw a row of colors over the pixels starting at (startX, y).
+     * Pixels outside the image are ignored.
+     */
+    public void addRGB(int startX, int y, int w, int[] rgbArray, int offset) {
+        if (y < 0 || y >= height) {
             return;
         }
-        final double redA = intToDouble((image.getRGB(x, y) >>> 16) & 0xff);
-        final double greenA = intToDouble((image.getRGB(x, y) >>> 8) & 0xff);
-        final double blueA = intToDouble(image.getRGB(x, y) & 0xff);
-        final double redB = intToDouble((rgb >>> 16) & 0xff);
-        final double greenB = intToDouble((rgb >>> 8) & 0xff);
-        final double blueB = intToDouble(rgb & 0xff);
-
-        double alphaNew = alphaB + alphaA * (1.0 - alphaB);
-        double redNew = (redB * alphaB + redA * alphaA * (1.0 - alphaB)) / alphaNew;
-        double greenNew = (greenB * alphaB + greenA * alphaA * (1.0 - alphaB)) / alphaNew;
-        double blueNew = (blueB * alphaB + blueA * alphaA * (1.0 - alphaB)) / alphaNew;
-
-        int rgbNew = (doubleToInt(alphaNew) << 24) | (doubleToInt(redNew) << 16)
-                | (doubleToInt(greenNew) << 8) | doubleToInt(blueNew);
-
-        image.setRGB(x, y, rgbNew);
+        int x0 = Math.max(startX, 0);
+        int x1 = Math.min(startX + w, width);
+        int[] p = pixels();
+        if (p != null) {
+            if (x0 < x1) {
+                PixelRows.INSTANCE.add(p, pixelOffset + y * scanlineStride + x0, rgbArray, offset + x0 - startX, x1 - x0);
+            }
+        } else {
+            for (int x = x0; x < x1; x++) {
+                rawSetRGB(x, y, PixelRows.add(rawRGB(x, y), rgbArray[offset + x - startX]));
+            }
+        }
     }
 
     public void addRGBBehind(int x, int y, int rgb) {
-        if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
-            return;
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            rawSetRGB(x, y, PixelRows.addBehind(rawRGB(x, y), rgb));
         }
+    }
 
-        final double alphaA = intToDouble((image.getRGB(x, y) >>> 24) & 0xff);
-        final double alphaB = intToDouble((rgb >>> 24) & 0xff);
-        if (alphaA >= 1.0 || alphaB <= 0.0) {
-            return;
-        } else if (alphaA <= 0.0) {
-            image.setRGB(x, y, rgb);
+    /**
+     * Draw a row of colors behind the pixels starting at (startX, y).
+     * Pixels outside the image are ignored.
+     */
+    public void addRGBBehind(int startX, int y, int w, int[] rgbArray, int offset) {
+        if (y < 0 || y >= height) {
             return;
         }
-        final double redA = intToDouble((image.getRGB(x, y) >>> 16) & 0xff);
-        final double greenA = intToDouble((image.getRGB(x, y) >>> 8) & 0xff);
-        final double blueA = intToDouble(image.getRGB(x, y) & 0xff);
-        final double redB = intToDouble((rgb >>> 16) & 0xff);
-        final double greenB = intToDouble((rgb >>> 8) & 0xff);
-        final double blueB = intToDouble(rgb & 0xff);
-
-        double alphaNew = alphaA + alphaB * (1.0 - alphaA);
-        double redNew = (redA * alphaA + redB * alphaB * (1.0 - alphaA)) / alphaNew;
-        double greenNew = (greenA * alphaA + greenB * alphaB * (1.0 - alphaA)) / alphaNew;
-        double blueNew = (blueA * alphaA + blueB * alphaB * (1.0 - alphaA)) / alphaNew;
-
-        int rgbNew = (doubleToInt(alphaNew) << 24) | (doubleToInt(redNew) << 16)
-                | (doubleToInt(greenNew) << 8) | doubleToInt(blueNew);
-
-        image.setRGB(x, y, rgbNew);
+        int x0 = Math.max(startX, 0);
+        int x1 = Math.min(startX + w, width);
+        int[] p = pixels();
+        if (p != null) {
+            if (x0 < x1) {
+                PixelRows.INSTANCE.addBehind(p, pixelOffset + y * scanlineStride + x0, rgbArray, offset + x0 - startX, x1 - x0);
+            }
+        } else {
+            for (int x = x0; x < x1; x++) {
+                rawSetRGB(x, y, PixelRows.addBehind(rawRGB(x, y), rgbArray[offset + x - startX]));
+            }
+        }
     }
 
     public void replaceColor(int oldRGB, int newRGB) {
-        int w = getWidth();
-        int h = getHeight();
-        for (int xp = 0; xp < w; xp++) {
-            for (int yp = 0; yp < h; yp++) {
+        int[] p = pixels();
+        if (p != null) {
+            for (int y = 0; y < height; y++) {
+                PixelRows.INSTANCE.replaceColor(p, pixelOffset + y * scanlineStride, width, oldRGB, newRGB);
+            }
+            return;
+        }
+        for (int xp = 0; xp < width; xp++) {
+            for (int yp = 0; yp < height; yp++) {
                 int rgb = getRGB(xp, yp);
                 if ((rgb & 0x00ffffff) == oldRGB) {
                     setRGB(xp, yp, (newRGB & 0x00ffffff) | (rgb & 0xff000000));
@@ -255,24 +348,30 @@ public class LemImage {
     }
 
     public void removeAlpha(int x, int y, int alpha) {
-        if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
-            return;
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            rawSetRGB(x, y, PixelRows.removeAlpha(rawRGB(x, y), alpha));
         }
+    }
 
-        final double alphaA = intToDouble((image.getRGB(x, y) >>> 24) & 0xff);
-        final double alphaB = intToDouble(alpha);
-        if (alphaB >= 1.0) {
-            image.setRGB(x, y, 0);
-            return;
-        } else if (alphaB <= 0.0) {
+    /**
+     * Remove the alpha of a row of colors from the pixels starting at (startX, y).
+     * Pixels outside the image are ignored.
+     */
+    public void removeAlpha(int startX, int y, int w, int[] rgbArray, int offset) {
+        if (y < 0 || y >= height) {
             return;
         }
-
-        int alphaNew = doubleToInt(alphaA * (1.0 - alphaB));
-        if (alphaNew > 0) {
-            image.setRGB(x, y, image.getRGB(x, y) & 0xffffff | alphaNew << 24);
+        int x0 = Math.max(startX, 0);
+        int x1 = Math.min(startX + w, width);
+        int[] p = pixels();
+        if (p != null) {
+            if (x0 < x1) {
+                PixelRows.INSTANCE.removeAlpha(p, pixelOffset + y * scanlineStride + x0, rgbArray, offset + x0 - startX, x1 - x0);
+            }
         } else {
-            image.setRGB(x, y, 0);
+            for (int x = x0; x < x1; x++) {
+                rawSetRGB(x, y, PixelRows.removeAlpha(rawRGB(x, y), rgbArray[offset + x - startX] >>> 24));
+            }
         }
     }
 
@@ -281,57 +380,25 @@ public class LemImage {
     }
 
     public void applyTint(int tint) {
-        final double alphaTint = intToDouble((tint >>> 24) & 0xff);
-        final double redTint = intToDouble((tint >>> 16) & 0xff);
-        final double greenTint = intToDouble((tint >>> 8) & 0xff);
-        final double blueTint = intToDouble(tint & 0xff);
-        if (alphaTint <= 0.0) {
+        if ((tint >>> 24) == 0) {
             return;
         }
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                image.setRGB(x, y, applyTint(image.getRGB(x, y), alphaTint, redTint, greenTint, blueTint));
+        int[] p = pixels();
+        for (int y = 0; y < height; y++) {
+            if (p != null) {
+                PixelRows.INSTANCE.tint(p, pixelOffset + y * scanlineStride, width, tint);
+            } else {
+                for (int x = 0; x < width; x++) {
+                    rawSetRGB(x, y, PixelRows.tint(rawRGB(x, y), tint));
+                }
             }
         }
     }
 
     public static int applyTint(int original, int tint) {
-        final double alphaTint = intToDouble((tint >>> 24) & 0xff);
-        final double redTint = intToDouble((tint >>> 16) & 0xff);
-        final double greenTint = intToDouble((tint >>> 8) & 0xff);
-        final double blueTint = intToDouble(tint & 0xff);
-
-        return applyTint(original, alphaTint, redTint, greenTint, blueTint);
-    }
-
-    private static int applyTint(int original, double alphaTint, double redTint, double greenTint, double blueTint) {
-        if (alphaTint <= 0.0) {
-            return original;
-        }
-
-        int alphaOrig = (original >>> 24) & 0xff;
-        if (alphaOrig <= 0) {
+        if ((tint >>> 24) == 0) {
             return original;
         }
-        double redOrig = intToDouble((original >>> 16) & 0xff);
-        double greenOrig = intToDouble((original >>> 8) & 0xff);
-        double blueOrig = intToDouble(original & 0xff);
-
-        double redNew = redTint * alphaTint + redOrig * (1.0 - alphaTint);
-        double greenNew = greenTint * alphaTint + greenOrig * (1.0 - alphaTint);
-        double blueNew = blueTint * alphaTint + blueOrig * (1.0 - alphaTint);
-
-        int rgbNew = (alphaOrig << 24) | (doubleToInt(redNew) << 16)
-                | (doubleToInt(greenNew) << 8) | doubleToInt(blueNew);
-
-        return rgbNew;
-    }
-
-    private static double intToDouble(int i) {
-        return ToolBox.cap(0.0, i / 255.0, 1.0);
-    }
-
-    private static int doubleToInt(double d) {
-        return ToolBox.cap(0, ToolBox.roundToInt(d * 255.0), 255);
+        return PixelRows.tint(original, tint);
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.graphics;
+
+/**
+ * Pixel operations of LemImage on rows of ARGB pixels.
+ * <p>
+ * This is the scalar implementation. If the module jdk.incubator.vector is available
+ * (e.g. the game was started with {@code --add-modules jdk.incubator.vector}),
+ * {@link #INSTANCE} is a {@link VectorPixelRows} instead, which gives the same results.
+ * The system property {@code lemmini.noVector} forces the scalar implementation.
+ * <p>
+ * All blending is done with integer arithmetic and is bit-for-bit the same as the
+ * floating point formulas LemImage used before.
+ * @author Will James
+ */
+class PixelRows {
+
+    static final PixelRows INSTANCE = create();
+
+    private static PixelRows create() {
+        if (!Boolean.getBoolean("lemmini.noVector")
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // only loaded by name, so the scalar path never links the incubator classes
+                return (PixelRows) Class.forName("lemmini.graphics.VectorPixelRows")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                // fall back to the scalar implementation
+            }
+        }
+        return new PixelRows();
+    }
+
+    /**
+     * Round n / 255 to the nearest integer. Exact for n in [0, 255 * 255].
+     * There are no ties, since 255 is odd.
+     */
+    static int div255(int n) {
+        int t = n + 128;
+        return (t + (t >>> 8)) >>> 8;
+    }
+
+    /**
+     * Draw a color over a pixel, see {@link LemImage#addRGB(int, int, int)}.
+     * @return new pixel
+     */
+    static int add(int old, int rgb) {
+        int alphaA = old >>> 24;
+        int alphaB = rgb >>> 24;
+        if (alphaB == 0) {
+            return old;
+        } else if (alphaA == 0 || alphaB == 0xff) {
+            return rgb;
+        }
+        return blend(rgb, old);
+    }
+
+    /**
+     * Draw a color behind a pixel, see {@link LemImage#addRGBBehind(int, int, int)}.
+     * @return new pixel
+     */
+    static int addBehind(int old, int rgb) {
+        int alphaA = old >>> 24;
+        int alphaB = rgb >>> 24;
+        if (alphaA == 0xff || alphaB == 0) {
+            return old;
+        } else if (alphaA == 0) {
+            return rgb;
+        }
+        return blend(old, rgb);
+    }
+
+    /**
+     * Remove the given alpha from a pixel, see {@link LemImage#removeAlpha(int, int, int)}.
+     * @return new pixel
+     */
+    static int removeAlpha(int old, int alpha) {
+        if (alpha >= 0xff) {
+            return 0;
+        } else if (alpha <= 0) {
+            return old;
+        }
+        // round(alphaA * (1 - alpha)) with both in [0, 1]
+        int alphaNew = div255((old >>> 24) * (0xff - alpha));
+        return (alphaNew > 0) ? (old & 0xffffff | alphaNew << 24) : 0;
+    }
+
+    /**
+     * Tint a pixel, see {@link LemImage#applyTint(int, int)}. The alpha of the tint must not be 0.
+     * @return new pixel
+     */
+    static int tint(int original, int tint) {
+        int alphaOrig = original >>> 24;
+        if (alphaOrig == 0) {
+            return original;
+        }
+        int alphaTint = tint >>> 24;
+        int red = div255(((tint >>> 16) & 0xff) * alphaTint + ((original >>> 16) & 0xff) * (0xff - alphaTint));
+        int green = div255(((tint >>> 8) & 0xff) * alphaTint + ((original >>> 8) & 0xff) * (0xff - alphaTint));
+        int blue = div255((tint & 0xff) * alphaTint + (original & 0xff) * (0xff - alphaTint));
+        return (alphaOrig << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Draw a translucent color over another one.
+     * <p>
+     * Integer version of alpha = aT + aB * (1 - aT) and c = (cT * aT + cB * aB * (1 - aT)) / alpha
+     * with all values in [0, 1]. All terms are multiplied by 255 * 255, so the only inexact
+     * operation is the final division. Exact ties are rare and are rounded by the floating point
+     * version, whose rounding errors decide them, so the result is bit-for-bit the same.
+     * @param top color on top, alpha must not be 0
+     * @param bottom color below, alpha must not be 0
+     */
+    static int blend(int top, int bottom) {
+        int alphaTop = top >>> 24;
+        int alphaBottom = bottom >>> 24;
+        int weightTop = alphaTop * 0xff;
+        int weightBottom = alphaBottom * (0xff - alphaTop);
+        int sum = weightTop + weightBottom;
+        int alpha = (2 * sum + 0xff) / (2 * 0xff);
+        if ((2 * sum + 0xff) % (2 * 0xff) == 0) {
+            double aTop = alphaTop / 255.0;
+            alpha = toInt(aTop + alphaBottom / 255.0 * (1.0 - aTop));
+        }
+        int red = blendChannel((top >>> 16) & 0xff, (bottom >>> 16) & 0xff, alphaTop, alphaBottom, weightTop, weightBottom, sum);
+        int green = blendChannel((top >>> 8) & 0xff, (bottom >>> 8) & 0xff, alphaTop, alphaBottom, weightTop, weightBottom, sum);
+        int blue = blendChannel(top & 0xff, bottom & 0xff, alphaTop, alphaBottom, weightTop, weightBottom, sum);
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int blendChannel(int top, int bottom, int alphaTop, int alphaBottom,
+            int weightTop, int weightBottom, int sum) {
+        int n = 2 * (top * weightTop + bottom * weightBottom) + sum;
+        if (n % (2 * sum) != 0) {
+            return n / (2 * sum);
+        }
+        // exact tie
+        double aTop = alphaTop / 255.0;
+        double aBottom = alphaBottom / 255.0;
+        double aNew = aTop + aBottom * (1.0 - aTop);
+        return toInt((top / 255.0 * aTop + bottom / 255.0 * aBottom * (1.0 - aTop)) / aNew);
+    }
+
+    private static int toInt(double d) {
+        return (int) Math.min(Math.max(Math.round(d * 255.0), 0), 255);
+    }
+
+    /**
+     * Draw every color of src over the pixel at the same position in dst.
+     */
+    void add(int[] dst, int dstOffset, int[] src, int srcOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = add(dst[dstOffset + i], src[srcOffset + i]);
+        }
+    }
+
+    /**
+     * Draw every color of src behind the pixel at the same position in dst.
+     */
+    void addBehind(int[] dst, int dstOffset, int[] src, int srcOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = addBehind(dst[dstOffset + i], src[srcOffset + i]);
+        }
+    }
+
+    /**
+     * Remove the alpha of every color of src from the pixel at the same position in dst.
+     */
+    void removeAlpha(int[] dst, int dstOffset, int[] src, int srcOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = removeAlpha(dst[dstOffset + i], src[srcOffset + i] >>> 24);
+        }
+    }
+
+    /**
+     * Replace the RGB value (keeping the alpha) of all pixels whose RGB value is oldRGB.
+     */
+    void replaceColor(int[] pixels, int offset, int length, int oldRGB, int newRGB) {
+        for (int i = offset; i < offset + length; i++) {
+            int rgb = pixels[i];
+            if ((rgb & 0x00ffffff) == oldRGB) {
+                pixels[i] = (newRGB & 0x00ffffff) | (rgb & 0xff000000);
+            }
+        }
+    }
+
+    /**
+     * Tint all pixels. The alpha of the tint must not be 0.
+     */
+    void tint(int[] pixels, int offset, int length, int tint) {
+        for (int i = offset; i < offset + length; i++) {
+            pixels[i] = tint(pixels[i], tint);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Will James.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lemmini.graphics;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Pixel rows processed with the Vector API (jdk.incubator.vector).
+ * <p>
+ * Only loaded by {@link PixelRows} if the module is available. Terrain pixels are
+ * nearly always fully opaque or fully transparent, which needs no blending at all.
+ * Groups of pixels that contain a translucent pair are passed to the scalar code,
+ * since blending divides by a value that differs per pixel. Everything else
+ * (removing alpha, tinting) only divides by 255 and is done in the vector lanes.
+ * @author Will James
+ */
+final class VectorPixelRows extends PixelRows {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Lane-wise version of {@link PixelRows#div255(int)}.
+     */
+    private static IntVector div255(final IntVector n) {
+        IntVector t = n.add(128);
+        return t.add(t.lanewise(VectorOperators.LSHR, 8)).lanewise(VectorOperators.LSHR, 8);
+    }
+
+    @Override
+    void add(int[] dst, int dstOffset, int[] src, int srcOffset, int length) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            IntVector s = IntVector.fromArray(SPECIES, src, srcOffset + i);
+            IntVector d = IntVector.fromArray(SPECIES, dst, dstOffset + i);
+            IntVector alphaS = s.lanewise(VectorOperators.LSHR, 24);
+            IntVector alphaD = d.lanewise(VectorOperators.LSHR, 24);
+            VectorMask<Integer> keep = alphaS.eq(0);
+            VectorMask<Integer> replace = alphaS.eq(0xff).or(alphaD.eq(0)).andNot(keep);
+            if (!keep.or(replace).allTrue()) {
+                super.add(dst, dstOffset + i, src, srcOffset + i, SPECIES.length());
+            } else if (replace.anyTrue()) {
+                d.blend(s, replace).intoArray(dst, dstOffset + i);
+            }
+        }
+        super.add(dst, dstOffset + i, src, srcOffset + i, length - i);
+    }
+
+    @Override
+    void addBehind(int[] dst, int dstOffset, int[] src, int srcOffset, int length) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            IntVector s = IntVector.fromArray(SPECIES, src, srcOffset + i);
+            IntVector d = IntVector.fromArray(SPECIES, dst, dstOffset + i);
+            IntVector alphaS = s.lanewise(VectorOperators.LSHR, 24);
+            IntVector alphaD = d.lanewise(VectorOperators.LSHR, 24);
+            VectorMask<Integer> keep = alphaD.eq(0xff).or(alphaS.eq(0));
+            VectorMask<Integer> replace = alphaD.eq(0).andNot(keep);
+            if (!keep.or(replace).allTrue()) {
+                super.addBehind(dst, dstOffset + i, src, srcOffset + i, SPECIES.length());
+            } else if (replace.anyTrue()) {
+                d.blend(s, replace).intoArray(dst, dstOffset + i);
+            }
+        }
+        super.addBehind(dst, dstOffset + i, src, srcOffset + i, length - i);
+    }
+
+    @Override
+    void removeAlpha(int[] dst, int dstOffset, int[] src, int srcOffset, int length) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            IntVector alpha = IntVector.fromArray(SPECIES, src, srcOffset + i).lanewise(VectorOperators.LSHR, 24);
+            VectorMask<Integer> keep = alpha.eq(0);
+            if (keep.allTrue()) {
+                continue;
+            }
+            IntVector d = IntVector.fromArray(SPECIES, dst, dstOffset + i);
+            // an alpha of 0xff gives 0 here as well
+            IntVector alphaNew = div255(d.lanewise(VectorOperators.LSHR, 24).mul(alpha.neg().add(0xff)));
+            IntVector removed = d.and(0xffffff).or(alphaNew.lanewise(VectorOperators.LSHL, 24))
+                    .blend(0, alphaNew.eq(0));
+            removed.blend(d, keep).intoArray(dst, dstOffset + i);
+        }
+        super.removeAlpha(dst, dstOffset + i, src, srcOffset + i, length - i);
+    }
+
+    @Override
+    void replaceColor(int[] pixels, int offset, int length, int oldRGB, int newRGB) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            IntVector p = IntVector.fromArray(SPECIES, pixels, offset + i);
+            VectorMask<Integer> match = p.and(0x00ffffff).eq(oldRGB);
+            if (match.anyTrue()) {
+                p.blend(p.and(0xff000000).or(newRGB & 0x00ffffff), match).intoArray(pixels, offset + i);
+            }
+        }
+        super.replaceColor(pixels, offset + i, length - i, oldRGB, newRGB);
+    }
+
+    @Override
+    void tint(int[] pixels, int offset, int length, int tint) {
+        int alphaTint = tint >>> 24;
+        int redTint = ((tint >>> 16) & 0xff) * alphaTint;
+        int greenTint = ((tint >>> 8) & 0xff) * alphaTint;
+        int blueTint = (tint & 0xff) * alphaTint;
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            IntVector p = IntVector.fromArray(SPECIES, pixels, offset + i);
+            IntVector red = div255(p.lanewise(VectorOperators.LSHR, 16).and(0xff).mul(0xff - alphaTint).add(redTint));
+            IntVector green = div255(p.lanewise(VectorOperators.LSHR, 8).and(0xff).mul(0xff - alphaTint).add(greenTint));
+            IntVector blue = div255(p.and(0xff).mul(0xff - alphaTint).add(blueTint));
+            IntVector tinted = p.and(0xff000000)
+                    .or(red.lanewise(VectorOperators.LSHL, 16))
+                    .or(green.lanewise(VectorOperators.LSHL, 8))
+                    .or(blue);
+            // fully transparent pixels are kept as they are
+            tinted.blend(p, p.lanewise(VectorOperators.LSHR, 24).eq(0)).intoArray(pixels, offset + i);
+        }
+        super.tint(pixels, offset + i, length - i, tint);
+    }
+}
@@ -142,6 +142,8 @@ public class Sound {
     private static int lineCounter = 0;
 
     private boolean loaded = false;
+    /** muted instances don't load samples or open lines */
+    private final boolean muted;
     private final Map<Effect, Integer> effects = new EnumMap<>(Effect.class);
     private final List<LineHandler> lineHandlers = new ArrayList<>(MAX_SIMUL_SOUNDS);
     private Deque<LineHandler> availableLineHandlers;
@@ -174,6 +176,15 @@ public class Sound {
      * Constructor.
      */
     public Sound() throws ResourceException {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     * @param muted if true, no samples are loaded and no audio lines are opened
+     */
+    public Sound(final boolean muted) throws ResourceException {
+        this.muted = muted;
         Props programProps = Core.programProps;
         sampleRate = (float) programProps.getDouble("sampleRate", 44100.0);
         bufferSize = programProps.getInt("bufferSize", 8192);
@@ -206,6 +217,14 @@ public class Sound {
         origPitchFormats = new AudioFormat[peValues.length];
         pitchedSampleID = new int[peValues.length];
 
+        if (muted) {
+            for (Effect e : Effect.values()) {
+                effects.put(e, -1);
+            }
+            availableLineHandlers = new LinkedList<>();
+            return;
+        }
+
         load();
 
         // get all available mixers
@@ -236,6 +255,9 @@ public class Sound {
     }
 
     public final void load() throws ResourceException {
+        if (muted) {
+            return;
+        }
         Resource resource = Core.findResource(SOUND_INI_STR, true);
         Props p = new Props();
         if (!p.load(resource)) {
@@ -441,7 +463,7 @@ public class Sound {
      * Play a given sound.
      */
     public void play(final int idx, final double pan) {
-        if (idx < 0 || !LemGame.isOptionEnabled(LemGame.Option.SOUND_ON) || LemGame.isReplayCheck()) {
+        if (idx < 0 || !LemGame.isOptionEnabled(LemGame.Option.SOUND_ON) || LemGame.isReplayCheck() || LemGame.isMaxSpeed()) {
             return;
         }
 
@@ -546,7 +568,7 @@ public class Sound {
      * Play a pitched sample.
      */
     public void playPitched(final PitchedEffect pe, final int pitch) {
-        if (!LemGame.isOptionEnabled(LemGame.Option.SOUND_ON) || LemGame.isReplayCheck()) {
+        if (!LemGame.isOptionEnabled(LemGame.Option.SOUND_ON) || LemGame.isReplayCheck() || LemGame.isMaxSpeed()) {
             return;
         }
 